@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazemeter.jmeter.plugins.bulksampler;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jmeter.gui.tree.JMeterTreeNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The mutation phase of an apply: deleting, disabling and header row deletion.
+ * Each invocation works on a freshly generated plan, so the single-shot times include
+ * the tree model events a real apply fires but not the plan generation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ApplyBenchmark {
+
+    @Param({"1000", "100000"})
+    public int samplers;
+
+    @Param({"2"})
+    public int depth;
+
+    /** Header Managers carry this many rows each; one Header Manager per sampler, up to 1000 */
+    @Param({"50"})
+    public int headerRows;
+
+    private TestPlanGenerator.Plan plan;
+    private List<JMeterTreeNode> matches;
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        plan = TestPlanGenerator.generate(new TestPlanGenerator.Shape(4, depth, samplers,
+            Math.min(samplers, 1000), headerRows), 42);
+        SamplerIndex index = SamplerIndex.forModel(plan.model());
+        // Static assets: roughly a third of the generated samplers
+        matches = new SamplerQuery("/static/", false, true, false, false, false, List.of())
+            .run(index.planSnapshot(null), null, null)
+            .getNodes();
+    }
+
+    @Benchmark
+    public int delete() {
+        return BulkOperations.applyToSamplers(plan.model(), matches, BulkSamplerDialog.ActionType.DELETE);
+    }
+
+    @Benchmark
+    public int disable() {
+        return BulkOperations.applyToSamplers(plan.model(), matches, BulkSamplerDialog.ActionType.DISABLE);
+    }
+
+    @Benchmark
+    public int deleteHeaders() {
+        JMeterTreeNode root = (JMeterTreeNode) plan.model().getRoot();
+        TextMatcher matcher = TextMatcher.compile("cookie", false, false, false, false);
+        return BulkOperations.removeHeaders(BulkOperations.findHeaderRemovals(root, matcher, false, List.of()));
+    }
+}
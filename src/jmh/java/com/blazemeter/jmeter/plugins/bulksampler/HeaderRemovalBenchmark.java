@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazemeter.jmeter.plugins.bulksampler;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jmeter.protocol.http.control.Header;
+import org.apache.jmeter.protocol.http.control.HeaderManager;
+import org.apache.jmeter.testelement.property.CollectionProperty;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Header row removal from one large Header Manager, as left behind by HAR imports
+ * that record a cookie header per request.
+ *
+ * <p>Every other row matches. {@code compacting} is the single-pass removal used by the
+ * plugin and should scale linearly with the row count; {@code perIndex} is the previous
+ * one-{@code remove(index)}-per-match approach, kept as a quadratic baseline.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class HeaderRemovalBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int rows;
+
+    private HeaderManager headerManager;
+    private int[] indices;
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        headerManager = new HeaderManager();
+        indices = new int[rows / 2];
+        int count = 0;
+        for (int i = 0; i < rows; i++) {
+            if (i % 2 == 0) {
+                headerManager.add(new Header("Cookie", "session=" + i));
+                if (count < indices.length) {
+                    indices[count++] = i;
+                }
+            } else {
+                headerManager.add(new Header("X-Request-" + i, "value-" + i));
+            }
+        }
+    }
+
+    @Benchmark
+    public int compacting() {
+        return BulkOperations.removeHeaderRows(headerManager, indices);
+    }
+
+    @Benchmark
+    public int perIndex() {
+        CollectionProperty headers = headerManager.getHeaders();
+        for (int i = indices.length - 1; i >= 0; i--) {
+            headers.remove(indices[i]);
+        }
+        return indices.length;
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazemeter.jmeter.plugins.bulksampler;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jmeter.gui.tree.JMeterTreeNode;
+import org.apache.jmeter.testelement.TestElement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Per-sampler costs: building the searchable text and testing it with each matcher kind.
+ * Scores are for one pass over every sampler of the generated plan.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class MatchingBenchmark {
+
+    @Param({"1000", "100000"})
+    public int samplers;
+
+    private TestElement[] elements;
+    private SamplerIndex.Entry[] entries;
+    private String[] texts;
+
+    private TextMatcher literal;
+    private TextMatcher literalCaseSensitive;
+    private TextMatcher multiPattern;
+    private TextMatcher linearRegex;
+    private TextMatcher backtrackingRegex;
+
+    @Setup
+    public void setUp() {
+        TestPlanGenerator.Plan plan = TestPlanGenerator.generate(
+            new TestPlanGenerator.Shape(4, 2, samplers, 0, 0), 42);
+        List<JMeterTreeNode> nodes = plan.samplerNodes();
+        elements = new TestElement[nodes.size()];
+        for (int i = 0; i < elements.length; i++) {
+            elements[i] = nodes.get(i).getTestElement();
+        }
+        entries = SamplerIndex.forModel(plan.model()).snapshot();
+        texts = new String[entries.length];
+        for (int i = 0; i < texts.length; i++) {
+            texts[i] = entries[i].getSearchableText();
+        }
+
+        literal = TextMatcher.compile("/API/V2/", false, false, false, false);
+        literalCaseSensitive = TextMatcher.compile("/api/v2/", false, false, true, false);
+        multiPattern = TextMatcher.compile(".png, .css, /analytics, tracker.io", false, true, false, false);
+        linearRegex = TextMatcher.compile("^https://api\\.example\\.com/api/v[0-9]+/orders/[0-9]+", true, false, false, true);
+        backtrackingRegex = TextMatcher.compile("^https://api\\.example\\.com/api/v[0-9]+/orders/[0-9]+", true, false, false, false);
+        if (!(linearRegex instanceof LinearRegexMatcher) || backtrackingRegex instanceof LinearRegexMatcher) {
+            throw new IllegalStateException("Unexpected regex engines: " + linearRegex + ", " + backtrackingRegex);
+        }
+    }
+
+    @Benchmark
+    public int extractUri() {
+        int length = 0;
+        for (TestElement element : elements) {
+            length += SamplerIndex.extractUri(element).length();
+        }
+        return length;
+    }
+
+    @Benchmark
+    public int cachedSearchableText() {
+        int length = 0;
+        for (SamplerIndex.Entry entry : entries) {
+            length += entry.getSearchableText().length();
+        }
+        return length;
+    }
+
+    @Benchmark
+    public int literalIgnoreCase() {
+        return count(literal);
+    }
+
+    @Benchmark
+    public int literalCaseSensitive() {
+        return count(literalCaseSensitive);
+    }
+
+    @Benchmark
+    public int multiPattern() {
+        return count(multiPattern);
+    }
+
+    @Benchmark
+    public int linearRegex() {
+        return count(linearRegex);
+    }
+
+    @Benchmark
+    public int backtrackingRegex() {
+        return count(backtrackingRegex);
+    }
+
+    /**
+     * Baseline: the allocating case-insensitive contains check the literal matcher replaced.
+     */
+    @Benchmark
+    public int toLowerCaseContains() {
+        String pattern = "/API/V2/".toLowerCase();
+        int count = 0;
+        for (String text : texts) {
+            if (text.toLowerCase().contains(pattern)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private int count(TextMatcher matcher) {
+        int count = 0;
+        for (String text : texts) {
+            if (matcher.find(text)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
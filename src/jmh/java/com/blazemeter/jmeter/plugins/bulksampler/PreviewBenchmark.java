@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazemeter.jmeter.plugins.bulksampler;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A full sampler preview as the dialog computes it, with and without the trigram prefilter,
+ * plus the one-off costs of taking the plan snapshot and building the trigram index.
+ * {@code timedFullScan} is the full scan with phase timings, as the dialog runs it;
+ * compare with {@code fullScan} for the instrumentation overhead. {@code sequentialScan}
+ * is the full scan on the calling thread only; compare with {@code fullScan}, which splits
+ * large scans across the common fork/join pool, for the parallel speedup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PreviewBenchmark {
+
+    @Param({"1000", "100000"})
+    public int samplers;
+
+    /** A selective literal, a broad literal, a regex with a required literal and a field-scoped literal */
+    @Param({"orders/123", "/static/", "regex:^https://api\\.example\\.com/api/v[0-9]+/users/4", "path:/static/"})
+    public String pattern;
+
+    private TestPlanGenerator.Plan plan;
+    private PlanSnapshot snapshot;
+    private TrigramIndex trigramIndex;
+    private SamplerQuery query;
+
+    @Setup
+    public void setUp() {
+        plan = TestPlanGenerator.generate(new TestPlanGenerator.Shape(4, 2, samplers, 0, 0), 42);
+        snapshot = SamplerIndex.forModel(plan.model()).planSnapshot(null);
+        trigramIndex = TrigramIndex.build(snapshot);
+        boolean regex = pattern.startsWith("regex:");
+        query = new SamplerQuery(regex ? pattern.substring("regex:".length()) : pattern,
+            regex, true, false, false, false, List.of());
+    }
+
+    @Benchmark
+    public int fullScan() {
+        return query.run(snapshot, null, null).size();
+    }
+
+    @Benchmark
+    public int sequentialScan() {
+        return query.run(snapshot, null, null, null, null).size();
+    }
+
+    @Benchmark
+    public int timedFullScan() {
+        return query.run(snapshot, null, null, new PhaseTimings()).size();
+    }
+
+    @Benchmark
+    public int trigramPrefiltered() {
+        int[] candidates = trigramIndex.candidates(query.getPattern(), query.isUseRegex(), query.isMultiPattern());
+        return query.run(snapshot, candidates, null).size();
+    }
+
+    @Benchmark
+    public int planSnapshot() {
+        return SamplerIndex.forModel(plan.model()).planSnapshot(null).getNodeCount();
+    }
+
+    @Benchmark
+    public int buildTrigramIndex() {
+        return TrigramIndex.build(snapshot).getEntryCount();
+    }
+}
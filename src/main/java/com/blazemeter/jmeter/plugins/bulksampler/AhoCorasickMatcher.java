@@ -0,0 +1,255 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazemeter.jmeter.plugins.bulksampler;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Multi-pattern literal matcher built on an Aho-Corasick automaton.
+ *
+ * <p>All patterns are compiled into one automaton, so a text is scanned once no matter
+ * how many patterns are configured. ASCII transitions are precomputed into a dense
+ * table (a full DFA); other characters follow trie edges and failure links.
+ *
+ * <p>Instances are immutable and safe to share between threads.
+ */
+public final class AhoCorasickMatcher implements TextMatcher {
+
+    /** Separator between patterns in the dialog's pattern field */
+    public static final String PATTERN_SEPARATOR = ",";
+
+    private static final int ASCII = 128;
+
+    private final List<String> patterns;
+    private final boolean caseSensitive;
+
+    /** Dense transitions for ASCII characters: {@code asciiNext[state * ASCII + c]} */
+    private final int[] asciiNext;
+    /** Sorted non-ASCII trie edge labels per state */
+    private final char[][] edgeChars;
+    /** Targets matching {@link #edgeChars} */
+    private final int[][] edgeTargets;
+    private final int[] fail;
+    /** Index of a pattern ending at each state (directly or via a suffix), or -1 */
+    private final int[] output;
+
+    private AhoCorasickMatcher(List<String> patterns, boolean caseSensitive) {
+        this.patterns = Collections.unmodifiableList(new ArrayList<>(patterns));
+        this.caseSensitive = caseSensitive;
+
+        // Build the trie
+        List<Map<Character, Integer>> children = new ArrayList<>();
+        List<Integer> terminal = new ArrayList<>();
+        children.add(new TreeMap<>());
+        terminal.add(-1);
+        for (int p = 0; p < patterns.size(); p++) {
+            String pattern = patterns.get(p);
+            int state = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = fold(pattern.charAt(i));
+                Integer next = children.get(state).get(c);
+                if (next == null) {
+                    next = children.size();
+                    children.add(new TreeMap<>());
+                    terminal.add(-1);
+                    children.get(state).put(c, next);
+                }
+                state = next;
+            }
+            // Keep the first pattern when duplicates end at the same state
+            if (terminal.get(state) < 0) {
+                terminal.set(state, p);
+            }
+        }
+
+        int stateCount = children.size();
+        this.fail = new int[stateCount];
+        this.output = new int[stateCount];
+        this.asciiNext = new int[stateCount * ASCII];
+        this.edgeChars = new char[stateCount][];
+        this.edgeTargets = new int[stateCount][];
+
+        for (int state = 0; state < stateCount; state++) {
+            Map<Character, Integer> edges = children.get(state);
+            int nonAscii = 0;
+            for (char c : edges.keySet()) {
+                if (c >= ASCII) {
+                    nonAscii++;
+                }
+            }
+            char[] chars = new char[nonAscii];
+            int[] targets = new int[nonAscii];
+            int k = 0;
+            for (Map.Entry<Character, Integer> edge : edges.entrySet()) {
+                if (edge.getKey() >= ASCII) {
+                    chars[k] = edge.getKey();
+                    targets[k] = edge.getValue();
+                    k++;
+                }
+            }
+            edgeChars[state] = chars;
+            edgeTargets[state] = targets;
+        }
+
+        // Breadth-first: failure links, outputs and the dense ASCII table
+        Deque<Integer> queue = new ArrayDeque<>();
+        output[0] = terminal.get(0);
+        for (int c = 0; c < ASCII; c++) {
+            Integer child = children.get(0).get((char) c);
+            asciiNext[c] = child != null ? child : 0;
+        }
+        for (int child : children.get(0).values()) {
+            fail[child] = 0;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            output[state] = terminal.get(state) >= 0 ? terminal.get(state) : output[fail[state]];
+            for (int c = 0; c < ASCII; c++) {
+                Integer child = children.get(state).get((char) c);
+                asciiNext[state * ASCII + c] = child != null ? child : asciiNext[fail[state] * ASCII + c];
+            }
+            for (Map.Entry<Character, Integer> edge : children.get(state).entrySet()) {
+                int child = edge.getValue();
+                fail[child] = next(fail[state], edge.getKey());
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     * Compiles a list of literal patterns. Blank entries are ignored.
+     *
+     * @param patterns The literals to search for
+     * @param caseSensitive Whether matching should be case-sensitive
+     * @return The compiled matcher
+     * @throws IllegalArgumentException if no non-blank pattern is given
+     */
+    public static AhoCorasickMatcher compile(List<String> patterns, boolean caseSensitive) {
+        List<String> literals = new ArrayList<>();
+        for (String pattern : patterns) {
+            if (pattern != null && !pattern.isEmpty()) {
+                literals.add(pattern);
+            }
+        }
+        if (literals.isEmpty()) {
+            throw new IllegalArgumentException("At least one pattern is required");
+        }
+        return new AhoCorasickMatcher(literals, caseSensitive);
+    }
+
+    /**
+     * Splits the dialog's pattern field into trimmed, non-empty literals.
+     *
+     * @param patternText Patterns separated by {@link #PATTERN_SEPARATOR}
+     * @return The individual patterns
+     */
+    public static List<String> splitPatterns(String patternText) {
+        List<String> result = new ArrayList<>();
+        if (patternText == null) {
+            return result;
+        }
+        for (String part : patternText.split(PATTERN_SEPARATOR)) {
+            String trimmed = part.trim();
+            if (!trimmed.isEmpty()) {
+                result.add(trimmed);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the compiled patterns, in the order given.
+     *
+     * @return The patterns
+     */
+    public List<String> getPatterns() {
+        return patterns;
+    }
+
+    /**
+     * Returns the pattern at the given index.
+     *
+     * @param index A value returned by {@link #firstMatch(CharSequence)}
+     * @return The pattern text
+     */
+    public String getPattern(int index) {
+        return patterns.get(index);
+    }
+
+    @Override
+    public boolean find(CharSequence text) {
+        return firstMatch(text) >= 0;
+    }
+
+    /**
+     * Scans the text and reports the pattern of the earliest-ending occurrence.
+     *
+     * @param text The text to scan (null never matches)
+     * @return The index of the matching pattern, or -1 if none occurs
+     */
+    public int firstMatch(CharSequence text) {
+        if (text == null) {
+            return -1;
+        }
+        int state = 0;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            state = next(state, fold(text.charAt(i)));
+            if (output[state] >= 0) {
+                return output[state];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Follows the goto function for an already folded character, using failure links
+     * for characters outside the dense ASCII table.
+     */
+    private int next(int state, char c) {
+        if (c < ASCII) {
+            return asciiNext[state * ASCII + c];
+        }
+        while (true) {
+            int k = Arrays.binarySearch(edgeChars[state], c);
+            if (k >= 0) {
+                return edgeTargets[state][k];
+            }
+            if (state == 0) {
+                return 0;
+            }
+            state = fail[state];
+        }
+    }
+
+    private char fold(char c) {
+        return caseSensitive ? c : LiteralMatcher.foldCase(c);
+    }
+
+    @Override
+    public String toString() {
+        return "AhoCorasickMatcher" + patterns + (caseSensitive ? "" : "[ignoreCase]");
+    }
+}
@@ -0,0 +1,280 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazemeter.jmeter.plugins.bulksampler;
+
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.Frame;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.lang.reflect.InvocationTargetException;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JDialog;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JProgressBar;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+import javax.swing.WindowConstants;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs a bulk apply as a chunked pipeline behind a modal progress dialog.
+ *
+ * <p>Matching runs on this worker's background thread. The matched items are then
+ * mutated on the event dispatch thread in bounded batches, so the GUI stays responsive
+ * and the progress bar advances between batches. Cancelling stops cleanly before the
+ * next batch; batches already applied are kept.
+ *
+ * <p>The progress dialog is modal, so the test plan cannot be edited while the
+ * apply runs. The caller refreshes the GUI once, from {@link Completion#finished(Result)}.
+ *
+ * <p>The time and allocations of every batch are recorded as the
+ * {@link PhaseTimings.Phase#MUTATION mutation} phase of the caller's timings, which the
+ * finder may also record its search into.
+ *
+ * @param <T> The type of matched item
+ */
+public class BulkApplyWorker<T> extends SwingWorker<BulkApplyWorker.Result, Integer> {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkApplyWorker.class);
+
+    /** Number of items mutated per event dispatch thread batch */
+    public static final int DEFAULT_BATCH_SIZE = 250;
+
+    /**
+     * Applies the mutation to one batch of matched items. Always called on the event dispatch thread.
+     *
+     * @param <T> The type of matched item
+     */
+    @FunctionalInterface
+    public interface BatchStep<T> {
+        /**
+         * Mutates a batch of items.
+         *
+         * @param batch The items to mutate, in match order
+         * @return The number of items actually affected
+         */
+        int apply(List<T> batch);
+    }
+
+    /**
+     * Receives the outcome of the apply on the event dispatch thread.
+     */
+    public interface Completion {
+        /**
+         * Called when the apply completed or was cancelled.
+         *
+         * @param result The outcome
+         */
+        void finished(Result result);
+
+        /**
+         * Called when matching or a batch failed.
+         *
+         * @param error The failure
+         */
+        void failed(Throwable error);
+    }
+
+    /**
+     * The outcome of an apply.
+     *
+     * @param affected The number of items the batches reported as affected
+     * @param processed The number of matched items handed to batches
+     * @param total The number of matched items
+     * @param cancelled Whether the user cancelled before all batches ran
+     * @param timings The phase timings recorded so far
+     */
+    public record Result(int affected, int processed, int total, boolean cancelled, PhaseTimings timings) {
+    }
+
+    private final Callable<List<T>> finder;
+    private final BatchStep<T> step;
+    private final int batchSize;
+    private final Completion completion;
+    private final PhaseTimings timings;
+    private final AtomicBoolean cancelRequested = new AtomicBoolean();
+
+    private final JDialog progressDialog;
+    private final JProgressBar progressBar;
+    private final JLabel progressLabel;
+    private final JButton cancelButton;
+
+    /**
+     * Creates the worker and its (not yet visible) progress dialog.
+     *
+     * @param owner The frame owning the progress dialog
+     * @param title The progress dialog title
+     * @param finder Finds the items to mutate; runs on the background thread
+     * @param step Mutates one batch; runs on the event dispatch thread
+     * @param batchSize The maximum number of items per batch
+     * @param completion Receives the outcome
+     * @param timings Receives the mutation time of the batches
+     */
+    public BulkApplyWorker(Frame owner, String title, Callable<List<T>> finder, BatchStep<T> step,
+            int batchSize, Completion completion, PhaseTimings timings) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        }
+        this.finder = finder;
+        this.step = step;
+        this.batchSize = batchSize;
+        this.completion = completion;
+        this.timings = timings;
+
+        progressDialog = new JDialog(owner, title, true);
+        progressDialog.setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
+        progressDialog.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                requestCancel();
+            }
+        });
+
+        progressLabel = new JLabel("Finding matches...");
+        progressBar = new JProgressBar();
+        progressBar.setIndeterminate(true);
+        progressBar.setStringPainted(true);
+        progressBar.setString("");
+        progressBar.setPreferredSize(new Dimension(360, progressBar.getPreferredSize().height));
+
+        cancelButton = new JButton("Cancel");
+        cancelButton.addActionListener(e -> requestCancel());
+
+        JPanel content = new JPanel(new BorderLayout(5, 5));
+        content.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        content.add(progressLabel, BorderLayout.NORTH);
+        content.add(progressBar, BorderLayout.CENTER);
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        buttonPanel.add(cancelButton);
+        content.add(buttonPanel, BorderLayout.SOUTH);
+        progressDialog.setContentPane(content);
+        progressDialog.pack();
+        progressDialog.setLocationRelativeTo(owner);
+    }
+
+    /**
+     * Starts the apply and blocks (pumping events) until it finishes.
+     * Must be called on the event dispatch thread.
+     */
+    public void start() {
+        execute();
+        progressDialog.setVisible(true);
+    }
+
+    /**
+     * Requests the apply to stop before its next batch.
+     */
+    public void requestCancel() {
+        if (cancelRequested.compareAndSet(false, true)) {
+            cancelButton.setEnabled(false);
+            progressLabel.setText("Cancelling...");
+        }
+    }
+
+    @Override
+    protected Result doInBackground() throws Exception {
+        List<T> items = finder.call();
+        int total = items.size();
+        publish(0, total);
+
+        int affected = 0;
+        int processed = 0;
+        while (processed < total && !cancelRequested.get()) {
+            List<T> batch = items.subList(processed, Math.min(processed + batchSize, total));
+            int[] batchAffected = {-1};
+            int processedBefore = processed;
+            try {
+                SwingUtilities.invokeAndWait(() -> {
+                    // Re-checked on the EDT, where the cancel button runs
+                    if (!cancelRequested.get()) {
+                        BulkEvents.ApplyBatchEvent event = new BulkEvents.ApplyBatchEvent();
+                        event.begin();
+                        PhaseTimings.Mark start = PhaseTimings.mark();
+                        batchAffected[0] = step.apply(batch);
+                        timings.add(PhaseTimings.Phase.MUTATION, start);
+                        event.end();
+                        if (event.shouldCommit()) {
+                            event.items = batch.size();
+                            event.affected = batchAffected[0];
+                            event.processed = processedBefore + batch.size();
+                            event.total = total;
+                            event.commit();
+                        }
+                    }
+                });
+            } catch (InvocationTargetException e) {
+                throw new ExecutionException(e.getCause());
+            }
+            if (batchAffected[0] < 0) {
+                break;
+            }
+            affected += batchAffected[0];
+            processed += batch.size();
+            publish(processed, total);
+        }
+        boolean cancelled = processed < total;
+        if (cancelled) {
+            log.info("Bulk apply cancelled after {} of {} item(s)", processed, total);
+        }
+        return new Result(affected, processed, total, cancelled, timings);
+    }
+
+    /**
+     * Receives (processed, total) pairs.
+     */
+    @Override
+    protected void process(List<Integer> chunks) {
+        if (chunks.size() < 2) {
+            return;
+        }
+        int processed = chunks.get(chunks.size() - 2);
+        int total = chunks.get(chunks.size() - 1);
+        progressBar.setIndeterminate(false);
+        progressBar.setMaximum(Math.max(total, 1));
+        progressBar.setValue(processed);
+        progressBar.setString("%d / %d".formatted(processed, total));
+        if (!cancelRequested.get()) {
+            progressLabel.setText("Applying to %d matching item(s)...".formatted(total));
+        }
+    }
+
+    @Override
+    protected void done() {
+        progressDialog.dispose();
+        try {
+            completion.finished(get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            completion.failed(cause instanceof ExecutionException && cause.getCause() != null
+                ? cause.getCause() : cause);
+        }
+    }
+}
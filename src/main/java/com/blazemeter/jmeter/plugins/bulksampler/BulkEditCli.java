@@ -0,0 +1,715 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazemeter.jmeter.plugins.bulksampler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.PatternSyntaxException;
+import java.util.stream.Stream;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.apache.jmeter.gui.tree.JMeterTreeModel;
+import org.apache.jmeter.gui.tree.JMeterTreeNode;
+import org.apache.jmeter.save.SaveService;
+import org.apache.jmeter.testelement.TestElement;
+import org.apache.jmeter.util.JMeterUtils;
+import org.apache.jorphan.collections.HashTree;
+import org.apache.jorphan.collections.ListedHashTree;
+
+/**
+ * Command line entry point applying the bulk operations to a {@code .jmx} file without the GUI.
+ *
+ * <p>The plan is loaded through {@link SaveService}, mirrored into a headless
+ * {@link JMeterTreeModel}, edited with the same {@link RuleSet} and
+ * {@link BulkOperations} code the GUI action uses, and saved back.
+ *
+ * <p>Run it with JMeter's libraries on the class path:
+ * <pre>
+ * java -cp "bulk-edit-manager.jar:$JMETER_HOME/lib/*:$JMETER_HOME/lib/ext/*" \
+ *     com.blazemeter.jmeter.plugins.bulksampler.BulkEditCli \
+ *     --action disable --pattern /static/ --in-place plan.jmx
+ * </pre>
+ *
+ * <p>Several plans, a directory or a glob are edited in parallel on a bounded pool; the
+ * compiled patterns are shared by all workers and each plan is saved atomically.
+ *
+ * <p>Exit codes: {@value #EXIT_OK} when something matched, {@value #EXIT_NO_MATCH} when
+ * nothing matched, {@value #EXIT_USAGE} for invalid arguments or patterns and
+ * {@value #EXIT_IO_ERROR} when a plan cannot be loaded or saved.
+ */
+public final class BulkEditCli {
+
+    /** At least one sampler or header matched and the plan was processed */
+    public static final int EXIT_OK = 0;
+    /** Nothing matched; the plan is still written (unchanged) unless running dry */
+    public static final int EXIT_NO_MATCH = 1;
+    /** Invalid command line or pattern */
+    public static final int EXIT_USAGE = 2;
+    /** The plan or JMeter's configuration could not be read or written */
+    public static final int EXIT_IO_ERROR = 3;
+
+    private static final String USAGE = """
+        Usage: BulkEditCli (--action <delete|disable|enable|delete-headers> --pattern <text> | --rules <file>)
+                           (--output <file> | --in-place | --dry-run) [options] <plan.jmx>...
+
+        Inputs may be files, directories (every .jmx below them) or quoted globs ("plans/**/*.jmx").
+
+        Options:
+          -a, --action <name>       Operation to apply
+          -p, --pattern <text>      URI pattern (samplers) or header name pattern (delete-headers);
+                                    name:, protocol:, domain:, port:, path: or method: matches one sampler field
+          -r, --rules <file>        Apply every rule of a rule file in one pass (see RuleSet)
+          -o, --output <file>       Write the edited plan to this file (a directory for several plans)
+              --in-place            Overwrite the input plan
+              --dry-run             Only report matches, write nothing
+              --streaming           Rewrite the XML as it streams, in constant memory, for very large plans
+          -j, --jobs <n>            Plans edited in parallel (default: number of processors)
+              --regex               Treat the pattern as a regular expression
+              --backtracking-regex  Evaluate regexes with java.util.regex instead of the linear-time engine
+              --multi               Pattern is a comma-separated list of texts
+              --case-sensitive      Match case-sensitively
+              --invert              Select what does NOT match
+              --list                Print each match
+              --jmeter-home <dir>   JMeter installation (default: $JMETER_HOME)
+          -h, --help                Show this help
+
+        Prints one summary line: action=<name> (or rules=<file>) matched=<n> affected=<n> output=<file|->
+        With several plans, one line per plan (file=<plan> ...) and a total line with files= and failed=.
+        Exit codes: 0 matched, 1 nothing matched, 2 usage or pattern error, 3 I/O error (any plan)
+        """;
+
+    private BulkEditCli() {
+    }
+
+    /**
+     * Runs the command line tool and exits with its status code.
+     *
+     * @param args The command line arguments
+     */
+    public static void main(String[] args) {
+        // Before any AWT class is touched; the tree model only needs Swing's data classes
+        System.setProperty("java.awt.headless", "true");
+        System.exit(run(args, System.out, System.err));
+    }
+
+    /**
+     * Runs the command line tool.
+     *
+     * @param args The command line arguments
+     * @param out Receives the summary and listed matches
+     * @param err Receives errors
+     * @return The exit code
+     */
+    public static int run(String[] args, PrintStream out, PrintStream err) {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            err.println("Error: " + e.getMessage());
+            err.print(USAGE);
+            return EXIT_USAGE;
+        }
+        if (options.help) {
+            out.print(USAGE);
+            return EXIT_OK;
+        }
+
+        RuleSet rules;
+        try {
+            rules = options.rulesFile != null
+                ? RuleSet.load(options.rulesFile.toPath())
+                : new RuleSet(List.of(new RuleSet.Rule("1", options.action, options.pattern, options.regex,
+                    options.linearRegex, options.multiPattern, options.caseSensitive, options.invert, 0)));
+        } catch (PatternSyntaxException e) {
+            err.println("Error: invalid pattern: " + e.getMessage());
+            return EXIT_USAGE;
+        } catch (IllegalArgumentException e) {
+            err.println("Error: invalid " + (options.rulesFile != null ? "rule file" : "pattern") + ": "
+                + e.getMessage());
+            return EXIT_USAGE;
+        } catch (IOException e) {
+            err.println("Error: cannot read " + options.rulesFile + ": " + describe(e));
+            return EXIT_IO_ERROR;
+        }
+
+        try {
+            initJMeter(options.jmeterHome);
+        } catch (IOException | RuntimeException e) {
+            err.println("Error: cannot initialize JMeter: " + describe(e));
+            return EXIT_IO_ERROR;
+        }
+
+        List<PlanFile> plans;
+        try {
+            plans = resolvePlans(options);
+        } catch (IllegalArgumentException e) {
+            err.println("Error: " + e.getMessage());
+            return EXIT_USAGE;
+        } catch (IOException e) {
+            err.println("Error: cannot list input plans: " + describe(e));
+            return EXIT_IO_ERROR;
+        }
+
+        Edit edit = new Edit(rules, options.list, options.streaming);
+        if (!options.batch) {
+            PlanResult result = edit.apply(plans.get(0));
+            result.listing().forEach(out::println);
+            if (result.error() != null) {
+                err.println("Error: " + result.error());
+                return EXIT_IO_ERROR;
+            }
+            out.println(options.label() + " matched=" + result.matched()
+                + " affected=" + result.affected() + " output=" + result.outputName());
+            return result.matched() > 0 ? EXIT_OK : EXIT_NO_MATCH;
+        }
+        return runBatch(edit, plans, options, out, err);
+    }
+
+    /**
+     * Edits the plans on a bounded pool, printing each plan's summary in input order as it completes.
+     */
+    private static int runBatch(Edit edit, List<PlanFile> plans, Options options, PrintStream out,
+            PrintStream err) {
+        int jobs = Math.min(options.jobs, plans.size());
+        AtomicInteger threadIds = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(jobs, runnable -> {
+            Thread thread = new Thread(runnable, "bulk-edit-" + threadIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        int matched = 0;
+        int affected = 0;
+        int failed = 0;
+        try {
+            List<Future<PlanResult>> futures = new ArrayList<>(plans.size());
+            for (PlanFile plan : plans) {
+                futures.add(pool.submit(() -> edit.apply(plan)));
+            }
+            for (int i = 0; i < plans.size(); i++) {
+                PlanResult result;
+                try {
+                    result = futures.get(i).get();
+                } catch (ExecutionException e) {
+                    // Only errors (e.g. out of memory) escape Edit.apply
+                    result = PlanResult.failed(plans.get(i), describe(e.getCause()));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    err.println("Error: interrupted");
+                    return EXIT_IO_ERROR;
+                }
+                result.listing().forEach(out::println);
+                if (result.error() != null) {
+                    failed++;
+                    out.println("file=" + plans.get(i).input() + " error=" + result.error());
+                    continue;
+                }
+                matched += result.matched();
+                affected += result.affected();
+                out.println("file=" + plans.get(i).input() + " matched=" + result.matched()
+                    + " affected=" + result.affected() + " output=" + result.outputName());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        out.println(options.label() + " files=" + plans.size() + " failed=" + failed
+            + " matched=" + matched + " affected=" + affected);
+        if (failed > 0) {
+            return EXIT_IO_ERROR;
+        }
+        return matched > 0 ? EXIT_OK : EXIT_NO_MATCH;
+    }
+
+    /**
+     * Resolves the input arguments into plans and where each is written.
+     *
+     * <p>A directory stands for every {@code .jmx} file below it and an argument containing
+     * glob characters for the files it matches. In batch mode {@code --output} is a directory
+     * that receives each plan under its path relative to the directory or glob base.
+     */
+    static List<PlanFile> resolvePlans(Options options) throws IOException {
+        Map<Path, PlanFile> plansByOutput = new LinkedHashMap<>();
+        for (String argument : options.inputs) {
+            for (Path[] found : expand(argument)) {
+                Path input = found[0];
+                Path output = null;
+                if (options.inPlace) {
+                    output = input;
+                } else if (options.output != null) {
+                    output = options.batch ? options.output.toPath().resolve(found[1]) : options.output.toPath();
+                }
+                Path key = output != null ? output.toAbsolutePath().normalize() : input.toAbsolutePath().normalize();
+                PlanFile previous = plansByOutput.putIfAbsent(key, new PlanFile(input, output));
+                if (previous != null && !isSameFile(previous.input(), input)) {
+                    throw new IllegalArgumentException(previous.input() + " and " + input + " would both be written to "
+                        + output);
+                }
+            }
+        }
+        if (plansByOutput.isEmpty()) {
+            throw new IllegalArgumentException("no .jmx files found in " + String.join(" ", options.inputs));
+        }
+        return new ArrayList<>(plansByOutput.values());
+    }
+
+    /**
+     * Expands one input argument into (file, path relative to its base) pairs, sorted.
+     */
+    private static List<Path[]> expand(String argument) throws IOException {
+        int firstGlob = indexOfGlob(argument);
+        Path base;
+        PathMatcher matcher;
+        if (firstGlob >= 0) {
+            int separator = Math.max(argument.lastIndexOf('/', firstGlob), argument.lastIndexOf(File.separatorChar, firstGlob));
+            base = Path.of(separator < 0 ? "." : separator == 0 ? "/" : argument.substring(0, separator));
+            matcher = FileSystems.getDefault().getPathMatcher("glob:" + argument.substring(separator + 1));
+        } else {
+            Path path = Path.of(argument);
+            if (!Files.isDirectory(path)) {
+                // A single file; a missing one is reported when it is loaded
+                List<Path[]> single = new ArrayList<>();
+                single.add(new Path[] {path, path.getFileName()});
+                return single;
+            }
+            base = path;
+            matcher = relative -> relative.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".jmx");
+        }
+        if (!Files.isDirectory(base)) {
+            throw new IllegalArgumentException("not a directory: " + base);
+        }
+        List<Path[]> files = new ArrayList<>();
+        try (Stream<Path> paths = Files.walk(base)) {
+            paths.filter(Files::isRegularFile)
+                .sorted()
+                .forEach(file -> {
+                    Path relative = base.relativize(file);
+                    if (matcher.matches(relative)) {
+                        files.add(new Path[] {file, relative});
+                    }
+                });
+        }
+        return files;
+    }
+
+    private static boolean isSameFile(Path a, Path b) {
+        return a.toAbsolutePath().normalize().equals(b.toAbsolutePath().normalize());
+    }
+
+    private static int indexOfGlob(String argument) {
+        for (int i = 0; i < argument.length(); i++) {
+            if ("*?[{".indexOf(argument.charAt(i)) >= 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * One input plan and the file it is written to (null for a dry run).
+     */
+    record PlanFile(Path input, Path output) {
+    }
+
+    /**
+     * The outcome of editing one plan.
+     *
+     * @param output The file written, or null if nothing was written
+     * @param matched The number of matching samplers or header rows
+     * @param affected The number of samplers or header rows changed
+     * @param listing The matches to print, when listing was requested
+     * @param error Why the plan could not be edited, or null
+     */
+    record PlanResult(Path output, int matched, int affected, List<String> listing, String error) {
+
+        static PlanResult failed(PlanFile plan, String error) {
+            return new PlanResult(null, 0, 0, List.of(), error);
+        }
+
+        String outputName() {
+            return output != null ? output.toString() : "-";
+        }
+    }
+
+    /**
+     * The compiled edit applied to each plan. Holds no per-plan state, so one instance
+     * is shared by all workers and the patterns are compiled only once.
+     */
+    static final class Edit {
+        private final RuleSet rules;
+        private final boolean list;
+        private final boolean streaming;
+
+        Edit(RuleSet rules, boolean list, boolean streaming) {
+            this.rules = rules;
+            this.list = list;
+            this.streaming = streaming;
+        }
+
+        /**
+         * Edits one plan, streaming it or through a tree model as configured.
+         * Failures are reported in the result rather than thrown.
+         */
+        PlanResult apply(PlanFile plan) {
+            return streaming ? applyStreaming(plan) : applyToTree(plan);
+        }
+
+        private PlanResult applyToTree(PlanFile plan) {
+            JMeterTreeModel model;
+            try {
+                model = toTreeModel(SaveService.loadTree(plan.input().toFile()));
+            } catch (IOException | RuntimeException e) {
+                return PlanResult.failed(plan, "cannot load " + plan.input() + ": " + describe(e));
+            }
+
+            boolean apply = plan.output() != null;
+            List<String> listing = list ? new ArrayList<>() : List.of();
+            // One traversal decides every sampler and Header Manager
+            List<RuleSet.Change> changes = rules.evaluate((JMeterTreeNode) model.getRoot(), List.of());
+            int matched = 0;
+            for (RuleSet.Change change : changes) {
+                matched += change.size();
+                if (list) {
+                    listing.add(format(change));
+                }
+            }
+            int affected = apply ? BulkOperations.applyChanges(model, changes) : 0;
+
+            if (apply) {
+                try {
+                    HashTree tree = toHashTree(model);
+                    save(plan.output(), planOut -> SaveService.saveTree(tree, planOut));
+                } catch (IOException | RuntimeException e) {
+                    return new PlanResult(null, matched, 0, listing, "cannot save " + plan.output() + ": " + describe(e));
+                }
+            }
+            return new PlanResult(plan.output(), matched, affected, listing, null);
+        }
+
+        /**
+         * Formats a change the way the streaming rewriter lists it.
+         */
+        private static String format(RuleSet.Change change) {
+            String action = change.rule().getAction().getName();
+            TestElement element = change.node().getTestElement();
+            if (change.headerRows() != null) {
+                return action + ": " + element.getName() + ": " + change.headerRows().length + " header(s)";
+            }
+            return action + ": " + element.getName() + " → " + SamplerIndex.extractUri(element);
+        }
+
+        private PlanResult applyStreaming(PlanFile plan) {
+            boolean apply = plan.output() != null;
+            List<String> listing = list ? new ArrayList<>() : List.of();
+            StreamingJmxRewriter rewriter = new StreamingJmxRewriter(rules, apply, list ? listing::add : null);
+            StreamingJmxRewriter.Counts[] counts = new StreamingJmxRewriter.Counts[1];
+            // The input is opened inside the writer so it is closed before an in-place move
+            PlanWriter writer = planOut -> {
+                try (InputStream in = new BufferedInputStream(Files.newInputStream(plan.input()))) {
+                    counts[0] = rewriter.rewrite(in, planOut);
+                } catch (XMLStreamException e) {
+                    throw new IOException("not a valid plan: " + e.getMessage(), e);
+                }
+            };
+            try {
+                if (apply) {
+                    save(plan.output(), writer);
+                } else {
+                    writer.writeTo(OutputStream.nullOutputStream());
+                }
+            } catch (IOException | RuntimeException e) {
+                return PlanResult.failed(plan, "cannot rewrite " + plan.input() + ": " + describe(e));
+            }
+            return new PlanResult(plan.output(), counts[0].matched(), counts[0].affected(), listing, null);
+        }
+    }
+
+    /**
+     * Loads JMeter's properties so {@link SaveService} and the test elements can be used.
+     */
+    private static void initJMeter(File jmeterHome) throws IOException {
+        File properties = new File(jmeterHome, "bin/jmeter.properties");
+        if (!properties.isFile()) {
+            throw new IOException("not a JMeter installation (missing " + properties + ")");
+        }
+        JMeterUtils.setJMeterHome(jmeterHome.getPath());
+        JMeterUtils.loadJMeterProperties(properties.getPath());
+        JMeterUtils.initLocale();
+    }
+
+    /**
+     * Mirrors a loaded plan into a tree model. Nodes are linked directly: no GUI components
+     * are created and no tree events are fired.
+     *
+     * @param tree The plan as loaded by {@link SaveService#loadTree(File)}
+     * @return The tree model; the first top-level element (the test plan) is the root's first child
+     */
+    static JMeterTreeModel toTreeModel(HashTree tree) {
+        Object[] topLevel = tree.getArray();
+        if (topLevel.length == 0 || !(topLevel[0] instanceof TestElement testPlan)) {
+            throw new IllegalArgumentException("the file does not contain a test plan");
+        }
+        JMeterTreeModel model = new JMeterTreeModel(testPlan);
+        JMeterTreeNode root = (JMeterTreeNode) model.getRoot();
+        addChildren(model, (JMeterTreeNode) root.getChildAt(0), tree.getTree(testPlan));
+        // Anything else at the top level (e.g. a WorkBench in old plans) is kept alongside
+        for (int i = 1; i < topLevel.length; i++) {
+            JMeterTreeNode node = new JMeterTreeNode((TestElement) topLevel[i], model);
+            root.add(node);
+            addChildren(model, node, tree.getTree(topLevel[i]));
+        }
+        return model;
+    }
+
+    private static void addChildren(JMeterTreeModel model, JMeterTreeNode parent, HashTree subTree) {
+        for (Object child : subTree.list()) {
+            JMeterTreeNode node = new JMeterTreeNode((TestElement) child, model);
+            parent.add(node);
+            addChildren(model, node, subTree.getTree(child));
+        }
+    }
+
+    /**
+     * Converts the tree model back into a plan tree keyed by test elements, as JMeter saves it.
+     * ({@link JMeterTreeModel#getCurrentSubTree} keys the tree by GUI nodes instead.)
+     *
+     * @param model The tree model
+     * @return The plan tree to save
+     */
+    static HashTree toHashTree(JMeterTreeModel model) {
+        ListedHashTree tree = new ListedHashTree();
+        JMeterTreeNode root = (JMeterTreeNode) model.getRoot();
+        for (int i = 0; i < root.getChildCount(); i++) {
+            addSubTree(tree, (JMeterTreeNode) root.getChildAt(i));
+        }
+        return tree;
+    }
+
+    private static void addSubTree(HashTree parentTree, JMeterTreeNode node) {
+        HashTree subTree = parentTree.add(node.getTestElement());
+        for (int i = 0; i < node.getChildCount(); i++) {
+            addSubTree(subTree, (JMeterTreeNode) node.getChildAt(i));
+        }
+    }
+
+    /**
+     * Saves through a temporary file in the target directory, then moves it into place,
+     * so a failed save never leaves a truncated plan behind.
+     */
+    private static void save(Path target, PlanWriter writer) throws IOException {
+        Path absolute = target.toAbsolutePath();
+        Files.createDirectories(absolute.getParent());
+        Path temp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+                writer.writeTo(out);
+            }
+            keepPermissions(temp, absolute);
+            try {
+                Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Gives the temporary file the permissions of the file it replaces, or the usual
+     * rw-r--r-- for a new file, instead of the owner-only permissions of a temporary file.
+     */
+    private static void keepPermissions(Path temp, Path target) throws IOException {
+        try {
+            Files.setPosixFilePermissions(temp, Files.exists(target)
+                ? Files.getPosixFilePermissions(target)
+                : PosixFilePermissions.fromString("rw-r--r--"));
+        } catch (UnsupportedOperationException e) {
+            // Not a POSIX file system; temporary files get the default permissions there
+        }
+    }
+
+    /**
+     * Writes a plan to a stream.
+     */
+    @FunctionalInterface
+    private interface PlanWriter {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    private static String describe(Throwable e) {
+        // XStream wraps the useful message, sometimes under an empty one
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            String message = cause.getMessage();
+            if (message != null && !message.isBlank()) {
+                return message.strip();
+            }
+        }
+        return e.getClass().getSimpleName();
+    }
+
+    /**
+     * Parsed command line.
+     */
+    static final class Options {
+        RuleSet.Action action;
+        File rulesFile;
+        String pattern;
+        List<String> inputs = new ArrayList<>();
+        File output;
+        File jmeterHome;
+        boolean inPlace;
+        boolean dryRun;
+        boolean streaming;
+        boolean regex;
+        boolean linearRegex = true;
+        boolean multiPattern;
+        boolean caseSensitive;
+        boolean invert;
+        boolean list;
+        boolean help;
+        /** More than one plan: several inputs, a directory or a glob */
+        boolean batch;
+        int jobs = Runtime.getRuntime().availableProcessors();
+
+        /**
+         * Names what is applied in summary lines.
+         */
+        String label() {
+            return rulesFile != null ? "rules=" + rulesFile : "action=" + action.getName();
+        }
+
+        static Options parse(String[] args) {
+            Options options = new Options();
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                switch (arg) {
+                    case "-a", "--action" -> options.action = RuleSet.Action.fromName(value(args, ++i, arg));
+                    case "-r", "--rules" -> options.rulesFile = new File(value(args, ++i, arg));
+                    case "-p", "--pattern" -> options.pattern = value(args, ++i, arg);
+                    case "-o", "--output" -> options.output = new File(value(args, ++i, arg));
+                    case "--jmeter-home" -> options.jmeterHome = new File(value(args, ++i, arg));
+                    case "--in-place" -> options.inPlace = true;
+                    case "--dry-run" -> options.dryRun = true;
+                    case "--streaming" -> options.streaming = true;
+                    case "-j", "--jobs" -> options.jobs = positive(value(args, ++i, arg), arg);
+                    case "--regex" -> options.regex = true;
+                    case "--backtracking-regex" -> {
+                        options.regex = true;
+                        options.linearRegex = false;
+                    }
+                    case "--multi" -> options.multiPattern = true;
+                    case "--case-sensitive" -> options.caseSensitive = true;
+                    case "--invert" -> options.invert = true;
+                    case "--list" -> options.list = true;
+                    case "-h", "--help" -> options.help = true;
+                    default -> {
+                        if (arg.startsWith("-")) {
+                            throw new IllegalArgumentException("unexpected argument: " + arg);
+                        }
+                        options.inputs.add(arg);
+                    }
+                }
+            }
+            if (options.help) {
+                return options;
+            }
+            options.validate();
+            return options;
+        }
+
+        private void validate() {
+            if (rulesFile != null) {
+                if (action != null || pattern != null || regex || multiPattern || caseSensitive || invert) {
+                    throw new IllegalArgumentException("--rules cannot be combined with --action, --pattern or match options");
+                }
+            } else {
+                if (action == null) {
+                    throw new IllegalArgumentException("--action or --rules is required");
+                }
+                if (pattern == null || pattern.trim().isEmpty()) {
+                    throw new IllegalArgumentException("--pattern is required");
+                }
+                pattern = pattern.trim();
+            }
+            if (inputs.isEmpty()) {
+                throw new IllegalArgumentException("no input plan given");
+            }
+            batch = inputs.size() > 1 || inputs.stream()
+                .anyMatch(input -> indexOfGlob(input) >= 0 || new File(input).isDirectory());
+            if (batch && output != null && output.isFile()) {
+                throw new IllegalArgumentException("--output must be a directory when editing several plans");
+            }
+            int targets = (output != null ? 1 : 0) + (inPlace ? 1 : 0) + (dryRun ? 1 : 0);
+            if (targets != 1) {
+                throw new IllegalArgumentException("exactly one of --output, --in-place or --dry-run is required");
+            }
+            if (regex && multiPattern) {
+                throw new IllegalArgumentException("--regex and --multi cannot be combined");
+            }
+            if (jmeterHome == null) {
+                String home = System.getenv("JMETER_HOME");
+                if (home == null || home.isEmpty()) {
+                    throw new IllegalArgumentException("--jmeter-home or JMETER_HOME is required");
+                }
+                jmeterHome = new File(home);
+            }
+        }
+
+        private static int positive(String value, String option) {
+            try {
+                int number = Integer.parseInt(value);
+                if (number > 0) {
+                    return number;
+                }
+            } catch (NumberFormatException e) {
+                // Reported below
+            }
+            throw new IllegalArgumentException(option + " requires a positive number: " + value);
+        }
+
+        private static String value(String[] args, int index, String option) {
+            if (index >= args.length) {
+                throw new IllegalArgumentException(option + " requires a value");
+            }
+            return args[index];
+        }
+    }
+}
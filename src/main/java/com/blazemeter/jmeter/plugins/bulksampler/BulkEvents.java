@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazemeter.jmeter.plugins.bulksampler;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder events for the plugin's operations, so a recording opened in JDK
+ * Mission Control attributes GUI stalls to the bulk operation that caused them.
+ *
+ * <p>Events are enabled by default in any recording (e.g. {@code -XX:StartFlightRecording}
+ * or {@code jcmd <pid> JFR.start}) and appear under <em>JMeter / Bulk Edit Manager</em>.
+ * Their duration is the event's own. Outside a recording, creating and committing an
+ * event costs next to nothing.
+ */
+public final class BulkEvents {
+
+    private static final String CATEGORY = "Bulk Edit Manager";
+
+    private BulkEvents() {
+    }
+
+    /**
+     * Returns the kind of a sampler pattern, as reported in events: the matcher kind,
+     * prefixed with the field for field-scoped patterns, e.g. {@code domain:literal}.
+     *
+     * @param pattern The compiled sampler pattern
+     * @return The pattern kind
+     */
+    static String patternKind(SamplerPattern pattern) {
+        if (pattern.getField() == null) {
+            return patternKind(pattern.getMatcher());
+        }
+        String kind = pattern.getMatcher() != null ? patternKind(pattern.getMatcher()) : "range";
+        return pattern.getField().getKey() + ":" + kind;
+    }
+
+    /**
+     * Returns the kind of pattern a matcher evaluates, as reported in events.
+     *
+     * @param matcher The compiled matcher
+     * @return {@code literal}, {@code multi}, {@code linear-regex} or {@code regex}
+     */
+    static String patternKind(TextMatcher matcher) {
+        if (matcher instanceof LiteralMatcher) {
+            return "literal";
+        }
+        if (matcher instanceof AhoCorasickMatcher) {
+            return "multi";
+        }
+        if (matcher instanceof LinearRegexMatcher) {
+            return "linear-regex";
+        }
+        return "regex";
+    }
+
+    /**
+     * One sampler query scan, run for a dialog preview or to find the samplers to apply to.
+     */
+    @Name("com.blazemeter.jmeter.plugins.bulksampler.SamplerScan")
+    @Label("Sampler Scan")
+    @Category({"JMeter", CATEGORY})
+    @Description("A sampler pattern evaluated over the indexed samplers")
+    public static final class SamplerScanEvent extends Event {
+        @Label("Pattern")
+        String pattern;
+
+        @Label("Pattern Kind")
+        @Description("literal, multi, linear-regex or regex")
+        String patternKind;
+
+        @Label("Inverted")
+        boolean inverted;
+
+        @Label("Samplers")
+        @Description("Samplers in the snapshot")
+        int samplers;
+
+        @Label("Candidates")
+        @Description("Samplers verified after prefiltering, or all samplers for a full scan")
+        int candidates;
+
+        @Label("Matches")
+        int matches;
+
+        @Label("Complete")
+        @Description("False if a newer preview aborted the scan")
+        boolean complete;
+    }
+
+    /**
+     * One batch of tree mutations applied on the event dispatch thread.
+     */
+    @Name("com.blazemeter.jmeter.plugins.bulksampler.ApplyBatch")
+    @Label("Apply Batch")
+    @Category({"JMeter", CATEGORY})
+    @Description("A batch of bulk changes applied to the test plan tree on the event dispatch thread")
+    public static final class ApplyBatchEvent extends Event {
+        @Label("Batch Items")
+        int items;
+
+        @Label("Affected")
+        @Description("Samplers or header rows the batch changed")
+        int affected;
+
+        @Label("Processed")
+        @Description("Items processed including this batch")
+        int processed;
+
+        @Label("Total")
+        @Description("Items matched for the whole apply")
+        int total;
+    }
+
+    /**
+     * Removal of header rows from one Header Manager.
+     */
+    @Name("com.blazemeter.jmeter.plugins.bulksampler.HeaderRewrite")
+    @Label("Header Rewrite")
+    @Category({"JMeter", CATEGORY})
+    @Description("Matching rows removed from one HTTP Header Manager")
+    public static final class HeaderRewriteEvent extends Event {
+        @Label("Header Manager")
+        String headerManager;
+
+        @Label("Rows")
+        @Description("Header rows before the rewrite")
+        int rows;
+
+        @Label("Removed Rows")
+        int removedRows;
+    }
+
+    /**
+     * A full rebuild of the sampler index or of the trigram prefilter index.
+     */
+    @Name("com.blazemeter.jmeter.plugins.bulksampler.IndexRebuild")
+    @Label("Index Rebuild")
+    @Category({"JMeter", CATEGORY})
+    @Description("The sampler index or trigram index rebuilt from scratch")
+    public static final class IndexRebuildEvent extends Event {
+        @Label("Index")
+        @Description("sampler or trigram")
+        String index;
+
+        @Label("Entries")
+        @Description("Samplers indexed")
+        int entries;
+    }
+}
@@ -0,0 +1,334 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazemeter.jmeter.plugins.bulksampler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.jmeter.gui.tree.JMeterTreeModel;
+import org.apache.jmeter.gui.tree.JMeterTreeNode;
+import org.apache.jmeter.protocol.http.control.Header;
+import org.apache.jmeter.protocol.http.control.HeaderManager;
+import org.apache.jmeter.testelement.TestElement;
+import org.apache.jmeter.testelement.TestPlan;
+import org.apache.jmeter.testelement.property.CollectionProperty;
+import org.apache.jmeter.testelement.property.JMeterProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The sampler and header mutations behind the bulk actions.
+ *
+ * <p>Operations work on a {@link JMeterTreeModel} and never touch {@code GuiPackage},
+ * so the GUI action, the command line tool and the benchmarks share one implementation.
+ */
+public final class BulkOperations {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkOperations.class);
+
+    private BulkOperations() {
+    }
+
+    // ==================== Sampler Operations ====================
+
+    /**
+     * Applies the action to one batch of matching samplers.
+     * While the tree is shown in the GUI, must be called on the event dispatch thread.
+     * 
+     * @param treeModel The test plan tree model
+     * @param batch The matching sampler nodes, in tree order
+     * @param actionType The action to perform (delete, disable, enable)
+     * @return The number of samplers affected
+     */
+    public static int applyToSamplers(JMeterTreeModel treeModel, List<JMeterTreeNode> batch,
+            BulkSamplerDialog.ActionType actionType) {
+
+        // Delete is batched per parent so the tree fires one removal event per parent
+        if (actionType == BulkSamplerDialog.ActionType.DELETE) {
+            return deleteSamplers(treeModel, batch);
+        }
+
+        // Process samplers based on action type
+        int affectedCount = 0;
+        for (JMeterTreeNode node : batch) {
+            boolean success = false;
+            switch (actionType) {
+                case DISABLE:
+                    success = setEnabled(node, false);
+                    break;
+                case ENABLE:
+                    success = setEnabled(node, true);
+                    break;
+                default:
+                    break;
+            }
+            if (success) {
+                affectedCount++;
+            }
+        }
+
+        return affectedCount;
+    }
+
+    /**
+     * Deletes sampler nodes from the test plan tree in batches.
+     * Nodes are grouped by parent and each parent's children are removed in a single pass,
+     * followed by one {@code nodesWereRemoved} event carrying all removed child indices.
+     * This avoids the per-node event (and JTree revalidation) of {@code removeNodeFromParent}.
+     * 
+     * @param treeModel The test plan tree model
+     * @param nodes The nodes to delete
+     * @return The number of nodes deleted
+     */
+    public static int deleteSamplers(JMeterTreeModel treeModel, List<JMeterTreeNode> nodes) {
+
+        // Group nodes by parent, keeping the tree order of parents
+        Map<JMeterTreeNode, List<JMeterTreeNode>> nodesByParent = new LinkedHashMap<>();
+        for (JMeterTreeNode node : nodes) {
+            JMeterTreeNode parent = (JMeterTreeNode) node.getParent();
+            // The test plan itself is never removed, matching JMeterTreeModel.removeNodeFromParent
+            if (parent == null || node.getUserObject() instanceof TestPlan) {
+                continue;
+            }
+            nodesByParent.computeIfAbsent(parent, p -> new ArrayList<>()).add(node);
+        }
+
+        int deletedCount = 0;
+        for (Map.Entry<JMeterTreeNode, List<JMeterTreeNode>> entry : nodesByParent.entrySet()) {
+            JMeterTreeNode parent = entry.getKey();
+            List<JMeterTreeNode> children = entry.getValue();
+            try {
+                int[] indices = new int[children.size()];
+                int count = 0;
+                for (JMeterTreeNode child : children) {
+                    int index = parent.getIndex(child);
+                    if (index >= 0) {
+                        indices[count++] = index;
+                    }
+                }
+                indices = Arrays.stream(indices, 0, count).sorted().distinct().toArray();
+
+                // Capture removed children in ascending index order, as nodesWereRemoved expects
+                Object[] removedChildren = new Object[indices.length];
+                for (int i = 0; i < indices.length; i++) {
+                    removedChildren[i] = parent.getChildAt(indices[i]);
+                }
+
+                // Remove from the highest index down so lower indices stay valid
+                for (int i = indices.length - 1; i >= 0; i--) {
+                    parent.remove(indices[i]);
+                }
+                treeModel.nodesWereRemoved(parent, indices, removedChildren);
+
+                deletedCount += indices.length;
+                log.debug("Deleted {} sampler(s) from {}", indices.length, parent.getName());
+            } catch (Exception e) {
+                log.error("Failed to delete samplers from: {}", parent.getName(), e);
+            }
+        }
+        return deletedCount;
+    }
+
+    /**
+     * Enables or disables a sampler.
+     * 
+     * @param node The sampler node to modify
+     * @param enabled Whether to enable (true) or disable (false) the sampler
+     * @return true if the operation was successful
+     */
+    public static boolean setEnabled(JMeterTreeNode node, boolean enabled) {
+        try {
+            TestElement element = node.getTestElement();
+            element.setEnabled(enabled);
+            log.debug("{} sampler: {}", enabled ? "Enabled" : "Disabled", node.getName());
+            return true;
+        } catch (Exception e) {
+            log.error("Failed to {} sampler: {}", enabled ? "enable" : "disable", node.getName(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Applies one batch of rule set changes: samplers are deleted, disabled or enabled as their
+     * deciding rule says, and Header Managers lose the decided rows.
+     * While the tree is shown in the GUI, must be called on the event dispatch thread.
+     *
+     * @param treeModel The test plan tree model
+     * @param batch The changes, in tree order
+     * @return The number of samplers and header rows affected
+     */
+    public static int applyChanges(JMeterTreeModel treeModel, List<RuleSet.Change> batch) {
+        List<JMeterTreeNode> deletions = new ArrayList<>();
+        int affectedCount = 0;
+        for (RuleSet.Change change : batch) {
+            JMeterTreeNode node = change.node();
+            if (change.headerRows() != null) {
+                affectedCount += removeHeaderRows((HeaderManager) node.getTestElement(), change.headerRows());
+                continue;
+            }
+            switch (change.rule().getAction()) {
+                case DELETE:
+                    deletions.add(node);
+                    break;
+                case DISABLE:
+                    affectedCount += setEnabled(node, false) ? 1 : 0;
+                    break;
+                case ENABLE:
+                    affectedCount += setEnabled(node, true) ? 1 : 0;
+                    break;
+                default:
+                    break;
+            }
+        }
+        // Deletions are collected so they are still batched per parent
+        return affectedCount + deleteSamplers(treeModel, deletions);
+    }
+
+    // ==================== HTTP Header Operations ====================
+
+    /**
+     * Finds the matching header rows of every HTTP Header Manager within scope.
+     * Only reads the tree, so it may run off the event dispatch thread while the plan is locked.
+     * 
+     * @param rootNode The test plan root node
+     * @param matcher The compiled header name matcher
+     * @param invertMatch Whether to invert the match (delete non-matching headers)
+     * @param scopeNodes The nodes to start processing from (empty for entire test plan)
+     * @return The header rows to remove, one entry per Header Manager with matches
+     */
+    public static List<HeaderRemoval> findHeaderRemovals(JMeterTreeNode rootNode, TextMatcher matcher,
+            boolean invertMatch, List<JMeterTreeNode> scopeNodes) {
+
+        List<HeaderRemoval> removals = new ArrayList<>();
+
+        // Process within scope
+        TreeWalker walker = new TreeWalker();
+        TreeWalker.Visitor visitor = node -> {
+            collectHeaderRemovals(node, matcher, invertMatch, removals);
+            return true;
+        };
+        // Overlapping scopes would list a Header Manager twice and remove shifted rows
+        List<JMeterTreeNode> scopeRoots = SamplerIndex.normalizeScope(scopeNodes);
+        if (scopeRoots.isEmpty()) {
+            walker.walk(rootNode, visitor);
+        } else {
+            for (JMeterTreeNode scopeNode : scopeRoots) {
+                walker.walk(scopeNode, visitor);
+            }
+        }
+
+        return removals;
+    }
+
+    /**
+     * Finds the matching headers of one node, if it is a Header Manager.
+     */
+    private static void collectHeaderRemovals(JMeterTreeNode node, TextMatcher matcher,
+            boolean invertMatch, List<HeaderRemoval> removals) {
+        
+        TestElement element = node.getTestElement();
+        
+        if (element instanceof HeaderManager headerManager) {
+            CollectionProperty headers = headerManager.getHeaders();
+            int[] indicesToRemove = new int[headers.size()];
+            int count = 0;
+            
+            // Find matching headers in ascending index order
+            for (int i = 0; i < headers.size(); i++) {
+                JMeterProperty prop = headers.get(i);
+                if (prop.getObjectValue() instanceof Header header) {
+                    String headerName = header.getName();
+                    boolean matches = matcher.find(headerName);
+                    if (invertMatch) {
+                        matches = !matches;
+                    }
+                    if (matches) {
+                        indicesToRemove[count++] = i;
+                    }
+                }
+            }
+            if (count > 0) {
+                removals.add(new HeaderRemoval(headerManager, Arrays.copyOf(indicesToRemove, count)));
+            }
+        }
+    }
+
+    /**
+     * Deletes one batch of matched header rows.
+     * While the tree is shown in the GUI, must be called on the event dispatch thread.
+     *
+     * @param batch The header rows to remove, per Header Manager
+     * @return The number of header rows deleted
+     */
+    public static int removeHeaders(List<HeaderRemoval> batch) {
+        int deletedCount = 0;
+        for (HeaderRemoval removal : batch) {
+            HeaderManager headerManager = removal.headerManager();
+            int removed = removeHeaderRows(headerManager, removal.indices());
+            deletedCount += removed;
+            log.debug("Deleted {} header(s) from {}", removed, headerManager.getName());
+        }
+        return deletedCount;
+    }
+
+    /**
+     * Removes header rows from a Header Manager in a single compacting pass.
+     * The kept rows are copied into a new collection which is installed with one property set,
+     * instead of shifting the backing list once per removed row.
+     *
+     * @param headerManager The Header Manager to edit
+     * @param indices The row indices to remove, in ascending order
+     * @return The number of rows removed
+     */
+    public static int removeHeaderRows(HeaderManager headerManager, int[] indices) {
+        BulkEvents.HeaderRewriteEvent event = new BulkEvents.HeaderRewriteEvent();
+        event.begin();
+        CollectionProperty headers = headerManager.getHeaders();
+        int size = headers.size();
+        List<JMeterProperty> kept = new ArrayList<>(Math.max(size - indices.length, 0));
+        int next = 0;
+        for (int i = 0; i < size; i++) {
+            if (next < indices.length && indices[next] == i) {
+                next++;
+            } else {
+                kept.add(headers.get(i));
+            }
+        }
+        int removed = size - kept.size();
+        if (removed > 0) {
+            headerManager.setProperty(new CollectionProperty(HeaderManager.HEADERS, kept));
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.headerManager = headerManager.getName();
+            event.rows = size;
+            event.removedRows = removed;
+            event.commit();
+        }
+        return removed;
+    }
+
+    /**
+     * Header rows of one Header Manager that matched, in ascending index order.
+     */
+    public record HeaderRemoval(HeaderManager headerManager, int[] indices) {
+    }
+}
@@ -19,19 +19,15 @@ package com.blazemeter.jmeter.plugins.bulksampler;
 
 import java.awt.event.ActionEvent;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Enumeration;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
 import javax.swing.JMenu;
 import javax.swing.JMenuItem;
 import javax.swing.JOptionPane;
 import javax.swing.MenuElement;
-import javax.swing.tree.TreeNode;
 import javax.swing.tree.TreePath;
 
 import org.apache.jmeter.gui.GuiPackage;
@@ -39,13 +35,6 @@ import org.apache.jmeter.gui.action.ActionRouter;
 import org.apache.jmeter.gui.action.Command;
 import org.apache.jmeter.gui.plugin.MenuCreator;
 import org.apache.jmeter.gui.tree.JMeterTreeNode;
-import org.apache.jmeter.protocol.http.control.Header;
-import org.apache.jmeter.protocol.http.control.HeaderManager;
-import org.apache.jmeter.protocol.http.sampler.HTTPSamplerBase;
-import org.apache.jmeter.samplers.Sampler;
-import org.apache.jmeter.testelement.TestElement;
-import org.apache.jmeter.testelement.property.CollectionProperty;
-import org.apache.jmeter.testelement.property.JMeterProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -137,10 +126,10 @@ public class BulkSamplerAction implements Command, MenuCreator {
         }
 
         // Check which operation mode is active
-        if (dialog.getOperationMode() == BulkSamplerDialog.OperationMode.SAMPLERS) {
-            handleSamplerOperation(guiPackage, dialog);
-        } else {
-            handleHeaderOperation(guiPackage, dialog);
+        switch (dialog.getOperationMode()) {
+            case SAMPLERS -> handleSamplerOperation(guiPackage, dialog);
+            case HTTP_HEADERS -> handleHeaderOperation(guiPackage, dialog);
+            case RULE_FILE -> handleRuleFileOperation(guiPackage, dialog);
         }
     }
 
@@ -148,12 +137,9 @@ public class BulkSamplerAction implements Command, MenuCreator {
      * Handles sampler operations (delete, disable, enable).
      */
     private void handleSamplerOperation(GuiPackage guiPackage, BulkSamplerDialog dialog) {
-        String uriPattern = dialog.getUriPattern();
+        SamplerQuery query = dialog.getSamplerQuery();
+        String uriPattern = query.getPattern();
         BulkSamplerDialog.ActionType actionType = dialog.getSelectedAction();
-        boolean useRegex = dialog.isUseRegex();
-        boolean caseSensitive = dialog.isCaseSensitive();
-        boolean invertMatch = dialog.isInvertMatch();
-        List<JMeterTreeNode> scopeNodes = dialog.getScopeNodes();
 
         if (uriPattern == null || uriPattern.trim().isEmpty()) {
             JOptionPane.showMessageDialog(
@@ -166,40 +152,79 @@ public class BulkSamplerAction implements Command, MenuCreator {
         }
 
         try {
-            int affectedCount = processTestPlan(guiPackage, uriPattern, actionType, useRegex, caseSensitive, invertMatch, scopeNodes);
-            
-            guiPackage.getMainFrame().repaint();
-            guiPackage.refreshCurrentGui();
-
-            String actionName = actionType.getDisplayName().toLowerCase();
-            JOptionPane.showMessageDialog(
-                guiPackage.getMainFrame(),
-                "Successfully %s %d sampler(s) matching pattern: %s".formatted(
-                    actionName, affectedCount, uriPattern),
-                "Bulk Edit Manager",
-                JOptionPane.INFORMATION_MESSAGE
-            );
-
-            log.info("Bulk sampler action completed: {} {} sampler(s) matching '{}'", 
-                actionName, affectedCount, uriPattern);
-
+            query.compilePattern();
         } catch (PatternSyntaxException ex) {
-            log.error("Invalid regex pattern: {}", uriPattern, ex);
+            log.error("Invalid pattern: {}", uriPattern, ex);
             JOptionPane.showMessageDialog(
                 guiPackage.getMainFrame(),
-                "Invalid regular expression: " + ex.getMessage(),
+                "Invalid pattern: " + ex.getMessage(),
                 "Pattern Error",
                 JOptionPane.ERROR_MESSAGE
             );
-        } catch (Exception ex) {
-            log.error("Error processing samplers", ex);
-            JOptionPane.showMessageDialog(
-                guiPackage.getMainFrame(),
-                "Error processing samplers: " + ex.getMessage(),
-                "Error",
-                JOptionPane.ERROR_MESSAGE
-            );
+            return;
         }
+
+        // The index must be read on the EDT; the snapshot is then scanned in the background.
+        // A preview of the same query over the unchanged tree already holds the matches.
+        PhaseTimings timings = new PhaseTimings();
+        SamplerIndex index = SamplerIndex.forModel(guiPackage.getTreeModel());
+        long treeVersion = index.getVersion();
+        SamplerQuery.Result preview = dialog.getSamplerPreview();
+        SamplerQuery.Result reusable = preview != null && preview.isReusableFor(query, treeVersion) ? preview : null;
+        PlanSnapshot snapshot = reusable == null ? index.planSnapshot(timings) : null;
+
+        String actionName = actionType.getDisplayName().toLowerCase();
+        BulkApplyWorker<JMeterTreeNode> worker = new BulkApplyWorker<>(
+            guiPackage.getMainFrame(),
+            "Bulk Edit Manager",
+            () -> {
+                SamplerQuery.Result result = reusable;
+                if (result == null) {
+                    result = query.run(snapshot, null, null, timings);
+                    log.debug("Found {} samplers matching {}", result.size(), query);
+                } else {
+                    log.debug("Reusing {} preview of {} samplers matching {}", result.getSource(), result.size(),
+                        query);
+                }
+                return result.getNodes();
+            },
+            batch -> BulkOperations.applyToSamplers(guiPackage.getTreeModel(), batch, actionType),
+            BulkApplyWorker.DEFAULT_BATCH_SIZE,
+            new BulkApplyWorker.Completion() {
+                @Override
+                public void finished(BulkApplyWorker.Result result) {
+                    refreshGui(guiPackage, timings);
+                    BulkStats.getInstance().recordApply(timings);
+                    String message = result.cancelled()
+                        ? "Cancelled: %s %d of %d matching sampler(s) before stopping.".formatted(
+                            actionName, result.affected(), result.total())
+                        : "Successfully %s %d sampler(s) matching pattern: %s".formatted(
+                            actionName, result.affected(), uriPattern);
+                    JOptionPane.showMessageDialog(
+                        guiPackage.getMainFrame(),
+                        message + "\n\nTimings: " + timings.summary(),
+                        "Bulk Edit Manager",
+                        JOptionPane.INFORMATION_MESSAGE
+                    );
+                    log.info("Bulk sampler action {}: {} {} sampler(s) matching '{}' ({})",
+                        result.cancelled() ? "cancelled" : "completed", actionName, result.affected(), uriPattern,
+                        timings.summary());
+                }
+
+                @Override
+                public void failed(Throwable error) {
+                    refreshGui(guiPackage, timings);
+                    log.error("Error processing samplers", error);
+                    JOptionPane.showMessageDialog(
+                        guiPackage.getMainFrame(),
+                        "Error processing samplers: " + error.getMessage(),
+                        "Error",
+                        JOptionPane.ERROR_MESSAGE
+                    );
+                }
+            },
+            timings);
+        worker.start();
     }
 
     /**
@@ -222,23 +247,9 @@ public class BulkSamplerAction implements Command, MenuCreator {
             return;
         }
 
+        TextMatcher matcher;
         try {
-            int affectedCount = processHeaderManagers(guiPackage, headerPattern, useRegex, caseSensitive, invertMatch, scopeNodes);
-            
-            guiPackage.getMainFrame().repaint();
-            guiPackage.refreshCurrentGui();
-
-            JOptionPane.showMessageDialog(
-                guiPackage.getMainFrame(),
-                "Successfully deleted %d header row(s) matching pattern: %s".formatted(
-                    affectedCount, headerPattern),
-                "Bulk Edit Manager",
-                JOptionPane.INFORMATION_MESSAGE
-            );
-
-            log.info("Bulk header action completed: deleted {} header(s) matching '{}'", 
-                affectedCount, headerPattern);
-
+            matcher = TextMatcher.compile(headerPattern, useRegex, false, caseSensitive, false);
         } catch (PatternSyntaxException ex) {
             log.error("Invalid regex pattern: {}", headerPattern, ex);
             JOptionPane.showMessageDialog(
@@ -247,15 +258,127 @@ public class BulkSamplerAction implements Command, MenuCreator {
                 "Pattern Error",
                 JOptionPane.ERROR_MESSAGE
             );
-        } catch (Exception ex) {
-            log.error("Error processing headers", ex);
-            JOptionPane.showMessageDialog(
-                guiPackage.getMainFrame(),
-                "Error processing headers: " + ex.getMessage(),
-                "Error",
-                JOptionPane.ERROR_MESSAGE
-            );
+            return;
         }
+
+        PhaseTimings timings = new PhaseTimings();
+        JMeterTreeNode rootNode = (JMeterTreeNode) guiPackage.getTreeModel().getRoot();
+        BulkApplyWorker<BulkOperations.HeaderRemoval> worker = new BulkApplyWorker<>(
+            guiPackage.getMainFrame(),
+            "Bulk Edit Manager",
+            () -> {
+                PhaseTimings.Mark start = PhaseTimings.mark();
+                List<BulkOperations.HeaderRemoval> removals =
+                    BulkOperations.findHeaderRemovals(rootNode, matcher, invertMatch, scopeNodes);
+                timings.add(PhaseTimings.Phase.TRAVERSAL, start);
+                return removals;
+            },
+            BulkOperations::removeHeaders,
+            BulkApplyWorker.DEFAULT_BATCH_SIZE,
+            new BulkApplyWorker.Completion() {
+                @Override
+                public void finished(BulkApplyWorker.Result result) {
+                    refreshGui(guiPackage, timings);
+                    BulkStats.getInstance().recordApply(timings);
+                    String message = result.cancelled()
+                        ? "Cancelled: deleted %d header row(s) from %d of %d Header Manager(s) before stopping."
+                            .formatted(result.affected(), result.processed(), result.total())
+                        : "Successfully deleted %d header row(s) matching pattern: %s".formatted(
+                            result.affected(), headerPattern);
+                    JOptionPane.showMessageDialog(
+                        guiPackage.getMainFrame(),
+                        message + "\n\nTimings: " + timings.summary(),
+                        "Bulk Edit Manager",
+                        JOptionPane.INFORMATION_MESSAGE
+                    );
+                    log.info("Bulk header action {}: deleted {} header(s) matching '{}' ({})",
+                        result.cancelled() ? "cancelled" : "completed", result.affected(), headerPattern,
+                        timings.summary());
+                }
+
+                @Override
+                public void failed(Throwable error) {
+                    refreshGui(guiPackage, timings);
+                    log.error("Error processing headers", error);
+                    JOptionPane.showMessageDialog(
+                        guiPackage.getMainFrame(),
+                        "Error processing headers: " + error.getMessage(),
+                        "Error",
+                        JOptionPane.ERROR_MESSAGE
+                    );
+                }
+            },
+            timings);
+        worker.start();
+    }
+
+    /**
+     * Handles a rule file: every rule is decided in one traversal, then the changes are applied.
+     */
+    private void handleRuleFileOperation(GuiPackage guiPackage, BulkSamplerDialog dialog) {
+        RuleSet ruleSet = dialog.getRuleSet();
+        String ruleFileName = dialog.getRuleFile().getName();
+        List<JMeterTreeNode> scopeNodes = dialog.getScopeNodes();
+
+        PhaseTimings timings = new PhaseTimings();
+        JMeterTreeNode rootNode = (JMeterTreeNode) guiPackage.getTreeModel().getRoot();
+        BulkApplyWorker<RuleSet.Change> worker = new BulkApplyWorker<>(
+            guiPackage.getMainFrame(),
+            "Bulk Edit Manager",
+            () -> {
+                PhaseTimings.Mark start = PhaseTimings.mark();
+                List<RuleSet.Change> changes = ruleSet.evaluate(rootNode, scopeNodes);
+                timings.add(PhaseTimings.Phase.TRAVERSAL, start);
+                log.debug("Rules from {} decided {} change(s)", ruleFileName, changes.size());
+                return changes;
+            },
+            batch -> BulkOperations.applyChanges(guiPackage.getTreeModel(), batch),
+            BulkApplyWorker.DEFAULT_BATCH_SIZE,
+            new BulkApplyWorker.Completion() {
+                @Override
+                public void finished(BulkApplyWorker.Result result) {
+                    refreshGui(guiPackage, timings);
+                    BulkStats.getInstance().recordApply(timings);
+                    String message = result.cancelled()
+                        ? "Cancelled: applied %d of %d change(s) from %s before stopping.".formatted(
+                            result.processed(), result.total(), ruleFileName)
+                        : "Successfully applied %d rule(s) from %s: %d sampler(s) and header row(s) changed."
+                            .formatted(ruleSet.getRules().size(), ruleFileName, result.affected());
+                    JOptionPane.showMessageDialog(
+                        guiPackage.getMainFrame(),
+                        message + "\n\nTimings: " + timings.summary(),
+                        "Bulk Edit Manager",
+                        JOptionPane.INFORMATION_MESSAGE
+                    );
+                    log.info("Bulk rule file {} {}: {} sampler(s) and header row(s) changed ({})",
+                        ruleFileName, result.cancelled() ? "cancelled" : "completed", result.affected(),
+                        timings.summary());
+                }
+
+                @Override
+                public void failed(Throwable error) {
+                    refreshGui(guiPackage, timings);
+                    log.error("Error applying rule file {}", ruleFileName, error);
+                    JOptionPane.showMessageDialog(
+                        guiPackage.getMainFrame(),
+                        "Error applying rule file: " + error.getMessage(),
+                        "Error",
+                        JOptionPane.ERROR_MESSAGE
+                    );
+                }
+            },
+            timings);
+        worker.start();
+    }
+
+    /**
+     * Repaints the main frame and refreshes the current element's GUI, once per apply.
+     */
+    private static void refreshGui(GuiPackage guiPackage, PhaseTimings timings) {
+        PhaseTimings.Mark start = PhaseTimings.mark();
+        guiPackage.getMainFrame().repaint();
+        guiPackage.refreshCurrentGui();
+        timings.add(PhaseTimings.Phase.REFRESH, start);
     }
 
     // ==================== MenuCreator Interface ====================
@@ -309,311 +432,4 @@ public class BulkSamplerAction implements Command, MenuCreator {
     public void localeChanged() {
         // Nothing to do - menu text is static
     }
-
-    // ==================== Private Helper Methods ====================
-
-    /**
-     * Processes the test plan to find and modify samplers matching the pattern.
-     * 
-     * @param guiPackage The JMeter GUI package
-     * @param uriPattern The pattern to match against sampler URIs
-     * @param actionType The action to perform (delete, disable, enable)
-     * @param useRegex Whether to treat the pattern as a regular expression
-     * @param caseSensitive Whether matching should be case-sensitive
-     * @param invertMatch Whether to invert the match (select non-matching samplers)
-     * @param scopeNodes The nodes to start processing from (empty for entire test plan)
-     * @return The number of samplers affected
-     * @throws PatternSyntaxException if the regex pattern is invalid
-     */
-    private int processTestPlan(GuiPackage guiPackage, String uriPattern, 
-            BulkSamplerDialog.ActionType actionType, boolean useRegex, boolean caseSensitive,
-            boolean invertMatch, List<JMeterTreeNode> scopeNodes) {
-        
-        JMeterTreeNode rootNode = (JMeterTreeNode) guiPackage.getTreeModel().getRoot();
-        List<JMeterTreeNode> matchingSamplers = new ArrayList<>();
-        
-        // Compile pattern
-        Pattern pattern = null;
-        if (useRegex) {
-            int flags = caseSensitive ? 0 : Pattern.CASE_INSENSITIVE;
-            pattern = Pattern.compile(uriPattern, flags);
-        }
-
-        // Find all matching samplers within scope
-        if (scopeNodes == null || scopeNodes.isEmpty()) {
-            findMatchingSamplers(rootNode, uriPattern, pattern, caseSensitive, invertMatch, matchingSamplers);
-        } else {
-            for (JMeterTreeNode scopeNode : scopeNodes) {
-                findMatchingSamplers(scopeNode, uriPattern, pattern, caseSensitive, invertMatch, matchingSamplers);
-            }
-        }
-
-        log.debug("Found {} samplers matching pattern '{}'", matchingSamplers.size(), uriPattern);
-
-        // Process samplers based on action type
-        int affectedCount = 0;
-        
-        // For delete action, we need to process in reverse order to avoid index issues
-        if (actionType == BulkSamplerDialog.ActionType.DELETE) {
-            Collections.reverse(matchingSamplers);
-        }
-
-        for (JMeterTreeNode node : matchingSamplers) {
-            boolean success = false;
-            switch (actionType) {
-                case DELETE:
-                    success = deleteSampler(guiPackage, node);
-                    break;
-                case DISABLE:
-                    success = setEnabled(node, false);
-                    break;
-                case ENABLE:
-                    success = setEnabled(node, true);
-                    break;
-            }
-            if (success) {
-                affectedCount++;
-            }
-        }
-
-        return affectedCount;
-    }
-
-    /**
-     * Recursively finds all samplers matching the given URI pattern.
-     * 
-     * @param node The current node to examine
-     * @param uriPattern The pattern string (for simple matching)
-     * @param pattern The compiled regex pattern (null for simple matching)
-     * @param caseSensitive Whether matching should be case-sensitive
-     * @param invertMatch Whether to invert the match (select non-matching samplers)
-     * @param matchingSamplers List to add matching sampler nodes to
-     */
-    private void findMatchingSamplers(JMeterTreeNode node, String uriPattern, 
-            Pattern pattern, boolean caseSensitive, boolean invertMatch,
-            List<JMeterTreeNode> matchingSamplers) {
-        
-        TestElement element = node.getTestElement();
-        
-        // Check if this is a sampler
-        if (element instanceof Sampler) {
-            String uri = extractUri(element);
-            if (uri != null) {
-                boolean matches = matchesPattern(uri, uriPattern, pattern, caseSensitive);
-                // Invert the match result if invertMatch is enabled
-                if (invertMatch) {
-                    matches = !matches;
-                }
-                if (matches) {
-                    matchingSamplers.add(node);
-                    log.debug("Found matching sampler: {} with URI: {}", element.getName(), uri);
-                }
-            }
-        }
-
-        // Recursively process children
-        Enumeration<TreeNode> children = node.children();
-        while (children.hasMoreElements()) {
-            JMeterTreeNode child = (JMeterTreeNode) children.nextElement();
-            findMatchingSamplers(child, uriPattern, pattern, caseSensitive, invertMatch, matchingSamplers);
-        }
-    }
-
-    /**
-     * Extracts the URI from a test element (sampler).
-     * For HTTP samplers, builds full URL from protocol/domain/port/path.
-     * Also includes the sampler name in the searchable text.
-     * 
-     * @param element The test element to extract URI from
-     * @return The extracted URI or element name
-     */
-    private String extractUri(TestElement element) {
-        StringBuilder searchableText = new StringBuilder();
-        
-        // Always include the element name (it might contain the URL)
-        String name = element.getName();
-        if (name != null) {
-            searchableText.append(name);
-        }
-        
-        if (element instanceof HTTPSamplerBase httpSampler) {
-            String path = httpSampler.getPath();
-            String domain = httpSampler.getDomain();
-            
-            // Build full URI if we have domain info
-            if (domain != null && !domain.isEmpty()) {
-                String protocol = httpSampler.getProtocol();
-                if (protocol == null || protocol.isEmpty()) {
-                    protocol = "http";
-                }
-                int port = httpSampler.getPort();
-                StringBuilder uri = new StringBuilder();
-                uri.append(protocol).append("://").append(domain);
-                if (port > 0 && port != 80 && port != 443) {
-                    uri.append(":").append(port);
-                }
-                if (path != null && !path.isEmpty()) {
-                    if (!path.startsWith("/")) {
-                        uri.append("/");
-                    }
-                    uri.append(path);
-                }
-                // Append constructed URI if different from name
-                String constructedUri = uri.toString();
-                if (!constructedUri.equals(name)) {
-                    searchableText.append(" ").append(constructedUri);
-                }
-            } else if (path != null && !path.isEmpty() && !path.equals(name)) {
-                // Just append path if no domain but path exists
-                searchableText.append(" ").append(path);
-            }
-        }
-        
-        return searchableText.toString();
-    }
-
-    /**
-     * Checks if a URI matches the given pattern.
-     * 
-     * @param uri The URI to check
-     * @param uriPattern The pattern string (for simple matching)
-     * @param pattern The compiled regex pattern (null for simple matching)
-     * @param caseSensitive Whether matching should be case-sensitive
-     * @return true if the URI matches the pattern
-     */
-    private boolean matchesPattern(String uri, String uriPattern, Pattern pattern, boolean caseSensitive) {
-        if (uri == null) {
-            return false;
-        }
-        
-        if (pattern != null) {
-            // Regex matching
-            return pattern.matcher(uri).find();
-        } else {
-            // Simple contains matching
-            if (caseSensitive) {
-                return uri.contains(uriPattern);
-            } else {
-                return uri.toLowerCase().contains(uriPattern.toLowerCase());
-            }
-        }
-    }
-
-    /**
-     * Deletes a sampler node from the test plan tree.
-     * 
-     * @param guiPackage The JMeter GUI package
-     * @param node The node to delete
-     * @return true if deletion was successful
-     */
-    private boolean deleteSampler(GuiPackage guiPackage, JMeterTreeNode node) {
-        try {
-            guiPackage.getTreeModel().removeNodeFromParent(node);
-            log.debug("Deleted sampler: {}", node.getName());
-            return true;
-        } catch (Exception e) {
-            log.error("Failed to delete sampler: {}", node.getName(), e);
-            return false;
-        }
-    }
-
-    /**
-     * Enables or disables a sampler.
-     * 
-     * @param node The sampler node to modify
-     * @param enabled Whether to enable (true) or disable (false) the sampler
-     * @return true if the operation was successful
-     */
-    private boolean setEnabled(JMeterTreeNode node, boolean enabled) {
-        try {
-            TestElement element = node.getTestElement();
-            element.setEnabled(enabled);
-            log.debug("{} sampler: {}", enabled ? "Enabled" : "Disabled", node.getName());
-            return true;
-        } catch (Exception e) {
-            log.error("Failed to {} sampler: {}", enabled ? "enable" : "disable", node.getName(), e);
-            return false;
-        }
-    }
-
-    // ==================== HTTP Header Processing Methods ====================
-
-    /**
-     * Processes all HTTP Header Managers to delete matching header rows.
-     * 
-     * @param guiPackage The JMeter GUI package
-     * @param headerPattern The pattern to match against header names
-     * @param useRegex Whether to treat the pattern as a regular expression
-     * @param caseSensitive Whether matching should be case-sensitive
-     * @param invertMatch Whether to invert the match (delete non-matching headers)
-     * @param scopeNodes The nodes to start processing from (empty for entire test plan)
-     * @return The number of header rows deleted
-     */
-    private int processHeaderManagers(GuiPackage guiPackage, String headerPattern, 
-            boolean useRegex, boolean caseSensitive, boolean invertMatch, List<JMeterTreeNode> scopeNodes) {
-        
-        JMeterTreeNode rootNode = (JMeterTreeNode) guiPackage.getTreeModel().getRoot();
-        
-        Pattern pattern = null;
-        if (useRegex) {
-            int flags = caseSensitive ? 0 : Pattern.CASE_INSENSITIVE;
-            pattern = Pattern.compile(headerPattern, flags);
-        }
-
-        int[] deletedCount = {0};
-        
-        // Process within scope
-        if (scopeNodes == null || scopeNodes.isEmpty()) {
-            deleteMatchingHeaders(rootNode, headerPattern, pattern, caseSensitive, invertMatch, deletedCount);
-        } else {
-            for (JMeterTreeNode scopeNode : scopeNodes) {
-                deleteMatchingHeaders(scopeNode, headerPattern, pattern, caseSensitive, invertMatch, deletedCount);
-            }
-        }
-        
-        return deletedCount[0];
-    }
-
-    /**
-     * Recursively finds and deletes matching headers from Header Managers.
-     */
-    private void deleteMatchingHeaders(JMeterTreeNode node, String headerPattern, 
-            Pattern pattern, boolean caseSensitive, boolean invertMatch, int[] deletedCount) {
-        
-        TestElement element = node.getTestElement();
-        
-        if (element instanceof HeaderManager headerManager) {
-            CollectionProperty headers = headerManager.getHeaders();
-            List<Integer> indicesToRemove = new ArrayList<>();
-            
-            // Find matching headers (iterate in reverse to safely remove)
-            for (int i = headers.size() - 1; i >= 0; i--) {
-                JMeterProperty prop = headers.get(i);
-                if (prop.getObjectValue() instanceof Header header) {
-                    String headerName = header.getName();
-                    boolean matches = matchesPattern(headerName, headerPattern, pattern, caseSensitive);
-                    if (invertMatch) {
-                        matches = !matches;
-                    }
-                    if (matches) {
-                        indicesToRemove.add(i);
-                    }
-                }
-            }
-            
-            // Remove matching headers
-            for (int index : indicesToRemove) {
-                headers.remove(index);
-                deletedCount[0]++;
-                log.debug("Deleted header at index {} from {}", index, headerManager.getName());
-            }
-        }
-
-        // Recursively process children
-        Enumeration<TreeNode> children = node.children();
-        while (children.hasMoreElements()) {
-            JMeterTreeNode child = (JMeterTreeNode) children.nextElement();
-            deleteMatchingHeaders(child, headerPattern, pattern, caseSensitive, invertMatch, deletedCount);
-        }
-    }
 }
@@ -27,22 +27,28 @@ import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.Insets;
 import java.awt.event.KeyEvent;
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Enumeration;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 import java.util.stream.Collectors;
 
 import javax.swing.BorderFactory;
 import javax.swing.Box;
-import javax.swing.DefaultListModel;
 import javax.swing.JButton;
 import javax.swing.JCheckBox;
 import javax.swing.JComboBox;
 import javax.swing.JComponent;
 import javax.swing.JDialog;
+import javax.swing.JFileChooser;
 import javax.swing.JLabel;
 import javax.swing.JList;
 import javax.swing.JOptionPane;
@@ -51,21 +57,22 @@ import javax.swing.JScrollPane;
 import javax.swing.JTabbedPane;
 import javax.swing.JTextField;
 import javax.swing.KeyStroke;
+import javax.swing.SwingWorker;
 import javax.swing.Timer;
 import javax.swing.border.TitledBorder;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
-import javax.swing.tree.TreeNode;
+import javax.swing.filechooser.FileNameExtensionFilter;
 
 import org.apache.jmeter.gui.GuiPackage;
 import org.apache.jmeter.gui.tree.JMeterTreeNode;
 import org.apache.jmeter.protocol.http.control.Header;
 import org.apache.jmeter.protocol.http.control.HeaderManager;
-import org.apache.jmeter.protocol.http.sampler.HTTPSamplerBase;
-import org.apache.jmeter.samplers.Sampler;
 import org.apache.jmeter.testelement.TestElement;
 import org.apache.jmeter.testelement.property.JMeterProperty;
 import org.apache.jmeter.testelement.property.CollectionProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Dialog for configuring bulk sampler and header operations.
@@ -73,6 +80,8 @@ import org.apache.jmeter.testelement.property.CollectionProperty;
  */
 public class BulkSamplerDialog extends JDialog {
 
+    private static final Logger log = LoggerFactory.getLogger(BulkSamplerDialog.class);
+
     /**
      * Enum representing the possible actions that can be performed on samplers.
      */
@@ -108,21 +117,25 @@ public class BulkSamplerDialog extends JDialog {
      */
     public enum OperationMode {
         SAMPLERS,
-        HTTP_HEADERS
+        HTTP_HEADERS,
+        RULE_FILE
     }
 
     // Sampler tab components
     private JTextField uriPatternField;
     private JComboBox<ActionType> actionComboBox;
     private JCheckBox useRegexCheckBox;
+    private JCheckBox linearRegexCheckBox;
+    private JCheckBox multiPatternCheckBox;
     private JCheckBox caseSensitiveCheckBox;
     private JCheckBox invertMatchCheckBox;
     private JList<String> previewList;
-    private DefaultListModel<String> previewListModel;
+    private PreviewListModel previewListModel;
     private JLabel matchCountLabel;
     private JLabel patternErrorLabel;
     private JLabel patternExampleLabel;
     private JLabel actionDescriptionLabel;
+    private JLabel regexEngineLabel;
 
     // HTTP Headers tab components
     private JTextField headerPatternField;
@@ -130,15 +143,33 @@ public class BulkSamplerDialog extends JDialog {
     private JCheckBox headerCaseSensitiveCheckBox;
     private JCheckBox headerInvertMatchCheckBox;
     private JList<String> headerPreviewList;
-    private DefaultListModel<String> headerPreviewListModel;
+    private PreviewListModel headerPreviewListModel;
     private JLabel headerMatchCountLabel;
     private JLabel headerPatternErrorLabel;
     private JLabel headerPatternExampleLabel;
 
     private JTabbedPane tabbedPane;
     private boolean confirmed = false;
+
+    // Set when the user applies a rule file instead of the tab's pattern
+    private RuleSet ruleSet;
+    private File ruleFile;
     private Timer updateTimer;
     private Timer headerUpdateTimer;
+
+    // Sampler preview runs on a background worker; each request bumps the generation
+    // so superseded scans abort mid-walk and never publish stale results
+    private final AtomicLong samplerPreviewGeneration = new AtomicLong();
+    private SwingWorker<SamplerPreview, Void> samplerPreviewWorker;
+
+    // Last fully computed preview, kept so a growing literal pattern can filter it
+    // and so Apply can reuse it while the tree is unchanged
+    private SamplerQuery.Result lastSamplerPreview;
+
+    // Plan captured when the dialog opens (the modal dialog blocks plan edits),
+    // and the trigram index built over its samplers in the background
+    private PlanSnapshot planSnapshot;
+    private volatile TrigramIndex trigramIndex;
     
     // Scope - the selected nodes to limit operations to (empty = entire test plan)
     private List<JMeterTreeNode> scopeNodes;
@@ -146,9 +177,14 @@ public class BulkSamplerDialog extends JDialog {
 
     private static final String EXAMPLE_SIMPLE = "Example: api/users or login (matches if URI contains text)";
     private static final String EXAMPLE_REGEX = "Example: .*\\/api\\/.*  or  ^https://.*\\.com  (regex pattern)";
+    private static final String EXAMPLE_MULTI = "Example: .png, .css, /analytics  (matches if URI contains any of the texts)";
     private static final String HEADER_EXAMPLE_SIMPLE = "Example: Authorization or Content-Type (matches header name)";
     private static final String HEADER_EXAMPLE_REGEX = "Example: X-.*  or  ^Accept.*  (regex pattern for header name)";
 
+    // Preview rows share one height; this sizes the lists until the first results arrive
+    private static final String EXAMPLE_PREVIEW_ROW = "Home Page → https://example.com/index.html";
+    private static final String DISABLED_SUFFIX = " [DISABLED]";
+
     /**
      * Creates a new BulkSamplerDialog.
      *
@@ -157,12 +193,58 @@ public class BulkSamplerDialog extends JDialog {
      */
     public BulkSamplerDialog(Frame parent, List<JMeterTreeNode> selectedNodes) {
         super(parent, "Bulk Edit Manager", true);
-        this.scopeNodes = selectedNodes != null ? new ArrayList<>(selectedNodes) : new ArrayList<>();
+        // Selecting a Thread Group and samplers inside it must not search them twice
+        this.scopeNodes = SamplerIndex.normalizeScope(selectedNodes);
         initComponents();
         pack();
         setMinimumSize(new Dimension(650, 580));
         setLocationRelativeTo(parent);
         setupEscapeKey();
+        startTrigramIndexBuild();
+    }
+
+    /**
+     * Captures the plan snapshot and builds its trigram index on a background thread.
+     * Previews requested before the index is ready fall back to a flat scan.
+     */
+    private void startTrigramIndexBuild() {
+        PlanSnapshot snapshot = getPlanSnapshot();
+        if (snapshot == null) {
+            return;
+        }
+        new SwingWorker<TrigramIndex, Void>() {
+            @Override
+            protected TrigramIndex doInBackground() {
+                return TrigramIndex.build(snapshot);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    trigramIndex = get();
+                    log.debug("Trigram index ready for {} samplers", snapshot.getSamplerCount());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    log.warn("Could not build trigram index, previews will scan all samplers", e.getCause());
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Returns the plan captured for this dialog, taking the snapshot on first use.
+     *
+     * @return The plan snapshot, or null if the test plan is not accessible
+     */
+    private PlanSnapshot getPlanSnapshot() {
+        if (planSnapshot == null) {
+            GuiPackage guiPackage = GuiPackage.getInstance();
+            if (guiPackage != null && guiPackage.getTreeModel() != null) {
+                planSnapshot = SamplerIndex.forModel(guiPackage.getTreeModel()).planSnapshot(null);
+            }
+        }
+        return planSnapshot;
     }
 
     /**
@@ -231,6 +313,8 @@ public class BulkSamplerDialog extends JDialog {
 
         // Button panel
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 10));
+        JButton ruleFileButton = new JButton("Apply Rule File...");
+        ruleFileButton.setToolTipText("Apply every rule of a rule file to the scope in one pass");
         JButton previewButton = new JButton("Refresh Preview");
         JButton okButton = new JButton("Apply");
         JButton cancelButton = new JButton("Cancel");
@@ -255,6 +339,9 @@ public class BulkSamplerDialog extends JDialog {
             dispose();
         });
 
+        ruleFileButton.addActionListener(e -> chooseRuleFile());
+
+        buttonPanel.add(ruleFileButton);
         buttonPanel.add(previewButton);
         buttonPanel.add(Box.createHorizontalStrut(20));
         buttonPanel.add(okButton);
@@ -297,7 +384,8 @@ public class BulkSamplerDialog extends JDialog {
         gbc.weightx = 1.0;
         gbc.gridwidth = 2;
         uriPatternField = new JTextField(30);
-        uriPatternField.setToolTipText("Enter a pattern to match sampler URIs");
+        uriPatternField.setToolTipText("Enter a pattern to match sampler URIs; prefix it with name:, protocol:,"
+            + " domain:, port:, path: or method: to match only that field (e.g. domain:example.com, port:8000-8999)");
         configPanel.add(uriPatternField, gbc);
 
         // Pattern example label
@@ -344,14 +432,30 @@ public class BulkSamplerDialog extends JDialog {
         gbc.gridwidth = 3;
         JPanel optionsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 0));
         useRegexCheckBox = new JCheckBox("Use Regular Expression");
+        linearRegexCheckBox = new JCheckBox("Linear-Time Engine", true);
+        linearRegexCheckBox.setToolTipText("Evaluate regex without backtracking; "
+            + "falls back to java.util.regex for unsupported constructs");
+        linearRegexCheckBox.setEnabled(false);
+        multiPatternCheckBox = new JCheckBox("Multiple Patterns");
+        multiPatternCheckBox.setToolTipText("Match samplers containing any of several comma-separated texts");
         caseSensitiveCheckBox = new JCheckBox("Case Sensitive");
         invertMatchCheckBox = new JCheckBox("Invert Match");
         invertMatchCheckBox.setToolTipText("Apply action to samplers that do NOT match the pattern");
         optionsPanel.add(useRegexCheckBox);
+        optionsPanel.add(linearRegexCheckBox);
+        optionsPanel.add(multiPatternCheckBox);
         optionsPanel.add(caseSensitiveCheckBox);
         optionsPanel.add(invertMatchCheckBox);
         configPanel.add(optionsPanel, gbc);
 
+        // Regex engine indicator
+        gbc.gridy = 6;
+        gbc.gridx = 1;
+        gbc.gridwidth = 2;
+        regexEngineLabel = new JLabel(" ");
+        regexEngineLabel.setFont(regexEngineLabel.getFont().deriveFont(Font.ITALIC, 11f));
+        configPanel.add(regexEngineLabel, gbc);
+
         panel.add(configPanel, BorderLayout.NORTH);
 
         // Preview panel
@@ -360,9 +464,10 @@ public class BulkSamplerDialog extends JDialog {
             BorderFactory.createEtchedBorder(), "Matching Samplers Preview",
             TitledBorder.LEFT, TitledBorder.TOP));
 
-        previewListModel = new DefaultListModel<>();
+        previewListModel = new PreviewListModel();
         previewList = new JList<>(previewListModel);
         previewList.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        previewList.setPrototypeCellValue(EXAMPLE_PREVIEW_ROW);
         previewList.setVisibleRowCount(8);
         JScrollPane scrollPane = new JScrollPane(previewList);
         scrollPane.setPreferredSize(new Dimension(550, 180));
@@ -455,9 +560,10 @@ public class BulkSamplerDialog extends JDialog {
             BorderFactory.createEtchedBorder(), "Matching Headers Preview",
             TitledBorder.LEFT, TitledBorder.TOP));
 
-        headerPreviewListModel = new DefaultListModel<>();
+        headerPreviewListModel = new PreviewListModel();
         headerPreviewList = new JList<>(headerPreviewListModel);
         headerPreviewList.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        headerPreviewList.setPrototypeCellValue(EXAMPLE_PREVIEW_ROW);
         headerPreviewList.setVisibleRowCount(8);
         JScrollPane scrollPane = new JScrollPane(headerPreviewList);
         scrollPane.setPreferredSize(new Dimension(550, 180));
@@ -489,9 +595,23 @@ public class BulkSamplerDialog extends JDialog {
         });
 
         useRegexCheckBox.addActionListener(e -> {
-            patternExampleLabel.setText(useRegexCheckBox.isSelected() ? EXAMPLE_REGEX : EXAMPLE_SIMPLE);
+            // Regex and multiple literal patterns are mutually exclusive
+            if (useRegexCheckBox.isSelected()) {
+                multiPatternCheckBox.setSelected(false);
+            }
+            linearRegexCheckBox.setEnabled(useRegexCheckBox.isSelected());
+            updatePatternExample();
             updateSamplerPreview();
         });
+        multiPatternCheckBox.addActionListener(e -> {
+            if (multiPatternCheckBox.isSelected()) {
+                useRegexCheckBox.setSelected(false);
+                linearRegexCheckBox.setEnabled(false);
+            }
+            updatePatternExample();
+            updateSamplerPreview();
+        });
+        linearRegexCheckBox.addActionListener(e -> updateSamplerPreview());
         caseSensitiveCheckBox.addActionListener(e -> updateSamplerPreview());
         invertMatchCheckBox.addActionListener(e -> updateSamplerPreview());
 
@@ -527,6 +647,16 @@ public class BulkSamplerDialog extends JDialog {
         headerInvertMatchCheckBox.addActionListener(e -> updateHeaderPreview());
     }
 
+    private void updatePatternExample() {
+        if (useRegexCheckBox.isSelected()) {
+            patternExampleLabel.setText(EXAMPLE_REGEX);
+        } else if (multiPatternCheckBox.isSelected()) {
+            patternExampleLabel.setText(EXAMPLE_MULTI);
+        } else {
+            patternExampleLabel.setText(EXAMPLE_SIMPLE);
+        }
+    }
+
     private void scheduleSamplerUpdate() {
         if (updateTimer.isRunning()) {
             updateTimer.restart();
@@ -545,10 +675,16 @@ public class BulkSamplerDialog extends JDialog {
 
     /**
      * Updates the sampler preview list.
+     * The tree walk runs on a background worker so typing stays responsive on large plans;
+     * only the result of the most recent request is published to the list.
      */
     private void updateSamplerPreview() {
+        long generation = samplerPreviewGeneration.incrementAndGet();
+        cancelSamplerPreviewWorker();
+
         previewListModel.clear();
         patternErrorLabel.setText(" ");
+        regexEngineLabel.setText(" ");
 
         String pattern = uriPatternField.getText().trim();
         if (pattern.isEmpty()) {
@@ -556,34 +692,161 @@ public class BulkSamplerDialog extends JDialog {
             return;
         }
 
-        if (useRegexCheckBox.isSelected()) {
-            try {
-                Pattern.compile(pattern);
-            } catch (PatternSyntaxException e) {
-                patternErrorLabel.setText("Invalid regex: " + e.getDescription());
-                matchCountLabel.setText("Fix the pattern error above");
-                return;
-            }
+        SamplerQuery query = getSamplerQuery();
+        String error = samplerPatternError(query);
+        if (error != null) {
+            patternErrorLabel.setText(error);
+            matchCountLabel.setText("Fix the pattern error above");
+            return;
+        }
+        // A field prefix such as domain: scopes the rest of the pattern to that field
+        if (useRegexCheckBox.isSelected() && SamplerPattern.fieldOf(pattern) != SamplerPattern.Field.PORT) {
+            updateRegexEngineLabel(SamplerPattern.valueOf(pattern));
         }
 
-        GuiPackage guiPackage = GuiPackage.getInstance();
-        if (guiPackage == null || guiPackage.getTreeModel() == null) {
+        PlanSnapshot snapshot = getPlanSnapshot();
+        if (snapshot == null) {
             matchCountLabel.setText("Unable to access test plan");
             return;
         }
 
-        List<String> matches = findMatchingSamplerNames(guiPackage, pattern, 
-            useRegexCheckBox.isSelected(), caseSensitiveCheckBox.isSelected(),
-            invertMatchCheckBox.isSelected());
+        matchCountLabel.setText("Searching...");
+        samplerPreviewWorker = new SamplerPreviewWorker(generation, snapshot, trigramIndex, query,
+            lastSamplerPreview);
+        samplerPreviewWorker.execute();
+    }
 
-        for (String match : matches) {
-            previewListModel.addElement(match);
+    /**
+     * Compiles the query's pattern the way the preview and the apply will, so both reject
+     * the same input: field prefixes, port lists and regexes are all checked.
+     *
+     * @param query The query configured in the dialog
+     * @return A message describing the problem, or null if the pattern is valid
+     */
+    private String samplerPatternError(SamplerQuery query) {
+        try {
+            query.compilePattern();
+            return null;
+        } catch (PatternSyntaxException e) {
+            if (SamplerPattern.fieldOf(query.getPattern()) == SamplerPattern.Field.PORT) {
+                return "Invalid port: " + e.getDescription();
+            }
+            return (query.isUseRegex() ? "Invalid regex: " : "Invalid pattern: ") + e.getDescription();
+        } catch (IllegalArgumentException e) {
+            // A multi-pattern list without a non-blank entry
+            return "Enter at least one non-empty pattern";
         }
+    }
 
-        if (matches.isEmpty()) {
-            matchCountLabel.setText("No samplers match the pattern");
+    /**
+     * Shows which regex engine will evaluate the (already validated) pattern.
+     */
+    private void updateRegexEngineLabel(String pattern) {
+        if (!linearRegexCheckBox.isSelected()) {
+            regexEngineLabel.setForeground(Color.GRAY);
+            regexEngineLabel.setText("Engine: java.util.regex (backtracking)");
+            return;
+        }
+        try {
+            LinearRegexMatcher.compile(pattern, caseSensitiveCheckBox.isSelected());
+            regexEngineLabel.setForeground(new Color(0, 100, 0)); // Dark green
+            regexEngineLabel.setText("Engine: linear-time (no backtracking)");
+        } catch (LinearRegexMatcher.UnsupportedRegexException e) {
+            regexEngineLabel.setForeground(new Color(200, 100, 0)); // Orange
+            regexEngineLabel.setText("Engine: java.util.regex fallback (unsupported: " + e.getMessage() + ")");
+        }
+    }
+
+    /**
+     * Cancels the running sampler preview worker, if any.
+     * The worker also polls the generation counter, so a cancelled scan stops at the next node.
+     */
+    private void cancelSamplerPreviewWorker() {
+        if (samplerPreviewWorker != null) {
+            samplerPreviewWorker.cancel(false);
+            samplerPreviewWorker = null;
+        }
+    }
+
+    /**
+     * Publishes a completed sampler preview to the list, unless a newer request superseded it.
+     */
+    private void publishSamplerPreview(long generation, SamplerPreview preview) {
+        if (generation != samplerPreviewGeneration.get()) {
+            return;
+        }
+        samplerPreviewWorker = null;
+        SamplerQuery.Result result = preview.result();
+        lastSamplerPreview = result;
+
+        previewListModel.setRows(result.size(),
+            row -> formatSamplerRow(result.getSnapshot(), result.getPosition(row), result.getHitPattern(row)),
+            preview.widestRow());
+        previewListModel.applyCellSize(previewList);
+
+        PhaseTimings timings = preview.timings();
+        BulkStats.getInstance().recordPreview(timings);
+        log.debug("Sampler preview of {}: {} match(es), {}", result.getQuery(), result.size(), timings.summary());
+        String timingText = " (" + timings.summary() + ")";
+        if (result.size() == 0) {
+            matchCountLabel.setText("No samplers match the pattern" + timingText);
         } else {
-            matchCountLabel.setText(String.format("Found %d matching sampler(s)", matches.size()));
+            matchCountLabel.setText(String.format("Found %d matching sampler(s)", result.size()) + timingText);
+        }
+    }
+
+    /**
+     * Background worker computing the sampler preview for one pattern generation.
+     * It reads only the plan snapshot, never the live test elements.
+     */
+    private class SamplerPreviewWorker extends SwingWorker<SamplerPreview, Void> {
+        private final long generation;
+        private final PlanSnapshot snapshot;
+        private final TrigramIndex index;
+        private final SamplerQuery query;
+        private final SamplerQuery.Result previous;
+
+        SamplerPreviewWorker(long generation, PlanSnapshot snapshot, TrigramIndex index,
+                SamplerQuery query, SamplerQuery.Result previous) {
+            this.generation = generation;
+            this.snapshot = snapshot;
+            this.index = index;
+            this.query = query;
+            this.previous = previous;
+        }
+
+        @Override
+        protected SamplerPreview doInBackground() {
+            // Abort the scan as soon as a newer preview has been requested
+            BooleanSupplier abort = () -> generation != samplerPreviewGeneration.get();
+            PhaseTimings timings = new PhaseTimings();
+            // Narrow the scan: refine the previous matches when the pattern only grew,
+            // otherwise let the trigram index prefilter positive matches
+            SamplerQuery.Result result = null;
+            if (previous != null && previous.getSnapshot() == snapshot) {
+                result = query.refine(previous, abort, timings);
+            }
+            if (result == null) {
+                result = query.run(snapshot, query.candidates(index), abort, timings);
+            }
+            return new SamplerPreview(result, widestRow(result), timings);
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled() || generation != samplerPreviewGeneration.get()) {
+                return;
+            }
+            try {
+                publishSamplerPreview(generation, get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (CancellationException e) {
+                // Superseded by a newer pattern
+            } catch (ExecutionException e) {
+                log.error("Error computing sampler preview", e.getCause());
+                matchCountLabel.setText("Error computing preview: " + e.getCause().getMessage());
+            }
         }
     }
 
@@ -616,103 +879,135 @@ public class BulkSamplerDialog extends JDialog {
             return;
         }
 
-        List<String> matches = findMatchingHeaderNames(guiPackage, pattern, 
+        PhaseTimings timings = new PhaseTimings();
+        PhaseTimings.Mark start = PhaseTimings.mark();
+        List<HeaderMatch> matches = findMatchingHeaders(guiPackage, pattern,
             headerUseRegexCheckBox.isSelected(), headerCaseSensitiveCheckBox.isSelected(),
             headerInvertMatchCheckBox.isSelected());
-
-        for (String match : matches) {
-            headerPreviewListModel.addElement(match);
+        timings.add(PhaseTimings.Phase.TRAVERSAL, start);
+        BulkStats.getInstance().recordPreview(timings);
+        log.debug("Header preview of '{}': {} match(es), {}", pattern, matches.size(), timings.summary());
+
+        int widestRow = -1;
+        int widestLength = -1;
+        for (int i = 0; i < matches.size(); i++) {
+            int length = matches.get(i).rowLength();
+            if (length > widestLength) {
+                widestLength = length;
+                widestRow = i;
+            }
         }
+        headerPreviewListModel.setRows(matches.size(), row -> matches.get(row).format(), widestRow);
+        headerPreviewListModel.applyCellSize(headerPreviewList);
 
+        String timingText = " (" + timings.summary() + ")";
         if (matches.isEmpty()) {
-            headerMatchCountLabel.setText("No headers match the pattern");
+            headerMatchCountLabel.setText("No headers match the pattern" + timingText);
         } else {
-            headerMatchCountLabel.setText(String.format("Found %d matching header(s)", matches.size()));
+            headerMatchCountLabel.setText(String.format("Found %d matching header(s)", matches.size()) + timingText);
         }
     }
 
     /**
-     * Finds sampler names matching the pattern.
+     * Finds the longest preview row by length, without formatting the rows.
+     *
+     * @return The result index of the widest row, or -1 if there are no matches
      */
-    private List<String> findMatchingSamplerNames(GuiPackage guiPackage, String uriPattern,
-            boolean useRegex, boolean caseSensitive, boolean invertMatch) {
-        
-        List<String> results = new ArrayList<>();
-        JMeterTreeNode rootNode = (JMeterTreeNode) guiPackage.getTreeModel().getRoot();
-        
-        Pattern pattern = null;
-        if (useRegex) {
-            int flags = caseSensitive ? 0 : Pattern.CASE_INSENSITIVE;
-            pattern = Pattern.compile(uriPattern, flags);
+    private static int widestRow(SamplerQuery.Result result) {
+        int widestRow = -1;
+        int widestLength = -1;
+        for (int i = 0; i < result.size(); i++) {
+            int length = samplerRowLength(result.getSnapshot(), result.getPosition(i), result.getHitPattern(i));
+            if (length > widestLength) {
+                widestLength = length;
+                widestRow = i;
+            }
         }
+        return widestRow;
+    }
 
-        // If no scope nodes, search entire test plan
-        if (scopeNodes == null || scopeNodes.isEmpty()) {
-            findMatchingSamplersRecursive(rootNode, uriPattern, pattern, caseSensitive, invertMatch, results);
-        } else {
-            // Search within each selected scope node
-            for (JMeterTreeNode scopeNode : scopeNodes) {
-                findMatchingSamplersRecursive(scopeNode, uriPattern, pattern, caseSensitive, invertMatch, results);
-            }
+    /**
+     * Formats a sampler preview row: {@code name → uri [DISABLED]  {hit pattern}}.
+     */
+    private static String formatSamplerRow(PlanSnapshot snapshot, int position, String hitPattern) {
+        String status = snapshot.isSamplerEnabled(position) ? "" : DISABLED_SUFFIX;
+        String hit = hitPattern != null ? "  {" + hitPattern + "}" : "";
+        return snapshot.getSamplerName(position) + " → " + snapshot.getSearchableText(position) + status + hit;
+    }
+
+    /**
+     * Returns the length {@link #formatSamplerRow} would produce, without building the row.
+     */
+    private static int samplerRowLength(PlanSnapshot snapshot, int position, String hitPattern) {
+        String name = snapshot.getSamplerName(position);
+        int length = String.valueOf(name).length() + 3 + snapshot.getSearchableText(position).length();
+        if (!snapshot.isSamplerEnabled(position)) {
+            length += DISABLED_SUFFIX.length();
         }
-        return results;
+        if (hitPattern != null) {
+            length += hitPattern.length() + 4;
+        }
+        return length;
     }
 
-    private void findMatchingSamplersRecursive(JMeterTreeNode node, String uriPattern,
-            Pattern pattern, boolean caseSensitive, boolean invertMatch, List<String> results) {
-        
-        TestElement element = node.getTestElement();
-        
-        if (element instanceof Sampler) {
-            String uri = extractUri(element);
-            if (uri != null) {
-                boolean matches = matchesPattern(uri, uriPattern, pattern, caseSensitive);
-                if (invertMatch) {
-                    matches = !matches;
-                }
-                if (matches) {
-                    String status = element.isEnabled() ? "" : " [DISABLED]";
-                    results.add(element.getName() + " → " + uri + status);
-                }
+    /**
+     * A computed sampler preview and the index of its longest row.
+     */
+    private record SamplerPreview(SamplerQuery.Result result, int widestRow, PhaseTimings timings) {
+    }
+
+    /**
+     * A header matched by the header preview; formatted only when displayed.
+     */
+    private record HeaderMatch(String managerName, String headerName, String headerValue) {
+
+        private static final int MAX_VALUE_LENGTH = 50;
+
+        String format() {
+            String value = headerValue;
+            // Truncate long values
+            if (value.length() > MAX_VALUE_LENGTH) {
+                value = value.substring(0, MAX_VALUE_LENGTH - 3) + "...";
             }
+            return String.format("[%s] %s: %s", managerName, headerName, value);
         }
 
-        Enumeration<TreeNode> children = node.children();
-        while (children.hasMoreElements()) {
-            JMeterTreeNode child = (JMeterTreeNode) children.nextElement();
-            findMatchingSamplersRecursive(child, uriPattern, pattern, caseSensitive, invertMatch, results);
+        int rowLength() {
+            return String.valueOf(managerName).length() + 4 + String.valueOf(headerName).length()
+                + Math.min(headerValue.length(), MAX_VALUE_LENGTH);
         }
     }
 
     /**
-     * Finds header names matching the pattern.
+     * Finds headers matching the pattern.
      */
-    private List<String> findMatchingHeaderNames(GuiPackage guiPackage, String headerPattern,
+    private List<HeaderMatch> findMatchingHeaders(GuiPackage guiPackage, String headerPattern,
             boolean useRegex, boolean caseSensitive, boolean invertMatch) {
         
-        List<String> results = new ArrayList<>();
+        List<HeaderMatch> results = new ArrayList<>();
         JMeterTreeNode rootNode = (JMeterTreeNode) guiPackage.getTreeModel().getRoot();
         
-        Pattern pattern = null;
-        if (useRegex) {
-            int flags = caseSensitive ? 0 : Pattern.CASE_INSENSITIVE;
-            pattern = Pattern.compile(headerPattern, flags);
-        }
+        TextMatcher matcher = TextMatcher.compile(headerPattern, useRegex, false, caseSensitive, false);
 
+        TreeWalker walker = new TreeWalker();
+        TreeWalker.Visitor visitor = node -> {
+            findMatchingHeaders(node, matcher, invertMatch, results);
+            return true;
+        };
         // If no scope nodes, search entire test plan
         if (scopeNodes == null || scopeNodes.isEmpty()) {
-            findMatchingHeadersRecursive(rootNode, headerPattern, pattern, caseSensitive, invertMatch, results);
+            walker.walk(rootNode, visitor);
         } else {
             // Search within each selected scope node
             for (JMeterTreeNode scopeNode : scopeNodes) {
-                findMatchingHeadersRecursive(scopeNode, headerPattern, pattern, caseSensitive, invertMatch, results);
+                walker.walk(scopeNode, visitor);
             }
         }
         return results;
     }
 
-    private void findMatchingHeadersRecursive(JMeterTreeNode node, String headerPattern,
-            Pattern pattern, boolean caseSensitive, boolean invertMatch, List<String> results) {
+    private static void findMatchingHeaders(JMeterTreeNode node, TextMatcher matcher,
+            boolean invertMatch, List<HeaderMatch> results) {
         
         TestElement element = node.getTestElement();
         
@@ -722,85 +1017,16 @@ public class BulkSamplerDialog extends JDialog {
                 JMeterProperty prop = headers.get(i);
                 if (prop.getObjectValue() instanceof Header header) {
                     String headerName = header.getName();
-                    boolean matches = matchesPattern(headerName, headerPattern, pattern, caseSensitive);
+                    boolean matches = matcher.find(headerName);
                     if (invertMatch) {
                         matches = !matches;
                     }
                     if (matches) {
-                        String managerName = headerManager.getName();
-                        String headerValue = header.getValue();
-                        // Truncate long values
-                        if (headerValue.length() > 50) {
-                            headerValue = headerValue.substring(0, 47) + "...";
-                        }
-                        results.add(String.format("[%s] %s: %s", managerName, headerName, headerValue));
+                        results.add(new HeaderMatch(headerManager.getName(), headerName, header.getValue()));
                     }
                 }
             }
         }
-
-        Enumeration<TreeNode> children = node.children();
-        while (children.hasMoreElements()) {
-            JMeterTreeNode child = (JMeterTreeNode) children.nextElement();
-            findMatchingHeadersRecursive(child, headerPattern, pattern, caseSensitive, invertMatch, results);
-        }
-    }
-
-    private String extractUri(TestElement element) {
-        StringBuilder searchableText = new StringBuilder();
-        
-        String name = element.getName();
-        if (name != null) {
-            searchableText.append(name);
-        }
-        
-        if (element instanceof HTTPSamplerBase httpSampler) {
-            String path = httpSampler.getPath();
-            String domain = httpSampler.getDomain();
-            
-            if (domain != null && !domain.isEmpty()) {
-                String protocol = httpSampler.getProtocol();
-                if (protocol == null || protocol.isEmpty()) {
-                    protocol = "http";
-                }
-                int port = httpSampler.getPort();
-                StringBuilder uri = new StringBuilder();
-                uri.append(protocol).append("://").append(domain);
-                if (port > 0 && port != 80 && port != 443) {
-                    uri.append(":").append(port);
-                }
-                if (path != null && !path.isEmpty()) {
-                    if (!path.startsWith("/")) {
-                        uri.append("/");
-                    }
-                    uri.append(path);
-                }
-                String constructedUri = uri.toString();
-                if (!constructedUri.equals(name)) {
-                    searchableText.append(" ").append(constructedUri);
-                }
-            } else if (path != null && !path.isEmpty() && !path.equals(name)) {
-                searchableText.append(" ").append(path);
-            }
-        }
-        
-        return searchableText.toString();
-    }
-
-    private boolean matchesPattern(String text, String patternStr, Pattern pattern, boolean caseSensitive) {
-        if (text == null) {
-            return false;
-        }
-        
-        if (pattern != null) {
-            return pattern.matcher(text).find();
-        } else {
-            if (caseSensitive) {
-                return text.contains(patternStr);
-            } else {
-                return text.toLowerCase().contains(patternStr.toLowerCase());
-            }
-        }
     }
 
     /**
@@ -826,17 +1052,14 @@ public class BulkSamplerDialog extends JDialog {
             return false;
         }
 
-        if (useRegexCheckBox.isSelected()) {
-            try {
-                Pattern.compile(pattern);
-            } catch (PatternSyntaxException e) {
-                JOptionPane.showMessageDialog(this,
-                    "Invalid regular expression: " + e.getMessage(),
-                    "Pattern Error",
-                    JOptionPane.ERROR_MESSAGE);
-                uriPatternField.requestFocus();
-                return false;
-            }
+        String error = samplerPatternError(getSamplerQuery());
+        if (error != null) {
+            JOptionPane.showMessageDialog(this,
+                error,
+                "Pattern Error",
+                JOptionPane.ERROR_MESSAGE);
+            uriPatternField.requestFocus();
+            return false;
         }
 
         if (actionComboBox.getSelectedItem() == ActionType.DELETE) {
@@ -886,6 +1109,96 @@ public class BulkSamplerDialog extends JDialog {
         return result == JOptionPane.YES_OPTION;
     }
 
+    /**
+     * Lets the user pick a rule file and, once it compiles, closes the dialog to apply it.
+     * An invalid file is reported and the dialog stays open.
+     */
+    private void chooseRuleFile() {
+        JFileChooser chooser = new JFileChooser(ruleFile);
+        chooser.setDialogTitle("Apply Rule File");
+        chooser.setFileFilter(new FileNameExtensionFilter("Rule files (*.properties)", "properties"));
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File file = chooser.getSelectedFile();
+        RuleSet rules;
+        try {
+            rules = RuleSet.load(file.toPath());
+        } catch (IOException e) {
+            showRuleFileError("Cannot read " + file.getName() + ": " + e.getMessage());
+            return;
+        } catch (PatternSyntaxException e) {
+            showRuleFileError("Invalid regular expression in " + file.getName() + ": " + e.getMessage());
+            return;
+        } catch (IllegalArgumentException e) {
+            showRuleFileError("Invalid rule file " + file.getName() + ": " + e.getMessage());
+            return;
+        }
+        log.debug("Loaded {} rule(s) from {}", rules.getRules().size(), file);
+        if (!confirmRuleFile(rules, file)) {
+            return;
+        }
+        ruleSet = rules;
+        ruleFile = file;
+        confirmed = true;
+        dispose();
+    }
+
+    /**
+     * Asks before applying a rule file that deletes samplers or header rows, listing what a
+     * dry run of the rules over the current scope would change.
+     *
+     * @return true if the rules may be applied
+     */
+    private boolean confirmRuleFile(RuleSet rules, File file) {
+        boolean deletes = rules.hasHeaderRules()
+            || rules.getRules().stream().anyMatch(rule -> rule.getAction() == RuleSet.Action.DELETE);
+        if (!deletes) {
+            return true;
+        }
+        StringBuilder message = new StringBuilder("The rules in ").append(file.getName())
+            .append(" delete test plan elements.\n");
+        GuiPackage guiPackage = GuiPackage.getInstance();
+        if (guiPackage != null && guiPackage.getTreeModel() != null) {
+            Map<RuleSet.Action, Integer> counts = new EnumMap<>(RuleSet.Action.class);
+            for (RuleSet.Change change : rules.evaluate((JMeterTreeNode) guiPackage.getTreeModel().getRoot(),
+                    scopeNodes)) {
+                counts.merge(change.rule().getAction(), change.size(), Integer::sum);
+            }
+            message.append("\nIn the current scope they will:\n");
+            for (RuleSet.Action action : RuleSet.Action.values()) {
+                int count = counts.getOrDefault(action, 0);
+                if (count > 0 || action == RuleSet.Action.DELETE || action == RuleSet.Action.DELETE_HEADERS) {
+                    String target = action == RuleSet.Action.DELETE_HEADERS ? "header row(s)" : "sampler(s)";
+                    message.append("  ").append(action.getName()).append(": ").append(count).append(' ')
+                        .append(target).append('\n');
+                }
+            }
+        }
+        message.append("\nThis action cannot be undone. Apply the rule file?");
+        int result = JOptionPane.showConfirmDialog(this,
+            message.toString(),
+            "Confirm Rule File",
+            JOptionPane.YES_NO_OPTION,
+            JOptionPane.WARNING_MESSAGE);
+        return result == JOptionPane.YES_OPTION;
+    }
+
+    private void showRuleFileError(String message) {
+        ruleSet = null;
+        JOptionPane.showMessageDialog(this, message, "Rule File Error", JOptionPane.ERROR_MESSAGE);
+    }
+
+    /**
+     * Disposes the dialog and abandons any sampler preview still running in the background.
+     */
+    @Override
+    public void dispose() {
+        samplerPreviewGeneration.incrementAndGet();
+        cancelSamplerPreviewWorker();
+        super.dispose();
+    }
+
     // ==================== Public Getters ====================
 
     public boolean isConfirmed() {
@@ -893,9 +1206,30 @@ public class BulkSamplerDialog extends JDialog {
     }
 
     public OperationMode getOperationMode() {
+        if (ruleSet != null) {
+            return OperationMode.RULE_FILE;
+        }
         return tabbedPane.getSelectedIndex() == 0 ? OperationMode.SAMPLERS : OperationMode.HTTP_HEADERS;
     }
 
+    /**
+     * Returns the rule set chosen with "Apply Rule File...".
+     *
+     * @return The compiled rule set, or null if the tab's pattern is applied
+     */
+    public RuleSet getRuleSet() {
+        return ruleSet;
+    }
+
+    /**
+     * Returns the file the rule set was loaded from.
+     *
+     * @return The rule file, or null if no rule file was chosen
+     */
+    public File getRuleFile() {
+        return ruleFile;
+    }
+
     // Sampler getters
     public String getUriPattern() {
         return uriPatternField.getText().trim();
@@ -909,6 +1243,14 @@ public class BulkSamplerDialog extends JDialog {
         return useRegexCheckBox.isSelected();
     }
 
+    public boolean isLinearRegex() {
+        return linearRegexCheckBox.isSelected();
+    }
+
+    public boolean isMultiPattern() {
+        return multiPatternCheckBox.isSelected();
+    }
+
     public boolean isCaseSensitive() {
         return caseSensitiveCheckBox.isSelected();
     }
@@ -917,6 +1259,25 @@ public class BulkSamplerDialog extends JDialog {
         return invertMatchCheckBox.isSelected();
     }
 
+    /**
+     * Returns the sampler query configured in the dialog.
+     *
+     * @return The query for the current pattern, options and scope
+     */
+    public SamplerQuery getSamplerQuery() {
+        return new SamplerQuery(getUriPattern(), isUseRegex(), isLinearRegex(), isMultiPattern(),
+            isCaseSensitive(), isInvertMatch(), scopeNodes);
+    }
+
+    /**
+     * Returns the last completed sampler preview, which Apply may reuse if it is still current.
+     *
+     * @return The preview result, or null if no preview has completed
+     */
+    public SamplerQuery.Result getSamplerPreview() {
+        return lastSamplerPreview;
+    }
+
     // Header getters
     public String getHeaderPattern() {
         return headerPatternField.getText().trim();
@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazemeter.jmeter.plugins.bulksampler;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Timings of all previews and applies since JMeter started (or the last {@link #reset()}),
+ * exposed as a platform MBean so long editing sessions can be watched from JConsole or
+ * VisualVM.
+ */
+public final class BulkStats implements BulkStatsMBean {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkStats.class);
+
+    /** The JMX object name the statistics are registered under */
+    public static final String OBJECT_NAME = "com.blazemeter.jmeter.plugins.bulksampler:type=BulkStats";
+
+    private static BulkStats instance;
+
+    private PhaseTimings totals = new PhaseTimings();
+    private long previewCount;
+    private long applyCount;
+    private String lastSummary = "";
+
+    private BulkStats() {
+    }
+
+    /**
+     * Returns the shared statistics, registering the MBean on first use.
+     *
+     * @return The statistics
+     */
+    public static synchronized BulkStats getInstance() {
+        if (instance == null) {
+            instance = new BulkStats();
+            register(instance);
+        }
+        return instance;
+    }
+
+    /**
+     * Adds the timings of a completed preview.
+     *
+     * @param timings The preview's timings
+     */
+    public synchronized void recordPreview(PhaseTimings timings) {
+        previewCount++;
+        record(timings);
+    }
+
+    /**
+     * Adds the timings of a completed or cancelled apply.
+     *
+     * @param timings The apply's timings
+     */
+    public synchronized void recordApply(PhaseTimings timings) {
+        applyCount++;
+        record(timings);
+    }
+
+    private void record(PhaseTimings timings) {
+        totals.addAll(timings);
+        lastSummary = timings.summary();
+    }
+
+    @Override
+    public synchronized long getPreviewCount() {
+        return previewCount;
+    }
+
+    @Override
+    public synchronized long getApplyCount() {
+        return applyCount;
+    }
+
+    @Override
+    public double getTraversalMillis() {
+        return millis(PhaseTimings.Phase.TRAVERSAL);
+    }
+
+    @Override
+    public double getSearchableTextMillis() {
+        return millis(PhaseTimings.Phase.SEARCHABLE_TEXT);
+    }
+
+    @Override
+    public double getMatchingMillis() {
+        return millis(PhaseTimings.Phase.MATCHING);
+    }
+
+    @Override
+    public double getMutationMillis() {
+        return millis(PhaseTimings.Phase.MUTATION);
+    }
+
+    @Override
+    public double getRefreshMillis() {
+        return millis(PhaseTimings.Phase.REFRESH);
+    }
+
+    @Override
+    public synchronized long getAllocatedBytes() {
+        return PhaseTimings.isAllocationCounted() ? totals.getTotalAllocatedBytes() : -1;
+    }
+
+    @Override
+    public synchronized String getLastSummary() {
+        return lastSummary;
+    }
+
+    @Override
+    public synchronized void reset() {
+        totals = new PhaseTimings();
+        previewCount = 0;
+        applyCount = 0;
+        lastSummary = "";
+    }
+
+    private synchronized double millis(PhaseTimings.Phase phase) {
+        return totals.getNanos(phase) / 1_000_000.0;
+    }
+
+    private static void register(BulkStats stats) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(stats, name);
+                log.debug("Registered MBean {}", OBJECT_NAME);
+            }
+        } catch (JMException | SecurityException e) {
+            log.warn("Could not register MBean {}", OBJECT_NAME, e);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazemeter.jmeter.plugins.bulksampler;
+
+/**
+ * JMX view of the cumulative bulk operation timings, registered as
+ * {@value BulkStats#OBJECT_NAME}. Times are in milliseconds.
+ */
+public interface BulkStatsMBean {
+
+    long getPreviewCount();
+
+    long getApplyCount();
+
+    double getTraversalMillis();
+
+    double getSearchableTextMillis();
+
+    double getMatchingMillis();
+
+    double getMutationMillis();
+
+    double getRefreshMillis();
+
+    /**
+     * Returns the bytes allocated by all recorded phases, or -1 if the JVM cannot count them.
+     *
+     * @return The allocated bytes
+     */
+    long getAllocatedBytes();
+
+    /**
+     * Returns the summary of the most recent preview or apply.
+     *
+     * @return The summary, or an empty string before the first operation
+     */
+    String getLastSummary();
+
+    /**
+     * Clears all counters.
+     */
+    void reset();
+}
@@ -0,0 +1,794 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazemeter.jmeter.plugins.bulksampler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Regular expression matcher with a linear-time guarantee.
+ *
+ * <p>The pattern is compiled into a Thompson NFA program which is simulated one input
+ * character at a time, tracking every live state in parallel (Pike VM). Matching is
+ * O(text length x pattern size) regardless of the pattern, so expressions such as
+ * {@code (a+)+$} cannot backtrack catastrophically.
+ *
+ * <p>The engine supports the common subset of {@link java.util.regex.Pattern} syntax:
+ * literals, {@code .}, character classes (including {@code \d \w \s} and their
+ * negations), groups (capturing, non-capturing and named), alternation, greedy and
+ * lazy quantifiers ({@code * + ? {n} {n,} {n,m}}) and the {@code ^ $} anchors.
+ * Case-insensitive matching follows {@link Pattern#CASE_INSENSITIVE} (ASCII only).
+ * Other constructs (back-references, look-around, possessive quantifiers, inline
+ * flags, Unicode properties, word boundaries, anchors inside repeated groups, ...) are rejected with
+ * {@link UnsupportedRegexException} so the caller can fall back to java.util.regex.
+ *
+ * <p>Instances are immutable and safe to share between threads.
+ */
+public final class LinearRegexMatcher implements TextMatcher {
+
+    /** Upper bound on the compiled program size, guards against huge counted repetitions */
+    private static final int MAX_PROGRAM_SIZE = 20_000;
+
+    private static final int OP_CHAR = 0;
+    private static final int OP_CLASS = 1;
+    private static final int OP_ANY = 2;
+    private static final int OP_SPLIT = 3;
+    private static final int OP_JMP = 4;
+    private static final int OP_BOL = 5;
+    private static final int OP_EOL = 6;
+    private static final int OP_MATCH = 7;
+
+    private final String regex;
+    private final boolean caseSensitive;
+    private final int[] op;
+    private final int[] arg1;
+    private final int[] arg2;
+    private final CharClass[] classes;
+    private final boolean anchoredStart;
+
+    /**
+     * Thrown when a pattern uses a construct the linear-time engine does not implement.
+     */
+    public static final class UnsupportedRegexException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        UnsupportedRegexException(String feature) {
+            super(feature);
+        }
+    }
+
+    private LinearRegexMatcher(String regex, boolean caseSensitive, Program program, boolean anchoredStart) {
+        this.regex = regex;
+        this.caseSensitive = caseSensitive;
+        int size = program.size();
+        this.op = new int[size];
+        this.arg1 = new int[size];
+        this.arg2 = new int[size];
+        for (int i = 0; i < size; i++) {
+            op[i] = program.op.get(i);
+            arg1[i] = program.arg1.get(i);
+            arg2[i] = program.arg2.get(i);
+        }
+        this.classes = program.classes.toArray(new CharClass[0]);
+        this.anchoredStart = anchoredStart;
+    }
+
+    /**
+     * Compiles a regular expression for linear-time matching.
+     *
+     * @param regex The regular expression, in java.util.regex syntax
+     * @param caseSensitive Whether matching should be case-sensitive
+     * @return The compiled matcher
+     * @throws java.util.regex.PatternSyntaxException if the expression is invalid
+     * @throws UnsupportedRegexException if the expression uses a construct this engine cannot run
+     */
+    public static LinearRegexMatcher compile(String regex, boolean caseSensitive)
+            throws UnsupportedRegexException {
+        // Let java.util.regex report syntax errors with its usual messages
+        Pattern.compile(regex);
+
+        Node root = new Parser(regex).parse();
+        Program program = new Program();
+        program.emit(root);
+        program.add(OP_MATCH, 0, 0);
+        return new LinearRegexMatcher(regex, caseSensitive, program, startsWithBol(root));
+    }
+
+    /**
+     * Returns the regular expression this matcher was compiled from.
+     *
+     * @return The regular expression
+     */
+    public String getRegex() {
+        return regex;
+    }
+
+    @Override
+    public boolean find(CharSequence text) {
+        if (text == null) {
+            return false;
+        }
+        int size = op.length;
+        ThreadList current = new ThreadList(size);
+        ThreadList next = new ThreadList(size);
+        int[] stack = new int[size];
+        int n = text.length();
+
+        int i = 0;
+        while (true) {
+            if (i == 0 || !anchoredStart) {
+                if (addThread(current, 0, text, i, stack)) {
+                    return true;
+                }
+            }
+            if (i >= n || (current.size == 0 && anchoredStart)) {
+                return false;
+            }
+
+            int c = Character.codePointAt(text, i);
+            int nextPos = i + Character.charCount(c);
+            next.clear();
+            for (int t = 0; t < current.size; t++) {
+                int pc = current.dense[t];
+                boolean step;
+                switch (op[pc]) {
+                    case OP_CHAR:
+                        step = arg1[pc] == c
+                            || (!caseSensitive && foldAscii(arg1[pc]) == foldAscii(c));
+                        break;
+                    case OP_CLASS:
+                        step = classes[arg1[pc]].matches(c, caseSensitive);
+                        break;
+                    case OP_ANY:
+                        step = !isLineTerminator(c);
+                        break;
+                    default:
+                        step = false;
+                        break;
+                }
+                if (step && addThread(next, pc + 1, text, nextPos, stack)) {
+                    return true;
+                }
+            }
+
+            ThreadList swap = current;
+            current = next;
+            next = swap;
+            i = nextPos;
+        }
+    }
+
+    /**
+     * Adds a thread and its epsilon closure at the given input position.
+     *
+     * @return true if the closure reaches the match instruction
+     */
+    private boolean addThread(ThreadList list, int startPc, CharSequence text, int pos, int[] stack) {
+        if (list.contains(startPc)) {
+            return false;
+        }
+        int top = 0;
+        stack[top++] = startPc;
+        list.add(startPc);
+        while (top > 0) {
+            int pc = stack[--top];
+            switch (op[pc]) {
+                case OP_MATCH:
+                    return true;
+                case OP_JMP:
+                    top = push(list, stack, top, arg1[pc]);
+                    break;
+                case OP_SPLIT:
+                    top = push(list, stack, top, arg2[pc]);
+                    top = push(list, stack, top, arg1[pc]);
+                    break;
+                case OP_BOL:
+                    if (pos == 0) {
+                        top = push(list, stack, top, pc + 1);
+                    }
+                    break;
+                case OP_EOL:
+                    if (isEndOfInput(text, pos)) {
+                        top = push(list, stack, top, pc + 1);
+                    }
+                    break;
+                default:
+                    // Character-consuming instruction, stays in the list for the next step
+                    break;
+            }
+        }
+        return false;
+    }
+
+    private static int push(ThreadList list, int[] stack, int top, int pc) {
+        if (!list.contains(pc)) {
+            list.add(pc);
+            stack[top++] = pc;
+        }
+        return top;
+    }
+
+    /**
+     * Mirrors {@code $} without MULTILINE: end of input, or before a final line terminator.
+     */
+    private static boolean isEndOfInput(CharSequence text, int pos) {
+        int n = text.length();
+        if (pos == n) {
+            return true;
+        }
+        if (pos == n - 1) {
+            char c = text.charAt(pos);
+            if (c == '\n' && pos > 0 && text.charAt(pos - 1) == '\r') {
+                return false;
+            }
+            return isLineTerminator(c);
+        }
+        return pos == n - 2 && text.charAt(pos) == '\r' && text.charAt(pos + 1) == '\n';
+    }
+
+    private static boolean isLineTerminator(int c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    private static int foldAscii(int c) {
+        return (c >= 'A' && c <= 'Z') ? c + ('a' - 'A') : c;
+    }
+
+    private static boolean startsWithBol(Node node) {
+        while (node.type == Node.CAT && !node.children.isEmpty()) {
+            node = node.children.get(0);
+        }
+        return node.type == Node.BOL;
+    }
+
+    @Override
+    public String toString() {
+        return "LinearRegexMatcher[" + regex + (caseSensitive ? "" : ", ignoreCase") + "]";
+    }
+
+    // ==================== Simulation State ====================
+
+    /**
+     * Sparse set of program counters, cleared in constant time.
+     */
+    private static final class ThreadList {
+        final int[] dense;
+        final int[] sparse;
+        int size;
+
+        ThreadList(int capacity) {
+            dense = new int[capacity];
+            sparse = new int[capacity];
+        }
+
+        boolean contains(int pc) {
+            int k = sparse[pc];
+            return k < size && dense[k] == pc;
+        }
+
+        void add(int pc) {
+            sparse[pc] = size;
+            dense[size++] = pc;
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+
+    // ==================== Character Classes ====================
+
+    /**
+     * Set of code point ranges, optionally negated.
+     */
+    private static final class CharClass {
+        private final int[] ranges;
+        private final boolean negated;
+
+        CharClass(List<int[]> ranges, boolean negated) {
+            this.ranges = new int[ranges.size() * 2];
+            for (int i = 0; i < ranges.size(); i++) {
+                this.ranges[i * 2] = ranges.get(i)[0];
+                this.ranges[i * 2 + 1] = ranges.get(i)[1];
+            }
+            this.negated = negated;
+        }
+
+        boolean matches(int c, boolean caseSensitive) {
+            boolean member = contains(c);
+            if (!member && !caseSensitive) {
+                if (c >= 'a' && c <= 'z') {
+                    member = contains(c - ('a' - 'A'));
+                } else if (c >= 'A' && c <= 'Z') {
+                    member = contains(c + ('a' - 'A'));
+                }
+            }
+            return member != negated;
+        }
+
+        private boolean contains(int c) {
+            for (int i = 0; i < ranges.length; i += 2) {
+                if (c >= ranges[i] && c <= ranges[i + 1]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    // ==================== Parser ====================
+
+    /**
+     * Syntax tree node.
+     */
+    private static final class Node {
+        static final int CHAR = 0;
+        static final int CLASS = 1;
+        static final int ANY = 2;
+        static final int CAT = 3;
+        static final int ALT = 4;
+        static final int STAR = 5;
+        static final int PLUS = 6;
+        static final int QUEST = 7;
+        static final int BOL = 8;
+        static final int EOL = 9;
+
+        final int type;
+        final int value;
+        final CharClass charClass;
+        final List<Node> children = new ArrayList<>();
+
+        Node(int type, int value, CharClass charClass) {
+            this.type = type;
+            this.value = value;
+            this.charClass = charClass;
+        }
+
+        static Node of(int type, Node... children) {
+            Node node = new Node(type, 0, null);
+            for (Node child : children) {
+                node.children.add(child);
+            }
+            return node;
+        }
+    }
+
+    /**
+     * Recursive-descent parser for the supported subset. The pattern has already been
+     * validated by java.util.regex, so anything unexpected is reported as unsupported.
+     */
+    private static final class Parser {
+        private final String regex;
+        private int pos;
+
+        Parser(String regex) {
+            this.regex = regex;
+        }
+
+        Node parse() throws UnsupportedRegexException {
+            Node node = parseAlternation();
+            if (pos < regex.length()) {
+                throw new UnsupportedRegexException("'" + regex.charAt(pos) + "' at index " + pos);
+            }
+            return node;
+        }
+
+        private Node parseAlternation() throws UnsupportedRegexException {
+            Node left = parseConcatenation();
+            while (peek() == '|') {
+                pos++;
+                left = Node.of(Node.ALT, left, parseConcatenation());
+            }
+            return left;
+        }
+
+        private Node parseConcatenation() throws UnsupportedRegexException {
+            Node cat = Node.of(Node.CAT);
+            while (pos < regex.length() && peek() != '|' && peek() != ')') {
+                cat.children.add(parseRepetition());
+            }
+            return cat;
+        }
+
+        private Node parseRepetition() throws UnsupportedRegexException {
+            Node atom = parseAtom();
+            while (pos < regex.length()) {
+                char c = peek();
+                int min;
+                int max;
+                if (c == '*') {
+                    min = 0;
+                    max = -1;
+                    pos++;
+                } else if (c == '+') {
+                    min = 1;
+                    max = -1;
+                    pos++;
+                } else if (c == '?') {
+                    min = 0;
+                    max = 1;
+                    pos++;
+                } else if (c == '{') {
+                    int close = regex.indexOf('}', pos);
+                    if (close < 0) {
+                        throw new UnsupportedRegexException("'{' without '}'");
+                    }
+                    String body = regex.substring(pos + 1, close);
+                    int comma = body.indexOf(',');
+                    try {
+                        if (comma < 0) {
+                            min = Integer.parseInt(body.trim());
+                            max = min;
+                        } else {
+                            min = Integer.parseInt(body.substring(0, comma).trim());
+                            String upper = body.substring(comma + 1).trim();
+                            max = upper.isEmpty() ? -1 : Integer.parseInt(upper);
+                        }
+                    } catch (NumberFormatException e) {
+                        throw new UnsupportedRegexException("repetition {" + body + "}");
+                    }
+                    pos = close + 1;
+                } else {
+                    break;
+                }
+
+                // Lazy and greedy quantifiers accept the same inputs; possessive ones do not
+                if (peek() == '?') {
+                    pos++;
+                } else if (peek() == '+') {
+                    throw new UnsupportedRegexException("possessive quantifier");
+                }
+                // java.util.regex does not retry earlier iterations of a group such as (^a*){2}
+                // when an anchor fails in a later one, so its results differ from a full search
+                if (containsAnchor(atom)) {
+                    throw new UnsupportedRegexException("anchor inside a repeated group");
+                }
+                atom = repeat(atom, min, max);
+            }
+            return atom;
+        }
+
+        private static boolean containsAnchor(Node node) {
+            if (node.type == Node.BOL || node.type == Node.EOL) {
+                return true;
+            }
+            for (Node child : node.children) {
+                if (containsAnchor(child)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private Node repeat(Node atom, int min, int max) throws UnsupportedRegexException {
+            if (min == 0 && max == -1) {
+                return Node.of(Node.STAR, atom);
+            }
+            if (min == 1 && max == -1) {
+                return Node.of(Node.PLUS, atom);
+            }
+            if (min == 0 && max == 1) {
+                return Node.of(Node.QUEST, atom);
+            }
+            if (min > MAX_PROGRAM_SIZE || max > MAX_PROGRAM_SIZE) {
+                throw new UnsupportedRegexException("repetition count too large");
+            }
+            Node cat = Node.of(Node.CAT);
+            for (int i = 0; i < min; i++) {
+                cat.children.add(atom);
+            }
+            if (max == -1) {
+                cat.children.add(Node.of(Node.STAR, atom));
+            } else {
+                // a{2,4} = aa(a(a)?)?
+                Node optional = null;
+                for (int i = min; i < max; i++) {
+                    optional = optional == null
+                        ? Node.of(Node.QUEST, atom)
+                        : Node.of(Node.QUEST, Node.of(Node.CAT, atom, optional));
+                }
+                if (optional != null) {
+                    cat.children.add(optional);
+                }
+            }
+            return cat;
+        }
+
+        private Node parseAtom() throws UnsupportedRegexException {
+            char c = peek();
+            switch (c) {
+                case '(':
+                    return parseGroup();
+                case '[':
+                    return new Node(Node.CLASS, 0, parseClass());
+                case '.':
+                    pos++;
+                    return new Node(Node.ANY, 0, null);
+                case '^':
+                    pos++;
+                    return new Node(Node.BOL, 0, null);
+                case '$':
+                    pos++;
+                    return new Node(Node.EOL, 0, null);
+                case '\\':
+                    return parseEscape();
+                case '*':
+                case '+':
+                case '?':
+                case '{':
+                case ')':
+                    throw new UnsupportedRegexException("'" + c + "' at index " + pos);
+                default:
+                    int cp = regex.codePointAt(pos);
+                    pos += Character.charCount(cp);
+                    return new Node(Node.CHAR, cp, null);
+            }
+        }
+
+        private Node parseGroup() throws UnsupportedRegexException {
+            pos++; // '('
+            if (regex.startsWith("?:", pos)) {
+                pos += 2;
+            } else if (regex.startsWith("?<", pos) && pos + 2 < regex.length()
+                    && Character.isLetter(regex.charAt(pos + 2))) {
+                // Named group, captures are irrelevant for matching
+                pos = regex.indexOf('>', pos) + 1;
+            } else if (peek() == '?') {
+                throw new UnsupportedRegexException("look-around, atomic groups and inline flags");
+            }
+            Node node = parseAlternation();
+            if (peek() != ')') {
+                throw new UnsupportedRegexException("unbalanced group");
+            }
+            pos++;
+            return node;
+        }
+
+        private Node parseEscape() throws UnsupportedRegexException {
+            List<int[]> ranges = new ArrayList<>();
+            Boolean negated = parseClassEscape(ranges);
+            if (negated != null) {
+                return new Node(Node.CLASS, 0, new CharClass(ranges, negated));
+            }
+            return new Node(Node.CHAR, parseCharEscape(), null);
+        }
+
+        /**
+         * Parses a {@code \d \w \s} style escape into ranges.
+         *
+         * @return whether the class is negated, or null (without consuming) if this is not a class escape
+         */
+        private Boolean parseClassEscape(List<int[]> ranges) {
+            if (pos + 1 >= regex.length()) {
+                return null;
+            }
+            char e = regex.charAt(pos + 1);
+            switch (Character.toLowerCase(e)) {
+                case 'd':
+                    ranges.add(new int[] {'0', '9'});
+                    break;
+                case 'w':
+                    ranges.add(new int[] {'a', 'z'});
+                    ranges.add(new int[] {'A', 'Z'});
+                    ranges.add(new int[] {'0', '9'});
+                    ranges.add(new int[] {'_', '_'});
+                    break;
+                case 's':
+                    ranges.add(new int[] {' ', ' '});
+                    ranges.add(new int[] {'\t', '\r'}); // \t \n \x0B \f \r
+                    break;
+                default:
+                    return null;
+            }
+            pos += 2;
+            return Character.isUpperCase(e);
+        }
+
+        private int parseCharEscape() throws UnsupportedRegexException {
+            if (pos + 1 >= regex.length()) {
+                throw new UnsupportedRegexException("trailing backslash");
+            }
+            char e = regex.charAt(pos + 1);
+            pos += 2;
+            switch (e) {
+                case 't':
+                    return '\t';
+                case 'n':
+                    return '\n';
+                case 'r':
+                    return '\r';
+                case 'f':
+                    return '\f';
+                case 'a':
+                    return '\u0007';
+                case 'e':
+                    return '\u001B';
+                case 'x':
+                    return parseHex(2);
+                case 'u':
+                    return parseHex(4);
+                default:
+                    if (Character.isLetterOrDigit(e)) {
+                        throw new UnsupportedRegexException("escape \\" + e);
+                    }
+                    return e;
+            }
+        }
+
+        private int parseHex(int digits) throws UnsupportedRegexException {
+            if (pos + digits > regex.length()) {
+                throw new UnsupportedRegexException("hex escape");
+            }
+            try {
+                int value = Integer.parseInt(regex.substring(pos, pos + digits), 16);
+                pos += digits;
+                return value;
+            } catch (NumberFormatException e) {
+                throw new UnsupportedRegexException("hex escape");
+            }
+        }
+
+        private CharClass parseClass() throws UnsupportedRegexException {
+            pos++; // '['
+            boolean negated = false;
+            if (peek() == '^') {
+                negated = true;
+                pos++;
+            }
+            List<int[]> ranges = new ArrayList<>();
+            boolean first = true;
+            while (true) {
+                if (pos >= regex.length()) {
+                    throw new UnsupportedRegexException("unterminated character class");
+                }
+                char c = peek();
+                if (c == ']' && !first) {
+                    pos++;
+                    break;
+                }
+                if (c == '[' || c == ']' || regex.startsWith("&&", pos)) {
+                    throw new UnsupportedRegexException("nested or intersected character classes");
+                }
+                first = false;
+
+                int low;
+                if (c == '\\') {
+                    List<int[]> escaped = new ArrayList<>();
+                    Boolean escapedNegated = parseClassEscape(escaped);
+                    if (escapedNegated != null) {
+                        if (escapedNegated) {
+                            throw new UnsupportedRegexException("negated escape inside a character class");
+                        }
+                        ranges.addAll(escaped);
+                        continue;
+                    }
+                    low = parseCharEscape();
+                } else {
+                    low = regex.codePointAt(pos);
+                    pos += Character.charCount(low);
+                }
+
+                int high = low;
+                if (peek() == '-' && pos + 1 < regex.length() && regex.charAt(pos + 1) != ']') {
+                    pos++;
+                    if (peek() == '\\') {
+                        high = parseCharEscape();
+                    } else if (peek() == '[') {
+                        throw new UnsupportedRegexException("nested character classes");
+                    } else {
+                        high = regex.codePointAt(pos);
+                        pos += Character.charCount(high);
+                    }
+                }
+                ranges.add(new int[] {low, high});
+            }
+            return new CharClass(ranges, negated);
+        }
+
+        private char peek() {
+            return pos < regex.length() ? regex.charAt(pos) : '\0';
+        }
+    }
+
+    // ==================== Code Generation ====================
+
+    /**
+     * Growable Pike VM program under construction.
+     */
+    private static final class Program {
+        final List<Integer> op = new ArrayList<>();
+        final List<Integer> arg1 = new ArrayList<>();
+        final List<Integer> arg2 = new ArrayList<>();
+        final List<CharClass> classes = new ArrayList<>();
+
+        int size() {
+            return op.size();
+        }
+
+        int add(int opcode, int a, int b) throws UnsupportedRegexException {
+            if (op.size() >= MAX_PROGRAM_SIZE) {
+                throw new UnsupportedRegexException("pattern too large");
+            }
+            op.add(opcode);
+            arg1.add(a);
+            arg2.add(b);
+            return op.size() - 1;
+        }
+
+        void emit(Node node) throws UnsupportedRegexException {
+            switch (node.type) {
+                case Node.CHAR:
+                    add(OP_CHAR, node.value, 0);
+                    break;
+                case Node.CLASS:
+                    classes.add(node.charClass);
+                    add(OP_CLASS, classes.size() - 1, 0);
+                    break;
+                case Node.ANY:
+                    add(OP_ANY, 0, 0);
+                    break;
+                case Node.BOL:
+                    add(OP_BOL, 0, 0);
+                    break;
+                case Node.EOL:
+                    add(OP_EOL, 0, 0);
+                    break;
+                case Node.CAT:
+                    for (Node child : node.children) {
+                        emit(child);
+                    }
+                    break;
+                case Node.ALT: {
+                    int split = add(OP_SPLIT, 0, 0);
+                    arg1.set(split, size());
+                    emit(node.children.get(0));
+                    int jmp = add(OP_JMP, 0, 0);
+                    arg2.set(split, size());
+                    emit(node.children.get(1));
+                    arg1.set(jmp, size());
+                    break;
+                }
+                case Node.STAR: {
+                    int split = add(OP_SPLIT, 0, 0);
+                    arg1.set(split, size());
+                    emit(node.children.get(0));
+                    add(OP_JMP, split, 0);
+                    arg2.set(split, size());
+                    break;
+                }
+                case Node.PLUS: {
+                    int start = size();
+                    emit(node.children.get(0));
+                    int split = add(OP_SPLIT, start, 0);
+                    arg2.set(split, size());
+                    break;
+                }
+                case Node.QUEST: {
+                    int split = add(OP_SPLIT, 0, 0);
+                    arg1.set(split, size());
+                    emit(node.children.get(0));
+                    arg2.set(split, size());
+                    break;
+                }
+                default:
+                    throw new UnsupportedRegexException("node type " + node.type);
+            }
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazemeter.jmeter.plugins.bulksampler;
+
+import java.util.Arrays;
+
+/**
+ * Precompiled literal substring matcher using the Boyer-Moore-Horspool algorithm.
+ *
+ * <p>For case-insensitive matching the pattern is folded once at compile time and
+ * each candidate character is folded on the fly while scanning, so matching never
+ * allocates (unlike {@code text.toLowerCase().contains(pattern.toLowerCase())}).
+ *
+ * <p>Instances are immutable and safe to share between threads.
+ */
+public final class LiteralMatcher implements TextMatcher {
+
+    /** Size of the bad-character shift table; characters are bucketed by their low byte */
+    private static final int SHIFT_TABLE_SIZE = 256;
+
+    private final String literal;
+    private final char[] folded;
+    private final boolean caseSensitive;
+    private final int[] shift;
+
+    private LiteralMatcher(String literal, boolean caseSensitive) {
+        this.literal = literal;
+        this.caseSensitive = caseSensitive;
+        this.folded = new char[literal.length()];
+        for (int i = 0; i < folded.length; i++) {
+            folded[i] = fold(literal.charAt(i));
+        }
+
+        // Bad-character table. Characters sharing a bucket keep the smallest shift,
+        // which is always safe (it can only make the scan advance less far).
+        int m = folded.length;
+        this.shift = new int[SHIFT_TABLE_SIZE];
+        Arrays.fill(shift, Math.max(m, 1));
+        for (int i = 0; i < m - 1; i++) {
+            shift[folded[i] & (SHIFT_TABLE_SIZE - 1)] = m - 1 - i;
+        }
+    }
+
+    /**
+     * Compiles a literal pattern.
+     *
+     * @param literal The text to search for
+     * @param caseSensitive Whether matching should be case-sensitive
+     * @return The compiled matcher
+     */
+    public static LiteralMatcher compile(String literal, boolean caseSensitive) {
+        if (literal == null) {
+            throw new IllegalArgumentException("literal must not be null");
+        }
+        return new LiteralMatcher(literal, caseSensitive);
+    }
+
+    /**
+     * Returns the literal this matcher was compiled from.
+     *
+     * @return The original (unfolded) literal
+     */
+    public String getLiteral() {
+        return literal;
+    }
+
+    /**
+     * Returns whether this matcher compares characters case-sensitively.
+     *
+     * @return true if case-sensitive
+     */
+    public boolean isCaseSensitive() {
+        return caseSensitive;
+    }
+
+    /**
+     * Checks whether the text contains the literal.
+     *
+     * @param text The text to scan (null never matches)
+     * @return true if the literal occurs in the text
+     */
+    @Override
+    public boolean find(CharSequence text) {
+        return indexIn(text, 0) >= 0;
+    }
+
+    /**
+     * Finds the first occurrence of the literal at or after the given offset.
+     *
+     * @param text The text to scan (null never matches)
+     * @param fromIndex The offset to start scanning from
+     * @return The index of the first occurrence, or -1 if there is none
+     */
+    public int indexIn(CharSequence text, int fromIndex) {
+        if (text == null) {
+            return -1;
+        }
+        int m = folded.length;
+        int n = text.length();
+        int start = Math.max(fromIndex, 0);
+        if (m == 0) {
+            return start <= n ? start : -1;
+        }
+
+        int last = m - 1;
+        int pos = start;
+        while (pos <= n - m) {
+            char c = fold(text.charAt(pos + last));
+            if (c == folded[last]) {
+                int j = last - 1;
+                while (j >= 0 && fold(text.charAt(pos + j)) == folded[j]) {
+                    j--;
+                }
+                if (j < 0) {
+                    return pos;
+                }
+            }
+            pos += shift[c & (SHIFT_TABLE_SIZE - 1)];
+        }
+        return -1;
+    }
+
+    private char fold(char c) {
+        return caseSensitive ? c : foldCase(c);
+    }
+
+    /**
+     * Folds a character for case-insensitive comparison. Uses the same upper-then-lower
+     * mapping as {@link String#regionMatches(boolean, int, String, int, int)} with ignoreCase.
+     */
+    static char foldCase(char c) {
+        if (c < 0x80) {
+            return (c >= 'A' && c <= 'Z') ? (char) (c + ('a' - 'A')) : c;
+        }
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    @Override
+    public String toString() {
+        return "LiteralMatcher[" + literal + (caseSensitive ? "" : ", ignoreCase") + "]";
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazemeter.jmeter.plugins.bulksampler;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+
+/**
+ * Wall-clock time and allocated bytes per phase of one preview or apply.
+ *
+ * <p>Phases may run on different threads (the scan on a background worker, mutations and
+ * the GUI refresh on the event dispatch thread); each measurement is taken on the thread
+ * doing the work, using that thread's allocation counter. Allocations are reported only
+ * when the JVM supports per-thread allocation counting.
+ *
+ * <p>Instances are safe to record into from several threads.
+ */
+public final class PhaseTimings {
+
+    /**
+     * The phases of a bulk operation.
+     */
+    public enum Phase {
+        /**
+         * Walking the tree into a plan snapshot and scanning its samplers, including scope
+         * checks. Allocations of the snapshot and the scan are counted here, as per-sampler
+         * allocation counters would cost more than the work they measure. Header and rule
+         * file searches match while walking the tree and are counted here entirely.
+         */
+        TRAVERSAL("traversal"),
+        /** Building or validating the cached searchable text of each sampler for a snapshot */
+        SEARCHABLE_TEXT("extractUri"),
+        /** Evaluating the pattern against the searchable text */
+        MATCHING("match"),
+        /** Changing the tree, summed over all batches */
+        MUTATION("mutation"),
+        /** Repainting and refreshing the current element's GUI once the apply is done */
+        REFRESH("refresh");
+
+        private final String label;
+
+        Phase(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    private static final com.sun.management.ThreadMXBean THREAD_BEAN = allocationBean();
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private final long[] nanos = new long[PHASES.length];
+    private final long[] allocatedBytes = new long[PHASES.length];
+    private final boolean[] recorded = new boolean[PHASES.length];
+
+    /**
+     * A point in time on the current thread, taken before a phase starts.
+     *
+     * @param nanos The {@link System#nanoTime()} value
+     * @param allocatedBytes The bytes the thread had allocated, or -1 if unknown
+     */
+    public record Mark(long nanos, long allocatedBytes) {
+    }
+
+    /**
+     * Returns a mark for the current thread.
+     *
+     * @return The mark
+     */
+    public static Mark mark() {
+        return new Mark(System.nanoTime(), allocatedBytes());
+    }
+
+    /**
+     * Returns the bytes allocated so far by the current thread.
+     *
+     * @return The allocated bytes, or -1 if the JVM cannot count them
+     */
+    public static long allocatedBytes() {
+        return THREAD_BEAN != null ? THREAD_BEAN.getCurrentThreadAllocatedBytes() : -1;
+    }
+
+    /**
+     * Returns whether allocated bytes are counted.
+     *
+     * @return true if the JVM supports per-thread allocation counting
+     */
+    public static boolean isAllocationCounted() {
+        return THREAD_BEAN != null;
+    }
+
+    /**
+     * Records the time and allocations of a phase since a mark taken on the current thread.
+     *
+     * @param phase The phase
+     * @param since The mark taken when the phase started
+     */
+    public void add(Phase phase, Mark since) {
+        long elapsed = System.nanoTime() - since.nanos();
+        long bytes = since.allocatedBytes() >= 0 ? allocatedBytes() - since.allocatedBytes() : 0;
+        add(phase, elapsed, bytes);
+    }
+
+    /**
+     * Records time and allocations for a phase.
+     *
+     * @param phase The phase
+     * @param elapsedNanos The elapsed time in nanoseconds
+     * @param bytes The allocated bytes (0 if not measured)
+     */
+    public synchronized void add(Phase phase, long elapsedNanos, long bytes) {
+        int i = phase.ordinal();
+        nanos[i] += elapsedNanos;
+        allocatedBytes[i] += bytes;
+        recorded[i] = true;
+    }
+
+    /**
+     * Adds another set of timings to this one.
+     *
+     * @param other The timings to add
+     */
+    public void addAll(PhaseTimings other) {
+        for (Phase phase : PHASES) {
+            if (other.isRecorded(phase)) {
+                add(phase, other.getNanos(phase), other.getAllocatedBytes(phase));
+            }
+        }
+    }
+
+    public synchronized long getNanos(Phase phase) {
+        return nanos[phase.ordinal()];
+    }
+
+    public synchronized long getAllocatedBytes(Phase phase) {
+        return allocatedBytes[phase.ordinal()];
+    }
+
+    /**
+     * Returns whether a phase ran at all (a reused preview, for instance, skips the scan).
+     *
+     * @param phase The phase
+     * @return true if the phase was recorded
+     */
+    public synchronized boolean isRecorded(Phase phase) {
+        return recorded[phase.ordinal()];
+    }
+
+    /**
+     * Returns the time summed over all phases.
+     *
+     * @return The total in nanoseconds
+     */
+    public synchronized long getTotalNanos() {
+        long total = 0;
+        for (long phaseNanos : nanos) {
+            total += phaseNanos;
+        }
+        return total;
+    }
+
+    /**
+     * Returns the bytes allocated over all phases.
+     *
+     * @return The total in bytes
+     */
+    public synchronized long getTotalAllocatedBytes() {
+        long total = 0;
+        for (long bytes : allocatedBytes) {
+            total += bytes;
+        }
+        return total;
+    }
+
+    /**
+     * Returns a one-line summary of the recorded phases, e.g.
+     * {@code traversal 1.2 ms, extractUri 3.4 ms, match 0.8 ms; allocated 2.1 MB}.
+     *
+     * @return The summary, or "no phases recorded"
+     */
+    public synchronized String summary() {
+        StringBuilder summary = new StringBuilder();
+        for (Phase phase : PHASES) {
+            if (recorded[phase.ordinal()]) {
+                if (summary.length() > 0) {
+                    summary.append(", ");
+                }
+                summary.append(phase.label).append(' ').append(formatMillis(nanos[phase.ordinal()]));
+            }
+        }
+        if (summary.length() == 0) {
+            return "no phases recorded";
+        }
+        if (isAllocationCounted()) {
+            summary.append("; allocated ").append(formatBytes(getTotalAllocatedBytes()));
+        }
+        return summary.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "PhaseTimings[" + summary() + "]";
+    }
+
+    static String formatMillis(long nanos) {
+        return String.format(Locale.ROOT, "%.1f ms", nanos / 1_000_000.0);
+    }
+
+    static String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        if (bytes < 1024 * 1024) {
+            return String.format(Locale.ROOT, "%.1f KB", bytes / 1024.0);
+        }
+        return String.format(Locale.ROOT, "%.1f MB", bytes / (1024.0 * 1024.0));
+    }
+
+    /**
+     * Returns the HotSpot thread bean if it can count per-thread allocations, enabling the
+     * counter if needed.
+     */
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        try {
+            if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                    && bean.isThreadAllocatedMemorySupported()) {
+                if (!bean.isThreadAllocatedMemoryEnabled()) {
+                    bean.setThreadAllocatedMemoryEnabled(true);
+                }
+                return bean;
+            }
+        } catch (UnsupportedOperationException | SecurityException e) {
+            // Allocations are then not reported
+        }
+        return null;
+    }
+}
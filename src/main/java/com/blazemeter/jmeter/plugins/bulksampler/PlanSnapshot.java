@@ -0,0 +1,507 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazemeter.jmeter.plugins.bulksampler;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.jmeter.control.Controller;
+import org.apache.jmeter.gui.tree.JMeterTreeNode;
+import org.apache.jmeter.protocol.http.control.HeaderManager;
+import org.apache.jmeter.protocol.http.sampler.HTTPSamplerBase;
+import org.apache.jmeter.samplers.Sampler;
+import org.apache.jmeter.testelement.TestElement;
+import org.apache.jmeter.testelement.TestPlan;
+import org.apache.jmeter.threads.AbstractThreadGroup;
+
+/**
+ * An immutable, compact copy of a test plan tree for scanning off the event dispatch thread.
+ *
+ * <p>Swing tree nodes and test elements must only be read on the event dispatch thread,
+ * so a snapshot copies what the searches need into parallel arrays in one pre-order walk
+ * there: parent indices, subtree extents, element type codes, enabled bits and names for
+ * every node, and protocol, domain, port, path, method and searchable text for every sampler.
+ * Repeated strings (domains, protocols, methods, common paths and names) are shared.
+ *
+ * <p>Nodes are identified by their pre-order index ("handle"), samplers by their position
+ * among the samplers in tree order. {@link #getNode(int)} maps a handle back to its
+ * {@link JMeterTreeNode} for the apply, which again runs on the event dispatch thread.
+ *
+ * <p>A snapshot never changes after it is built, so any number of threads may read it
+ * without locking.
+ */
+public final class PlanSnapshot {
+
+    /** Element type codes, see {@link #getType(int)} */
+    public static final byte TYPE_OTHER = 0;
+    public static final byte TYPE_TEST_PLAN = 1;
+    public static final byte TYPE_THREAD_GROUP = 2;
+    public static final byte TYPE_CONTROLLER = 3;
+    public static final byte TYPE_SAMPLER = 4;
+    public static final byte TYPE_HTTP_SAMPLER = 5;
+    public static final byte TYPE_HEADER_MANAGER = 6;
+
+    private final long treeVersion;
+
+    // Per node, indexed by handle (pre-order position)
+    private final JMeterTreeNode[] nodes;
+    private final int[] parents;
+    private final int[] subtreeEnds;
+    private final byte[] types;
+    private final long[] enabledBits;
+    private final String[] names;
+
+    // Per sampler, indexed by sampler position
+    private final int[] samplerHandles;
+    private final String[] protocols;
+    private final String[] domains;
+    private final int[] ports;
+    private final String[] paths;
+    private final String[] methods;
+    private final String[] searchableTexts;
+
+    private PlanSnapshot(Builder builder, long treeVersion) {
+        int nodeCount = builder.nodeCount;
+        int samplerCount = builder.samplerCount;
+        this.treeVersion = treeVersion;
+        this.nodes = Arrays.copyOf(builder.nodes, nodeCount);
+        this.parents = Arrays.copyOf(builder.parents, nodeCount);
+        this.subtreeEnds = Arrays.copyOf(builder.subtreeEnds, nodeCount);
+        this.types = Arrays.copyOf(builder.types, nodeCount);
+        this.enabledBits = Arrays.copyOf(builder.enabledBits, (nodeCount + 63) >>> 6);
+        this.names = Arrays.copyOf(builder.names, nodeCount);
+        this.samplerHandles = Arrays.copyOf(builder.samplerHandles, samplerCount);
+        this.protocols = Arrays.copyOf(builder.protocols, samplerCount);
+        this.domains = Arrays.copyOf(builder.domains, samplerCount);
+        this.ports = Arrays.copyOf(builder.ports, samplerCount);
+        this.paths = Arrays.copyOf(builder.paths, samplerCount);
+        this.methods = Arrays.copyOf(builder.methods, samplerCount);
+        this.searchableTexts = Arrays.copyOf(builder.searchableTexts, samplerCount);
+    }
+
+    /**
+     * Builds a snapshot of a subtree in one walk. Must run on the event dispatch thread
+     * while the tree is shown in the GUI.
+     *
+     * @param root The root node, usually the tree model's root
+     * @param treeVersion The {@link SamplerIndex#getVersion() index version} of the tree
+     * @param texts Supplies the searchable text of a sampler node, e.g. from the index's cache
+     * @param timings Receives the traversal and searchable text times, or null; as in a
+     *        {@link SamplerQuery#run query scan}, the text is timed on a sample of the samplers
+     * @return The snapshot
+     */
+    static PlanSnapshot build(JMeterTreeNode root, long treeVersion, SearchableTextSource texts,
+            PhaseTimings timings) {
+        PhaseTimings.Mark start = timings != null ? PhaseTimings.mark() : null;
+        Builder builder = new Builder(texts, timings != null);
+        new TreeWalker().walk(root, builder::add);
+        builder.finish();
+        PlanSnapshot snapshot = new PlanSnapshot(builder, treeVersion);
+        if (timings != null) {
+            long buildNanos = System.nanoTime() - start.nanos();
+            long buildBytes = start.allocatedBytes() >= 0
+                ? PhaseTimings.allocatedBytes() - start.allocatedBytes() : 0;
+            long textNanos = 0;
+            if (builder.timedSamplers > 0) {
+                textNanos = Math.min((long) (builder.textNanos * ((double) builder.samplerCount / builder.timedSamplers)),
+                    buildNanos);
+            }
+            timings.add(PhaseTimings.Phase.SEARCHABLE_TEXT, textNanos, 0);
+            timings.add(PhaseTimings.Phase.TRAVERSAL, buildNanos - textNanos, buildBytes);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Supplies the searchable text of a sampler node while a snapshot is built.
+     */
+    @FunctionalInterface
+    interface SearchableTextSource {
+        String getSearchableText(JMeterTreeNode node);
+    }
+
+    /**
+     * Returns the index version the snapshot was taken at.
+     *
+     * @return The tree version
+     */
+    public long getTreeVersion() {
+        return treeVersion;
+    }
+
+    public int getNodeCount() {
+        return nodes.length;
+    }
+
+    public int getSamplerCount() {
+        return samplerHandles.length;
+    }
+
+    // ==================== Nodes ====================
+
+    /**
+     * Returns the tree node for a handle. Only use the node on the event dispatch thread.
+     *
+     * @param handle The node handle
+     * @return The tree node
+     */
+    public JMeterTreeNode getNode(int handle) {
+        return nodes[handle];
+    }
+
+    /**
+     * Returns the handle of a node's parent.
+     *
+     * @param handle The node handle
+     * @return The parent handle, or -1 for the snapshot root
+     */
+    public int getParent(int handle) {
+        return parents[handle];
+    }
+
+    /**
+     * Returns the end of a node's subtree: its descendants are the handles after it, up to
+     * (excluding) this one.
+     *
+     * @param handle The node handle
+     * @return The exclusive end handle of the subtree
+     */
+    public int getSubtreeEnd(int handle) {
+        return subtreeEnds[handle];
+    }
+
+    /**
+     * Returns the element type code of a node, one of the {@code TYPE_} constants.
+     *
+     * @param handle The node handle
+     * @return The type code
+     */
+    public byte getType(int handle) {
+        return types[handle];
+    }
+
+    public boolean isEnabled(int handle) {
+        return (enabledBits[handle >>> 6] & (1L << handle)) != 0;
+    }
+
+    public String getName(int handle) {
+        return names[handle];
+    }
+
+    /**
+     * Finds the handle of a node by identity. Runs in linear time; meant for the few nodes
+     * of a scope selection, not for per-sampler lookups.
+     *
+     * @param node The tree node
+     * @return The handle, or -1 if the node is not in the snapshot
+     */
+    public int findHandle(JMeterTreeNode node) {
+        for (int handle = 0; handle < nodes.length; handle++) {
+            if (nodes[handle] == node) {
+                return handle;
+            }
+        }
+        return -1;
+    }
+
+    // ==================== Samplers ====================
+
+    /**
+     * Returns the node handle of a sampler.
+     *
+     * @param position The sampler position, in tree order
+     * @return The node handle
+     */
+    public int getSamplerHandle(int position) {
+        return samplerHandles[position];
+    }
+
+    /**
+     * Returns the searchable text of a sampler, as {@link SamplerIndex#extractUri} builds it.
+     *
+     * @param position The sampler position
+     * @return The searchable text
+     */
+    public String getSearchableText(int position) {
+        return searchableTexts[position];
+    }
+
+    /**
+     * Returns the protocol of an HTTP sampler.
+     *
+     * @param position The sampler position
+     * @return The protocol, or null if the sampler is not an HTTP sampler
+     */
+    public String getProtocol(int position) {
+        return protocols[position];
+    }
+
+    /**
+     * Returns the domain of an HTTP sampler.
+     *
+     * @param position The sampler position
+     * @return The domain, or null if the sampler is not an HTTP sampler
+     */
+    public String getDomain(int position) {
+        return domains[position];
+    }
+
+    /**
+     * Returns the port of an HTTP sampler.
+     *
+     * @param position The sampler position
+     * @return The port, or 0 if the sampler is not an HTTP sampler
+     */
+    public int getPort(int position) {
+        return ports[position];
+    }
+
+    /**
+     * Returns the path of an HTTP sampler.
+     *
+     * @param position The sampler position
+     * @return The path, or null if the sampler is not an HTTP sampler
+     */
+    public String getPath(int position) {
+        return paths[position];
+    }
+
+    /**
+     * Returns the method of an HTTP sampler.
+     *
+     * @param position The sampler position
+     * @return The method, e.g. GET, or null if the sampler is not an HTTP sampler
+     */
+    public String getMethod(int position) {
+        return methods[position];
+    }
+
+    /**
+     * Returns the sampler's name.
+     *
+     * @param position The sampler position
+     * @return The name
+     */
+    public String getSamplerName(int position) {
+        return names[samplerHandles[position]];
+    }
+
+    /**
+     * Returns whether the sampler itself is enabled.
+     *
+     * @param position The sampler position
+     * @return true if enabled
+     */
+    public boolean isSamplerEnabled(int position) {
+        return isEnabled(samplerHandles[position]);
+    }
+
+    /**
+     * Resolves scope nodes to handle ranges, for {@link #isInScope}.
+     *
+     * @param scopeRoots Disjoint scope roots in tree order, as {@link SamplerIndex#normalizeScope} returns them
+     * @return Pairs of (start, exclusive end) handles in ascending order; null for the entire plan
+     */
+    public int[] scopeRanges(List<JMeterTreeNode> scopeRoots) {
+        if (scopeRoots == null || scopeRoots.isEmpty()) {
+            return null;
+        }
+        int[] ranges = new int[scopeRoots.size() * 2];
+        int count = 0;
+        for (JMeterTreeNode scopeRoot : scopeRoots) {
+            int handle = findHandle(scopeRoot);
+            if (handle >= 0) {
+                ranges[count++] = handle;
+                ranges[count++] = subtreeEnds[handle];
+            }
+        }
+        // Roots no longer in the plan select nothing
+        return Arrays.copyOf(ranges, count);
+    }
+
+    /**
+     * Checks whether a node lies within any of the scope ranges.
+     *
+     * @param handle The node handle
+     * @param ranges The ranges from {@link #scopeRanges}, or null for the entire plan
+     * @return true if the node is in scope
+     */
+    public static boolean isInScope(int handle, int[] ranges) {
+        if (ranges == null) {
+            return true;
+        }
+        // Ranges are few and sorted; a binary search would not pay off
+        for (int i = 0; i < ranges.length && ranges[i] <= handle; i += 2) {
+            if (handle < ranges[i + 1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static byte typeOf(TestElement element) {
+        if (element instanceof HTTPSamplerBase) {
+            return TYPE_HTTP_SAMPLER;
+        }
+        if (element instanceof Sampler) {
+            return TYPE_SAMPLER;
+        }
+        if (element instanceof HeaderManager) {
+            return TYPE_HEADER_MANAGER;
+        }
+        if (element instanceof AbstractThreadGroup) {
+            return TYPE_THREAD_GROUP;
+        }
+        if (element instanceof Controller) {
+            return TYPE_CONTROLLER;
+        }
+        if (element instanceof TestPlan) {
+            return TYPE_TEST_PLAN;
+        }
+        return TYPE_OTHER;
+    }
+
+    @Override
+    public String toString() {
+        return "PlanSnapshot[nodes=" + nodes.length + ", samplers=" + samplerHandles.length
+            + ", version=" + treeVersion + "]";
+    }
+
+    /**
+     * Growable arrays filled during the walk.
+     */
+    private static final class Builder {
+        private final SearchableTextSource texts;
+        private final boolean timing;
+        private final Map<String, String> strings = new HashMap<>();
+        private long textNanos;
+        private int timedSamplers;
+
+        private JMeterTreeNode[] nodes = new JMeterTreeNode[256];
+        private int[] parents = new int[256];
+        private int[] subtreeEnds = new int[256];
+        private byte[] types = new byte[256];
+        private long[] enabledBits = new long[4];
+        private String[] names = new String[256];
+        private int nodeCount;
+
+        private int[] samplerHandles = new int[64];
+        private String[] protocols = new String[64];
+        private String[] domains = new String[64];
+        private int[] ports = new int[64];
+        private String[] paths = new String[64];
+        private String[] methods = new String[64];
+        private String[] searchableTexts = new String[64];
+        private int samplerCount;
+
+        /** Handles of the nodes on the path to the current node, whose subtrees are still open */
+        private int[] open = new int[32];
+        private int openCount;
+
+        Builder(SearchableTextSource texts, boolean timing) {
+            this.texts = texts;
+            this.timing = timing;
+        }
+
+        boolean add(JMeterTreeNode node) {
+            int handle = nodeCount;
+            // Close the subtrees the walk has left: the parent is the innermost open
+            // node that is this node's parent in the tree
+            Object parentNode = node.getParent();
+            while (openCount > 0 && nodes[open[openCount - 1]] != parentNode) {
+                subtreeEnds[open[--openCount]] = handle;
+            }
+            if (handle == nodes.length) {
+                int capacity = handle * 2;
+                nodes = Arrays.copyOf(nodes, capacity);
+                parents = Arrays.copyOf(parents, capacity);
+                subtreeEnds = Arrays.copyOf(subtreeEnds, capacity);
+                types = Arrays.copyOf(types, capacity);
+                names = Arrays.copyOf(names, capacity);
+                enabledBits = Arrays.copyOf(enabledBits, (capacity + 63) >>> 6);
+            }
+            TestElement element = node.getTestElement();
+            byte type = typeOf(element);
+            nodes[handle] = node;
+            parents[handle] = openCount > 0 ? open[openCount - 1] : -1;
+            types[handle] = type;
+            names[handle] = share(element.getName());
+            if (element.isEnabled()) {
+                enabledBits[handle >>> 6] |= 1L << handle;
+            }
+            nodeCount++;
+
+            if (type == TYPE_SAMPLER || type == TYPE_HTTP_SAMPLER) {
+                addSampler(handle, node, element);
+            }
+
+            if (openCount == open.length) {
+                open = Arrays.copyOf(open, openCount * 2);
+            }
+            open[openCount++] = handle;
+            return true;
+        }
+
+        private void addSampler(int handle, JMeterTreeNode node, TestElement element) {
+            int position = samplerCount;
+            if (position == samplerHandles.length) {
+                int capacity = position * 2;
+                samplerHandles = Arrays.copyOf(samplerHandles, capacity);
+                protocols = Arrays.copyOf(protocols, capacity);
+                domains = Arrays.copyOf(domains, capacity);
+                ports = Arrays.copyOf(ports, capacity);
+                paths = Arrays.copyOf(paths, capacity);
+                methods = Arrays.copyOf(methods, capacity);
+                searchableTexts = Arrays.copyOf(searchableTexts, capacity);
+            }
+            samplerHandles[position] = handle;
+            if (element instanceof HTTPSamplerBase httpSampler) {
+                protocols[position] = share(httpSampler.getProtocol());
+                domains[position] = share(httpSampler.getDomain());
+                ports[position] = httpSampler.getPort();
+                paths[position] = share(httpSampler.getPath());
+                methods[position] = share(httpSampler.getMethod());
+            }
+            if (timing && (position + 1) % SamplerQuery.TIMING_SAMPLE_INTERVAL == 0) {
+                long textStart = System.nanoTime();
+                searchableTexts[position] = texts.getSearchableText(node);
+                textNanos += System.nanoTime() - textStart;
+                timedSamplers++;
+            } else {
+                searchableTexts[position] = texts.getSearchableText(node);
+            }
+            samplerCount++;
+        }
+
+        void finish() {
+            while (openCount > 0) {
+                subtreeEnds[open[--openCount]] = nodeCount;
+            }
+        }
+
+        private String share(String value) {
+            if (value == null) {
+                return null;
+            }
+            String shared = strings.putIfAbsent(value, value);
+            return shared != null ? shared : value;
+        }
+    }
+}
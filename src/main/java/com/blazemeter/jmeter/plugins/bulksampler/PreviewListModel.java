@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazemeter.jmeter.plugins.bulksampler;
+
+import java.util.function.IntFunction;
+
+import javax.swing.AbstractListModel;
+import javax.swing.JList;
+
+/**
+ * List model for the dialog's preview lists that formats rows on demand.
+ *
+ * <p>A result set is installed in one call, which fires a single
+ * {@code contentsChanged} event instead of one {@code intervalAdded} per row.
+ * Row text is produced by a formatter only when the list renders that row, so
+ * large result sets cost one small array rather than one string per match.
+ *
+ * <p>Must only be used on the event dispatch thread.
+ */
+public final class PreviewListModel extends AbstractListModel<String> {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final IntFunction<String> NO_ROWS = index -> {
+        throw new IndexOutOfBoundsException("No rows: " + index);
+    };
+
+    private transient IntFunction<String> formatter = NO_ROWS;
+    private int size;
+    private int widestRow = -1;
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public String getElementAt(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Row " + index + " of " + size);
+        }
+        return formatter.apply(index);
+    }
+
+    /**
+     * Replaces the rows of the list.
+     *
+     * @param size The number of rows
+     * @param formatter Formats the row at a given index
+     * @param widestRow The index of the longest row, or -1 if unknown
+     */
+    public void setRows(int size, IntFunction<String> formatter, int widestRow) {
+        int oldSize = this.size;
+        this.size = size;
+        this.formatter = formatter;
+        this.widestRow = widestRow;
+        int last = Math.max(oldSize, size) - 1;
+        if (last >= 0) {
+            fireContentsChanged(this, 0, last);
+        }
+    }
+
+    /**
+     * Removes all rows.
+     */
+    public void clear() {
+        setRows(0, NO_ROWS, -1);
+    }
+
+    /**
+     * Fixes the cell size of a list showing this model so it does not measure every row.
+     * All rows share one height, and the widest row sets the width; without a widest row
+     * the width is measured again.
+     *
+     * @param list The list displaying this model
+     */
+    public void applyCellSize(JList<String> list) {
+        list.clearSelection();
+        if (widestRow >= 0 && widestRow < size) {
+            list.setPrototypeCellValue(getElementAt(widestRow));
+        } else {
+            // Drop the previous rows' width; clearing the prototype alone keeps its fixed size.
+            // The fixed height stays, as every row is one line
+            list.setPrototypeCellValue(null);
+            list.setFixedCellWidth(-1);
+        }
+    }
+}
@@ -0,0 +1,549 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazemeter.jmeter.plugins.bulksampler;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.PatternSyntaxException;
+
+import org.apache.jmeter.gui.tree.JMeterTreeNode;
+import org.apache.jmeter.protocol.http.control.Header;
+import org.apache.jmeter.protocol.http.control.HeaderManager;
+import org.apache.jmeter.protocol.http.sampler.HTTPSamplerBase;
+import org.apache.jmeter.samplers.Sampler;
+import org.apache.jmeter.testelement.TestElement;
+import org.apache.jmeter.testelement.property.CollectionProperty;
+
+/**
+ * A compiled set of bulk edit rules, evaluated together in one traversal of the test plan.
+ *
+ * <p>Each rule pairs a pattern and its flags with an action; the action decides the target
+ * (samplers, or header rows for {@link Action#DELETE_HEADERS}). When several sampler rules
+ * match the same sampler, the winner is the rule with the highest {@code priority}, then
+ * the strongest action (delete over disable over enable), then the rule listed first.
+ * Sampler rules are kept in that order, so a sampler is decided by the first rule that
+ * matches it. Every rule reads the same searchable text, built once per sampler, and
+ * adjacent literal rules of equal precedence are searched together with one automaton. A header row is deleted if any header rule matches it.
+ *
+ * <p>Rule files are properties files with numbered rules:
+ * <pre>
+ * rule.1.action = delete
+ * rule.1.pattern = .png, .css, .js
+ * rule.1.multi = true
+ * rule.2.action = disable
+ * rule.2.pattern = /analytics/
+ * rule.2.priority = 10
+ * rule.3.action = delete-headers
+ * rule.3.pattern = ^(Cookie|Sec-.*)$
+ * rule.3.regex = true
+ * </pre>
+ * Besides {@code action} and {@code pattern}, a rule accepts {@code regex},
+ * {@code backtracking-regex}, {@code multi}, {@code case-sensitive}, {@code invert}
+ * (all false by default) and {@code priority} (0 by default). Sampler rule patterns may be
+ * scoped to one field, e.g. {@code domain:analytics.example.com} or {@code port:8000-8999}
+ * (see {@link SamplerPattern}).
+ *
+ * <p>A rule set is immutable and safe to share between threads.
+ */
+public final class RuleSet {
+
+    private static final String RULE_PREFIX = "rule.";
+    private static final Set<String> RULE_KEYS = Set.of("action", "pattern", "regex", "backtracking-regex",
+        "multi", "case-sensitive", "invert", "priority");
+
+    /**
+     * The actions a rule can take.
+     */
+    public enum Action {
+        DELETE("delete", BulkSamplerDialog.ActionType.DELETE),
+        DISABLE("disable", BulkSamplerDialog.ActionType.DISABLE),
+        ENABLE("enable", BulkSamplerDialog.ActionType.ENABLE),
+        DELETE_HEADERS("delete-headers", null);
+
+        private final String name;
+        private final BulkSamplerDialog.ActionType samplerAction;
+
+        Action(String name, BulkSamplerDialog.ActionType samplerAction) {
+            this.name = name;
+            this.samplerAction = samplerAction;
+        }
+
+        /**
+         * Returns the name used in rule files and on the command line.
+         *
+         * @return The action name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the sampler action.
+         *
+         * @return The sampler action, or null for header rules
+         */
+        public BulkSamplerDialog.ActionType getSamplerAction() {
+            return samplerAction;
+        }
+
+        /**
+         * Looks an action up by its name, ignoring case.
+         *
+         * @param name The action name
+         * @return The action
+         * @throws IllegalArgumentException if there is no such action
+         */
+        public static Action fromName(String name) {
+            for (Action action : values()) {
+                if (action.name.equals(name.trim().toLowerCase(Locale.ROOT))) {
+                    return action;
+                }
+            }
+            throw new IllegalArgumentException("unknown action: " + name);
+        }
+    }
+
+    /**
+     * One rule: what to match and what to do with it.
+     */
+    public static final class Rule {
+        private final String id;
+        private final Action action;
+        private final String pattern;
+        private final boolean invertMatch;
+        private final int priority;
+        /** The literals of a plain (not regex) sampler rule without field prefix, otherwise null */
+        private final List<String> literals;
+        private final boolean caseSensitive;
+        /** The pattern of a sampler rule, null for header rules */
+        private final SamplerPattern samplerPattern;
+        /** The header name matcher of a header rule, null for sampler rules */
+        private final TextMatcher matcher;
+
+        /**
+         * Creates and compiles a rule.
+         *
+         * @param id The rule identifier, used in messages
+         * @param action The action to take on matches
+         * @param pattern The pattern, matched against samplers (see {@link SamplerPattern}) or header names
+         * @param useRegex Whether to treat the pattern as a regular expression
+         * @param linearRegex Whether to prefer the linear-time regex engine
+         * @param multiPattern Whether the pattern is a comma-separated list of literals
+         * @param caseSensitive Whether matching should be case-sensitive
+         * @param invertMatch Whether the rule applies to what does not match
+         * @param priority The precedence among conflicting sampler rules (higher wins)
+         * @throws PatternSyntaxException if the regex pattern or a port list is invalid
+         */
+        public Rule(String id, Action action, String pattern, boolean useRegex, boolean linearRegex,
+                boolean multiPattern, boolean caseSensitive, boolean invertMatch, int priority) {
+            if (pattern == null || pattern.trim().isEmpty()) {
+                throw new IllegalArgumentException("rule " + id + " has no pattern");
+            }
+            this.id = id;
+            this.action = action;
+            this.pattern = pattern.trim();
+            this.invertMatch = invertMatch;
+            this.priority = priority;
+            this.caseSensitive = caseSensitive;
+            if (action.samplerAction != null) {
+                this.samplerPattern = SamplerPattern.compile(this.pattern, useRegex, multiPattern, caseSensitive,
+                    linearRegex);
+                this.matcher = null;
+                this.literals = useRegex || samplerPattern.getField() != null ? null
+                    : multiPattern ? AhoCorasickMatcher.splitPatterns(this.pattern) : List.of(this.pattern);
+            } else {
+                this.samplerPattern = null;
+                this.literals = null;
+                this.matcher = TextMatcher.compile(this.pattern, useRegex, multiPattern, caseSensitive, linearRegex);
+            }
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public Action getAction() {
+            return action;
+        }
+
+        public String getPattern() {
+            return pattern;
+        }
+
+        public int getPriority() {
+            return priority;
+        }
+
+        /**
+         * Checks whether a header rule applies to a header name, honouring inversion.
+         *
+         * @param headerName The header name
+         * @return true if the rule applies
+         */
+        public boolean matches(String headerName) {
+            return matcher.find(headerName) != invertMatch;
+        }
+
+        /**
+         * Checks whether a sampler rule applies to a sampler, honouring inversion.
+         *
+         * @param name The sampler name
+         * @param httpSampler The sampler if it is an HTTP sampler, otherwise null
+         * @return true if the rule applies
+         */
+        public boolean matchesSampler(String name, HTTPSamplerBase httpSampler) {
+            return samplerPattern.matches(name, httpSampler) != invertMatch;
+        }
+
+        /**
+         * Checks whether a sampler rule applies to a sampler whose searchable text is already built.
+         *
+         * @param text The sampler's {@link SamplerPattern#searchableText searchable text}, or null
+         *        if no rule of the set needs it
+         * @param name The sampler name
+         * @param httpSampler The sampler if it is an HTTP sampler, otherwise null
+         * @return true if the rule applies
+         */
+        boolean matchesSampler(CharSequence text, String name, HTTPSamplerBase httpSampler) {
+            return samplerPattern.matches(text, name, httpSampler) != invertMatch;
+        }
+
+        /**
+         * Checks whether this rule can share a literal search with another rule: both are plain
+         * literal sampler rules, not inverted, with the same action, priority and case sensitivity.
+         */
+        private boolean sharesSearchWith(Rule other) {
+            return literals != null && other.literals != null && !invertMatch && !other.invertMatch
+                && action == other.action && priority == other.priority && caseSensitive == other.caseSensitive;
+        }
+
+        @Override
+        public String toString() {
+            return "rule " + id + " (" + action.getName() + " " + pattern + ")";
+        }
+    }
+
+    /** Sampler rules in precedence order: priority, action strength, then file order */
+    private static final Comparator<Rule> PRECEDENCE = Comparator
+        .comparingInt((Rule rule) -> -rule.priority)
+        .thenComparing(rule -> rule.action);
+
+    private final List<Rule> rules;
+    private final Rule[] samplerRules;
+    /**
+     * For a run of adjacent sampler rules that {@link Rule#sharesSearchWith share a search}, one
+     * automaton over all their literals, stored at the run's first index; null elsewhere.
+     * A sampler none of the literals occur in skips the whole run.
+     */
+    private final AhoCorasickMatcher[] literalSearches;
+    private final int[] literalSearchEnds;
+    /** Whether any sampler rule matches the searchable text rather than one field */
+    private final boolean needsSearchableText;
+    private final Rule[] headerRules;
+
+    /**
+     * Creates a rule set.
+     *
+     * @param rules The rules, in file order
+     * @throws IllegalArgumentException if there are no rules
+     */
+    public RuleSet(List<Rule> rules) {
+        if (rules.isEmpty()) {
+            throw new IllegalArgumentException("the rule set is empty");
+        }
+        this.rules = List.copyOf(rules);
+        // A stable sort keeps file order among rules of equal precedence
+        this.samplerRules = rules.stream()
+            .filter(rule -> rule.action.samplerAction != null)
+            .sorted(PRECEDENCE)
+            .toArray(Rule[]::new);
+        this.literalSearches = new AhoCorasickMatcher[samplerRules.length];
+        this.literalSearchEnds = new int[samplerRules.length];
+        for (int start = 0; start < samplerRules.length; ) {
+            int end = start + 1;
+            while (end < samplerRules.length && samplerRules[start].sharesSearchWith(samplerRules[end])) {
+                end++;
+            }
+            if (end - start > 1) {
+                List<String> literals = new ArrayList<>();
+                for (int i = start; i < end; i++) {
+                    literals.addAll(samplerRules[i].literals);
+                }
+                literalSearches[start] = AhoCorasickMatcher.compile(literals, samplerRules[start].caseSensitive);
+                literalSearchEnds[start] = end;
+            }
+            start = end;
+        }
+        this.needsSearchableText = Arrays.stream(samplerRules)
+            .anyMatch(rule -> rule.samplerPattern.getField() == null);
+        this.headerRules = rules.stream()
+            .filter(rule -> rule.action == Action.DELETE_HEADERS)
+            .toArray(Rule[]::new);
+    }
+
+    /**
+     * Loads and compiles a rule file.
+     *
+     * @param file The properties file
+     * @return The rule set
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file content is invalid
+     * @throws PatternSyntaxException if a regex pattern is invalid
+     */
+    public static RuleSet load(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        return parse(properties);
+    }
+
+    /**
+     * Compiles rules from properties in the rule file format.
+     *
+     * @param properties The rule properties
+     * @return The rule set
+     * @throws IllegalArgumentException if a property is invalid
+     * @throws PatternSyntaxException if a regex pattern is invalid
+     */
+    public static RuleSet parse(Properties properties) {
+        // Numeric ids sort numerically, so rule.10 comes after rule.9
+        Map<String, Map<String, String>> rulesById = new TreeMap<>(Comparator
+            .comparing((String id) -> !id.chars().allMatch(Character::isDigit))
+            .thenComparingInt(String::length)
+            .thenComparing(Comparator.naturalOrder()));
+        for (String key : properties.stringPropertyNames()) {
+            int dot = key.indexOf('.', RULE_PREFIX.length());
+            if (!key.startsWith(RULE_PREFIX) || dot < 0) {
+                throw new IllegalArgumentException("unexpected key: " + key);
+            }
+            String id = key.substring(RULE_PREFIX.length(), dot);
+            String name = key.substring(dot + 1);
+            if (!RULE_KEYS.contains(name)) {
+                throw new IllegalArgumentException("unknown rule setting: " + key);
+            }
+            rulesById.computeIfAbsent(id, i -> new TreeMap<>()).put(name, properties.getProperty(key).trim());
+        }
+
+        List<Rule> rules = new ArrayList<>(rulesById.size());
+        for (Map.Entry<String, Map<String, String>> entry : rulesById.entrySet()) {
+            String id = entry.getKey();
+            Map<String, String> settings = entry.getValue();
+            String action = settings.get("action");
+            if (action == null) {
+                throw new IllegalArgumentException("rule " + id + " has no action");
+            }
+            boolean backtracking = flag(settings, "backtracking-regex", id);
+            rules.add(new Rule(id, Action.fromName(action), settings.get("pattern"),
+                flag(settings, "regex", id) || backtracking, !backtracking,
+                flag(settings, "multi", id), flag(settings, "case-sensitive", id),
+                flag(settings, "invert", id), priority(settings, id)));
+        }
+        return new RuleSet(rules);
+    }
+
+    private static boolean flag(Map<String, String> settings, String name, String id) {
+        String value = settings.get(name);
+        if (value == null || value.isEmpty() || value.equalsIgnoreCase("false")) {
+            return false;
+        }
+        if (value.equalsIgnoreCase("true")) {
+            return true;
+        }
+        throw new IllegalArgumentException("rule " + id + ": " + name + " must be true or false: " + value);
+    }
+
+    private static int priority(Map<String, String> settings, String id) {
+        String value = settings.get("priority");
+        try {
+            return value == null || value.isEmpty() ? 0 : Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("rule " + id + ": priority must be a number: " + value);
+        }
+    }
+
+    /**
+     * Returns the rules in file order.
+     *
+     * @return The rules
+     */
+    public List<Rule> getRules() {
+        return rules;
+    }
+
+    public boolean hasSamplerRules() {
+        return samplerRules.length > 0;
+    }
+
+    public boolean hasHeaderRules() {
+        return headerRules.length > 0;
+    }
+
+    /**
+     * Decides a sampler's fate, building its searchable text once for all rules.
+     *
+     * @param name The sampler name
+     * @param httpSampler The sampler if it is an HTTP sampler, otherwise null
+     * @return The winning rule, or null if no sampler rule applies
+     */
+    public Rule decideSampler(String name, HTTPSamplerBase httpSampler) {
+        return decideSampler(needsSearchableText ? SamplerPattern.searchableText(name, httpSampler) : null,
+            name, httpSampler);
+    }
+
+    /**
+     * Decides a sampler's fate, given its searchable text. The text is built once per sampler
+     * and shared by every rule.
+     *
+     * @param text The sampler's {@link SamplerPattern#searchableText searchable text}; may be null
+     *        if {@link #needsSearchableText()} is false
+     * @param name The sampler name
+     * @param httpSampler The sampler if it is an HTTP sampler, otherwise null
+     * @return The winning rule, or null if no sampler rule applies
+     */
+    public Rule decideSampler(CharSequence text, String name, HTTPSamplerBase httpSampler) {
+        for (int i = 0; i < samplerRules.length; i++) {
+            AhoCorasickMatcher literalSearch = literalSearches[i];
+            if (literalSearch != null && !literalSearch.find(text)) {
+                i = literalSearchEnds[i] - 1;
+                continue;
+            }
+            if (samplerRules[i].matchesSampler(text, name, httpSampler)) {
+                return samplerRules[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns whether deciding a sampler needs its searchable text, i.e. some sampler rule has
+     * no field prefix.
+     *
+     * @return true if {@link #decideSampler(CharSequence, String, HTTPSamplerBase)} reads the text
+     */
+    public boolean needsSearchableText() {
+        return needsSearchableText;
+    }
+
+    /**
+     * Checks whether a header row is deleted.
+     *
+     * @param headerName The header name
+     * @return true if any header rule applies
+     */
+    public boolean deletesHeader(String headerName) {
+        for (Rule rule : headerRules) {
+            if (rule.matches(headerName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Decides every sampler and Header Manager within scope in one pre-order traversal.
+     * The subtree of a deleted sampler is not visited, as it goes with the sampler.
+     * Only reads the tree, so it may run off the event dispatch thread while the plan is locked.
+     *
+     * @param rootNode The test plan root node
+     * @param scopeNodes The subtrees to evaluate (null or empty for the entire test plan)
+     * @return The changes, in tree order
+     */
+    public List<Change> evaluate(JMeterTreeNode rootNode, List<JMeterTreeNode> scopeNodes) {
+        List<Change> changes = new ArrayList<>();
+        TreeWalker walker = new TreeWalker();
+        TreeWalker.Visitor visitor = node -> collectChange(node, changes);
+        List<JMeterTreeNode> scopeRoots = SamplerIndex.normalizeScope(scopeNodes);
+        if (scopeRoots.isEmpty()) {
+            walker.walk(rootNode, visitor);
+        } else {
+            for (JMeterTreeNode scopeNode : scopeRoots) {
+                walker.walk(scopeNode, visitor);
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Decides one node.
+     *
+     * @return false if the node is a deleted sampler, whose subtree need not be visited
+     */
+    private boolean collectChange(JMeterTreeNode node, List<Change> changes) {
+        TestElement element = node.getTestElement();
+        if (element instanceof Sampler && samplerRules.length > 0) {
+            Rule rule = decideSampler(element.getName(),
+                element instanceof HTTPSamplerBase httpSampler ? httpSampler : null);
+            if (rule != null) {
+                changes.add(new Change(node, rule, null));
+                if (rule.action == Action.DELETE) {
+                    return false;
+                }
+            }
+        } else if (element instanceof HeaderManager headerManager && headerRules.length > 0) {
+            CollectionProperty headers = headerManager.getHeaders();
+            int[] rows = new int[headers.size()];
+            int count = 0;
+            for (int i = 0; i < headers.size(); i++) {
+                if (headers.get(i).getObjectValue() instanceof Header header && deletesHeader(header.getName())) {
+                    rows[count++] = i;
+                }
+            }
+            if (count > 0) {
+                changes.add(new Change(node, headerRules[0], Arrays.copyOf(rows, count)));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A decided change to one node.
+     *
+     * @param node The sampler or Header Manager node
+     * @param rule The deciding rule (for header rows, the first header rule)
+     * @param headerRows For a Header Manager, the rows to delete in ascending order; null for a sampler
+     */
+    public record Change(JMeterTreeNode node, Rule rule, int[] headerRows) {
+
+        /**
+         * Returns the number of samplers or header rows this change affects.
+         *
+         * @return 1 for a sampler, the row count for a Header Manager
+         */
+        public int size() {
+            return headerRows != null ? headerRows.length : 1;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "RuleSet" + rules;
+    }
+}
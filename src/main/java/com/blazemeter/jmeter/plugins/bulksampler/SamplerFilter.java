@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazemeter.jmeter.plugins.bulksampler;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.PatternSyntaxException;
+
+import org.apache.jmeter.config.ConfigTestElement;
+import org.apache.jmeter.engine.StandardJMeterEngine;
+import org.apache.jmeter.engine.util.NoConfigMerge;
+import org.apache.jmeter.samplers.Sampler;
+import org.apache.jmeter.testelement.TestElement;
+import org.apache.jmeter.testelement.TestStateListener;
+import org.apache.jmeter.util.JMeterUtils;
+import org.apache.jorphan.collections.HashTree;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Test element that removes samplers from a running test without editing the plan.
+ *
+ * <p>At test start the pattern is read from a JMeter property ({@code bulk.disable} by
+ * default, e.g. {@code jmeter -n -t plan.jmx -Jbulk.disable=/analytics/}), compiled once
+ * and matched against the same sampler text the Bulk Sampler Manager searches, or against
+ * one field with a prefix such as {@code domain:} (see {@link SamplerPattern}). Matching
+ * samplers and their children are pruned from the executable tree before any thread
+ * group starts, and the filter then removes itself, so nothing of it is left to run
+ * per iteration.
+ *
+ * <p>JMeter does not hand the tree to test listeners, so the filter reads it from the
+ * private {@code engine} and {@code test} fields of {@link StandardJMeterEngine}, as laid
+ * out in JMeter 5.6.3, the version this is tested with. If that is not possible the test
+ * runs unchanged and a warning is logged.
+ */
+public class SamplerFilter extends ConfigTestElement implements TestStateListener, NoConfigMerge {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger log = LoggerFactory.getLogger(SamplerFilter.class);
+
+    /** The JMeter property read when none is configured */
+    public static final String DEFAULT_PATTERN_PROPERTY = "bulk.disable";
+
+    private static final String PATTERN_PROPERTY = "SamplerFilter.patternProperty";
+    private static final String USE_REGEX = "SamplerFilter.useRegex";
+    private static final String MULTI_PATTERN = "SamplerFilter.multiPattern";
+    private static final String CASE_SENSITIVE = "SamplerFilter.caseSensitive";
+
+    /**
+     * Returns the name of the JMeter property holding the pattern.
+     *
+     * @return The property name
+     */
+    public String getPatternProperty() {
+        return getPropertyAsString(PATTERN_PROPERTY, DEFAULT_PATTERN_PROPERTY);
+    }
+
+    public void setPatternProperty(String propertyName) {
+        setProperty(PATTERN_PROPERTY, propertyName, DEFAULT_PATTERN_PROPERTY);
+    }
+
+    public boolean isUseRegex() {
+        return getPropertyAsBoolean(USE_REGEX, false);
+    }
+
+    public void setUseRegex(boolean useRegex) {
+        setProperty(USE_REGEX, useRegex, false);
+    }
+
+    public boolean isMultiPattern() {
+        return getPropertyAsBoolean(MULTI_PATTERN, false);
+    }
+
+    public void setMultiPattern(boolean multiPattern) {
+        setProperty(MULTI_PATTERN, multiPattern, false);
+    }
+
+    public boolean isCaseSensitive() {
+        return getPropertyAsBoolean(CASE_SENSITIVE, false);
+    }
+
+    public void setCaseSensitive(boolean caseSensitive) {
+        setProperty(CASE_SENSITIVE, caseSensitive, false);
+    }
+
+    @Override
+    public void testStarted() {
+        String propertyName = getPatternProperty().trim();
+        String patternText = JMeterUtils.getProperty(propertyName);
+        if (patternText == null || patternText.isBlank()) {
+            log.info("Property {} not set, no samplers filtered", propertyName);
+            return;
+        }
+
+        SamplerPattern pattern;
+        try {
+            pattern = SamplerPattern.compile(patternText, isUseRegex(), isMultiPattern(), isCaseSensitive(), true);
+        } catch (PatternSyntaxException e) {
+            log.error("Invalid pattern in property {}, no samplers filtered: {}", propertyName, e.getMessage());
+            return;
+        }
+
+        HashTree testTree = findRunningTestTree();
+        if (testTree == null) {
+            return;
+        }
+        int pruned = prune(testTree, pattern, this);
+        log.info("Pruned {} sampler(s) matching '{}' from the test", pruned, patternText);
+    }
+
+    @Override
+    public void testStarted(String host) {
+        testStarted();
+    }
+
+    @Override
+    public void testEnded() {
+        // Nothing to undo, the pruned tree is discarded with the run
+    }
+
+    @Override
+    public void testEnded(String host) {
+        testEnded();
+    }
+
+    /**
+     * Removes matching samplers, with their subtrees, and the given filter element from
+     * a test tree. Other elements are kept and searched recursively.
+     *
+     * @param tree The tree to prune in place
+     * @param pattern The pattern tested against each sampler
+     * @param filter The filter element to drop from the tree, or null
+     * @return The number of samplers removed
+     */
+    static int prune(HashTree tree, SamplerPattern pattern, TestElement filter) {
+        int pruned = 0;
+        List<Object> removals = new ArrayList<>();
+        for (Object key : tree.list()) {
+            if (key == filter) {
+                removals.add(key);
+            } else if (key instanceof Sampler && key instanceof TestElement element
+                    && pattern.matches(element)) {
+                removals.add(key);
+                pruned++;
+            } else {
+                pruned += prune(tree.getTree(key), pattern, filter);
+            }
+        }
+        for (Object key : removals) {
+            tree.remove(key);
+        }
+        return pruned;
+    }
+
+    /**
+     * Returns the tree of the test being started. Test listeners are notified before the
+     * engine copies thread groups out of this tree, so changes made here take effect.
+     *
+     * @return The running test tree, or null if it cannot be reached
+     */
+    static HashTree findRunningTestTree() {
+        try {
+            Field engineField = StandardJMeterEngine.class.getDeclaredField("engine");
+            engineField.setAccessible(true);
+            Object engine = engineField.get(null);
+            if (engine == null) {
+                log.warn("No running JMeter engine found, no samplers filtered");
+                return null;
+            }
+            Field testField = StandardJMeterEngine.class.getDeclaredField("test");
+            testField.setAccessible(true);
+            return (HashTree) testField.get(engine);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.warn("Cannot access the running test tree, no samplers filtered", e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazemeter.jmeter.plugins.bulksampler;
+
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+
+import javax.swing.BorderFactory;
+import javax.swing.Box;
+import javax.swing.BoxLayout;
+import javax.swing.JCheckBox;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JTextField;
+
+import org.apache.jmeter.config.gui.AbstractConfigGui;
+import org.apache.jmeter.testelement.TestElement;
+
+/**
+ * Config element panel for {@link SamplerFilter}, listed under Add &gt; Config Element.
+ */
+public class SamplerFilterGui extends AbstractConfigGui {
+
+    private static final long serialVersionUID = 1L;
+
+    private JTextField patternPropertyField;
+    private JCheckBox useRegexCheckBox;
+    private JCheckBox multiPatternCheckBox;
+    private JCheckBox caseSensitiveCheckBox;
+
+    public SamplerFilterGui() {
+        initComponents();
+    }
+
+    @Override
+    public String getStaticLabel() {
+        return "Bulk Sampler Filter";
+    }
+
+    @Override
+    public String getLabelResource() {
+        return getClass().getSimpleName();
+    }
+
+    @Override
+    public TestElement createTestElement() {
+        SamplerFilter filter = new SamplerFilter();
+        modifyTestElement(filter);
+        return filter;
+    }
+
+    @Override
+    public void modifyTestElement(TestElement element) {
+        configureTestElement(element);
+        if (element instanceof SamplerFilter filter) {
+            filter.setPatternProperty(patternPropertyField.getText().trim());
+            filter.setUseRegex(useRegexCheckBox.isSelected());
+            filter.setMultiPattern(multiPatternCheckBox.isSelected());
+            filter.setCaseSensitive(caseSensitiveCheckBox.isSelected());
+        }
+    }
+
+    @Override
+    public void configure(TestElement element) {
+        super.configure(element);
+        if (element instanceof SamplerFilter filter) {
+            patternPropertyField.setText(filter.getPatternProperty());
+            useRegexCheckBox.setSelected(filter.isUseRegex());
+            multiPatternCheckBox.setSelected(filter.isMultiPattern());
+            caseSensitiveCheckBox.setSelected(filter.isCaseSensitive());
+        }
+    }
+
+    @Override
+    public void clearGui() {
+        super.clearGui();
+        patternPropertyField.setText(SamplerFilter.DEFAULT_PATTERN_PROPERTY);
+        useRegexCheckBox.setSelected(false);
+        multiPatternCheckBox.setSelected(false);
+        caseSensitiveCheckBox.setSelected(false);
+    }
+
+    private void initComponents() {
+        setLayout(new BorderLayout(0, 5));
+        setBorder(makeBorder());
+        add(makeTitlePanel(), BorderLayout.NORTH);
+
+        JPanel settingsPanel = new JPanel();
+        settingsPanel.setLayout(new BoxLayout(settingsPanel, BoxLayout.Y_AXIS));
+        settingsPanel.setBorder(BorderFactory.createTitledBorder("Samplers to Remove at Test Start"));
+
+        JPanel propertyPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 5));
+        propertyPanel.add(new JLabel("Pattern property:"));
+        patternPropertyField = new JTextField(SamplerFilter.DEFAULT_PATTERN_PROPERTY, 20);
+        patternPropertyField.setToolTipText("JMeter property holding the URI pattern, e.g. -Jbulk.disable=/analytics/"
+            + " or -Jbulk.disable=domain:analytics.example.com");
+        propertyPanel.add(patternPropertyField);
+        settingsPanel.add(propertyPanel);
+
+        JPanel optionsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 5));
+        useRegexCheckBox = new JCheckBox("Use Regex");
+        multiPatternCheckBox = new JCheckBox("Multiple patterns (comma-separated)");
+        caseSensitiveCheckBox = new JCheckBox("Case sensitive");
+        optionsPanel.add(useRegexCheckBox);
+        optionsPanel.add(multiPatternCheckBox);
+        optionsPanel.add(caseSensitiveCheckBox);
+        settingsPanel.add(optionsPanel);
+
+        JPanel notePanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 5));
+        notePanel.add(new JLabel("Matching samplers are removed from the run only; the plan is not changed."
+            + " Nothing happens if the property is not set."));
+        settingsPanel.add(notePanel);
+        settingsPanel.add(Box.createVerticalGlue());
+
+        add(settingsPanel, BorderLayout.CENTER);
+    }
+}
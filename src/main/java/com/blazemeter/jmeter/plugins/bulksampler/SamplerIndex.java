@@ -0,0 +1,485 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazemeter.jmeter.plugins.bulksampler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+import javax.swing.tree.TreeNode;
+
+import org.apache.jmeter.gui.tree.JMeterTreeModel;
+import org.apache.jmeter.gui.tree.JMeterTreeNode;
+import org.apache.jmeter.protocol.http.sampler.HTTPSamplerBase;
+import org.apache.jmeter.samplers.Sampler;
+import org.apache.jmeter.testelement.TestElement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Flat, tree-ordered index of the samplers in a {@link JMeterTreeModel}.
+ *
+ * <p>The index is built once on first use and then kept up to date incrementally
+ * through a {@link TreeModelListener}, so previews and applies scan a flat array
+ * instead of recursing through Swing tree nodes and re-checking every element type.
+ *
+ * <p>Sampler fields edited in the JMeter GUI do not raise tree events, so each entry
+ * remembers the property values its searchable text was built from and rebuilds the
+ * text only when one of them has changed.
+ *
+ * <p>The index itself must only be used on the event dispatch thread. The entry arrays
+ * returned by {@link #snapshot()} may be scanned by background workers.
+ */
+public final class SamplerIndex implements TreeModelListener {
+
+    private static final Logger log = LoggerFactory.getLogger(SamplerIndex.class);
+
+    private static SamplerIndex instance;
+
+    /** Versions are unique across index instances, so a replaced model never reuses a stamp */
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    private final JMeterTreeModel treeModel;
+    private final List<Entry> entries = new ArrayList<>();
+    private final Map<JMeterTreeNode, Entry> entriesByNode = new IdentityHashMap<>();
+    /** Reused by every walk; the index is only used on one thread */
+    private final TreeWalker walker = new TreeWalker();
+    private boolean built;
+    private long version = VERSIONS.incrementAndGet();
+
+    private SamplerIndex(JMeterTreeModel treeModel) {
+        this.treeModel = treeModel;
+    }
+
+    /**
+     * Returns the index for the given tree model, creating and registering it on first use.
+     *
+     * @param treeModel The JMeter tree model
+     * @return The sampler index listening to that model
+     */
+    public static synchronized SamplerIndex forModel(JMeterTreeModel treeModel) {
+        if (instance == null || instance.treeModel != treeModel) {
+            if (instance != null) {
+                instance.treeModel.removeTreeModelListener(instance);
+            }
+            instance = new SamplerIndex(treeModel);
+            treeModel.addTreeModelListener(instance);
+            log.debug("Registered sampler index on tree model");
+        }
+        return instance;
+    }
+
+    /**
+     * Creates an index for a tree model without making it the shared instance. A hook for tests
+     * and tools that index plans outside the GUI, leaving the index of the open plan in place.
+     * An index is not thread-safe; each must be used by one thread at a time.
+     *
+     * @param treeModel The JMeter tree model
+     * @return A new sampler index listening to that model
+     */
+    static SamplerIndex unshared(JMeterTreeModel treeModel) {
+        SamplerIndex index = new SamplerIndex(treeModel);
+        treeModel.addTreeModelListener(index);
+        return index;
+    }
+
+    /**
+     * Returns the indexed samplers in tree (pre-order) order.
+     * The returned array is a copy and is safe to hand to another thread.
+     *
+     * @return The sampler entries
+     */
+    public Entry[] snapshot() {
+        ensureBuilt();
+        return entries.toArray(new Entry[0]);
+    }
+
+    /**
+     * Takes an immutable snapshot of the whole plan for scanning on other threads, reusing the
+     * index's cached searchable texts. Runs in time linear in the tree size.
+     *
+     * @param timings Receives the snapshot's traversal and searchable text times, or null
+     * @return The plan snapshot, stamped with the current {@link #getVersion() version}
+     */
+    public PlanSnapshot planSnapshot(PhaseTimings timings) {
+        if (timings != null && !built) {
+            PhaseTimings.Mark rebuildStart = PhaseTimings.mark();
+            ensureBuilt();
+            timings.add(PhaseTimings.Phase.TRAVERSAL, rebuildStart);
+        } else {
+            ensureBuilt();
+        }
+        JMeterTreeNode root = (JMeterTreeNode) treeModel.getRoot();
+        return PlanSnapshot.build(root, version, node -> {
+            Entry entry = entriesByNode.get(node);
+            return entry != null ? entry.getSearchableText() : extractUri(node.getTestElement());
+        }, timings);
+    }
+
+    /**
+     * Returns the tree version: a stamp that changes whenever the tree model reports a change.
+     * Two snapshots taken at the same version hold the same samplers.
+     *
+     * @return The current version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the number of indexed samplers.
+     *
+     * @return The sampler count
+     */
+    public int size() {
+        ensureBuilt();
+        return entries.size();
+    }
+
+    /**
+     * Checks whether a node lies within any of the scope subtrees.
+     *
+     * @param node The node to check
+     * @param scopeNodes The scope roots (null or empty for the entire test plan)
+     * @return true if the node is a scope root or a descendant of one
+     */
+    public static boolean isInScope(JMeterTreeNode node, List<JMeterTreeNode> scopeNodes) {
+        if (scopeNodes == null || scopeNodes.isEmpty()) {
+            return true;
+        }
+        for (JMeterTreeNode scopeNode : scopeNodes) {
+            if (node.isNodeAncestor(scopeNode)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reduces a selection to the minimal set of disjoint subtree roots, in tree order.
+     * Duplicates and nodes below another selected node are dropped, so walking each root
+     * visits every node in scope exactly once.
+     *
+     * @param scopeNodes The selected nodes (null or empty for the entire test plan)
+     * @return The disjoint scope roots in tree order (empty for the entire test plan)
+     */
+    public static List<JMeterTreeNode> normalizeScope(List<JMeterTreeNode> scopeNodes) {
+        if (scopeNodes == null || scopeNodes.isEmpty()) {
+            return List.of();
+        }
+        Set<JMeterTreeNode> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<JMeterTreeNode> sorted = new ArrayList<>(scopeNodes.size());
+        for (JMeterTreeNode node : scopeNodes) {
+            if (node != null && seen.add(node)) {
+                sorted.add(node);
+            }
+        }
+        if (sorted.size() > 1) {
+            sorted.sort(SamplerIndex::compareTreeOrder);
+        }
+        // In pre-order a root's descendants directly follow it, so comparing
+        // with the last kept root is enough
+        List<JMeterTreeNode> roots = new ArrayList<>(sorted.size());
+        JMeterTreeNode lastRoot = null;
+        for (JMeterTreeNode node : sorted) {
+            if (lastRoot == null || !node.isNodeAncestor(lastRoot)) {
+                roots.add(node);
+                lastRoot = node;
+            }
+        }
+        return List.copyOf(roots);
+    }
+
+    private void ensureBuilt() {
+        if (built) {
+            return;
+        }
+        BulkEvents.IndexRebuildEvent event = new BulkEvents.IndexRebuildEvent();
+        event.begin();
+        entries.clear();
+        entriesByNode.clear();
+        Object root = treeModel.getRoot();
+        if (root instanceof JMeterTreeNode rootNode) {
+            collectSamplers(rootNode, entries);
+            for (Entry entry : entries) {
+                entriesByNode.put(entry.node, entry);
+            }
+        }
+        built = true;
+        event.end();
+        if (event.shouldCommit()) {
+            event.index = "sampler";
+            event.entries = entries.size();
+            event.commit();
+        }
+        log.debug("Built sampler index with {} entries", entries.size());
+    }
+
+    /**
+     * Collects the samplers of a subtree in pre-order.
+     */
+    private void collectSamplers(JMeterTreeNode node, List<Entry> result) {
+        walker.walk(node, child -> {
+            if (child.getTestElement() instanceof Sampler) {
+                result.add(new Entry(child));
+            }
+            return true;
+        });
+    }
+
+    // ==================== TreeModelListener Interface ====================
+
+    @Override
+    public void treeNodesChanged(TreeModelEvent e) {
+        version = VERSIONS.incrementAndGet();
+        if (!built) {
+            return;
+        }
+        Object[] children = e.getChildren();
+        if (children == null) {
+            invalidate(e.getTreePath().getLastPathComponent());
+        } else {
+            for (Object child : children) {
+                invalidate(child);
+            }
+        }
+    }
+
+    @Override
+    public void treeNodesInserted(TreeModelEvent e) {
+        version = VERSIONS.incrementAndGet();
+        if (!built) {
+            return;
+        }
+        for (Object child : e.getChildren()) {
+            if (!(child instanceof JMeterTreeNode childNode)) {
+                continue;
+            }
+            List<Entry> inserted = new ArrayList<>();
+            collectSamplers(childNode, inserted);
+            inserted.removeIf(entry -> entriesByNode.containsKey(entry.node));
+            if (inserted.isEmpty()) {
+                continue;
+            }
+            // A subtree is contiguous in pre-order, so its samplers go in as one block
+            int position = insertionPoint(inserted.get(0).node);
+            entries.addAll(position, inserted);
+            for (Entry entry : inserted) {
+                entriesByNode.put(entry.node, entry);
+            }
+        }
+    }
+
+    @Override
+    public void treeNodesRemoved(TreeModelEvent e) {
+        version = VERSIONS.incrementAndGet();
+        if (!built) {
+            return;
+        }
+        Map<JMeterTreeNode, Entry> removed = new IdentityHashMap<>();
+        for (Object child : e.getChildren()) {
+            if (child instanceof JMeterTreeNode childNode) {
+                List<Entry> subtree = new ArrayList<>();
+                collectSamplers(childNode, subtree);
+                for (Entry entry : subtree) {
+                    Entry existing = entriesByNode.remove(entry.node);
+                    if (existing != null) {
+                        removed.put(entry.node, existing);
+                    }
+                }
+            }
+        }
+        if (!removed.isEmpty()) {
+            entries.removeIf(entry -> removed.containsKey(entry.node));
+        }
+    }
+
+    @Override
+    public void treeStructureChanged(TreeModelEvent e) {
+        // Whole plan replaced (load, new, clear): rebuild lazily on next use
+        version = VERSIONS.incrementAndGet();
+        built = false;
+        entries.clear();
+        entriesByNode.clear();
+    }
+
+    private void invalidate(Object node) {
+        Entry entry = entriesByNode.get(node);
+        if (entry != null) {
+            entry.cached = null;
+        }
+    }
+
+    /**
+     * Finds where a newly inserted sampler belongs in the pre-ordered entry list.
+     */
+    private int insertionPoint(JMeterTreeNode node) {
+        int low = 0;
+        int high = entries.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compareTreeOrder(entries.get(mid).node, node) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Compares two attached nodes by their pre-order position in the tree.
+     */
+    static int compareTreeOrder(JMeterTreeNode a, JMeterTreeNode b) {
+        TreeNode[] pathA = a.getPath();
+        TreeNode[] pathB = b.getPath();
+        int depth = Math.min(pathA.length, pathB.length);
+        for (int i = 1; i < depth; i++) {
+            if (pathA[i] != pathB[i]) {
+                TreeNode parent = pathA[i - 1];
+                return Integer.compare(parent.getIndex(pathA[i]), parent.getIndex(pathB[i]));
+            }
+        }
+        // One is an ancestor of the other: the ancestor comes first
+        return Integer.compare(pathA.length, pathB.length);
+    }
+
+    // ==================== Searchable Text ====================
+
+    /**
+     * Builds the searchable text for a sampler: its name, plus the full URL for HTTP samplers.
+     *
+     * @param element The test element to extract the URI from
+     * @return The searchable text
+     */
+    public static String extractUri(TestElement element) {
+        if (element instanceof HTTPSamplerBase httpSampler) {
+            return buildSearchableText(element.getName(), httpSampler.getProtocol(),
+                httpSampler.getDomain(), httpSampler.getPort(), httpSampler.getPath());
+        }
+        String name = element.getName();
+        return name != null ? name : "";
+    }
+
+    private static String buildSearchableText(String name, String protocol, String domain,
+            int port, String path) {
+        StringBuilder searchableText = new StringBuilder();
+
+        // Always include the element name (it might contain the URL)
+        if (name != null) {
+            searchableText.append(name);
+        }
+
+        // Build full URI if we have domain info
+        if (domain != null && !domain.isEmpty()) {
+            if (protocol == null || protocol.isEmpty()) {
+                protocol = "http";
+            }
+            StringBuilder uri = new StringBuilder();
+            uri.append(protocol).append("://").append(domain);
+            if (port > 0 && port != 80 && port != 443) {
+                uri.append(":").append(port);
+            }
+            if (path != null && !path.isEmpty()) {
+                if (!path.startsWith("/")) {
+                    uri.append("/");
+                }
+                uri.append(path);
+            }
+            // Append constructed URI if different from name
+            String constructedUri = uri.toString();
+            if (!constructedUri.equals(name)) {
+                searchableText.append(" ").append(constructedUri);
+            }
+        } else if (path != null && !path.isEmpty() && !path.equals(name)) {
+            // Just append path if no domain but path exists
+            searchableText.append(" ").append(path);
+        }
+
+        return searchableText.toString();
+    }
+
+    /**
+     * An indexed sampler together with its cached searchable text.
+     */
+    public static final class Entry {
+        private final JMeterTreeNode node;
+        private final TestElement element;
+        private volatile CachedText cached;
+
+        Entry(JMeterTreeNode node) {
+            this.node = node;
+            this.element = node.getTestElement();
+        }
+
+        public JMeterTreeNode getNode() {
+            return node;
+        }
+
+        public TestElement getElement() {
+            return element;
+        }
+
+        /**
+         * Returns the searchable text, rebuilding it only if a source property changed.
+         *
+         * @return The same text {@link SamplerIndex#extractUri(TestElement)} would build
+         */
+        public String getSearchableText() {
+            CachedText current = cached;
+            String name = element.getName();
+            if (element instanceof HTTPSamplerBase httpSampler) {
+                String protocol = httpSampler.getProtocol();
+                String domain = httpSampler.getDomain();
+                int port = httpSampler.getPort();
+                String path = httpSampler.getPath();
+                if (current == null || !current.isFrom(name, protocol, domain, port, path)) {
+                    current = new CachedText(name, protocol, domain, port, path,
+                        buildSearchableText(name, protocol, domain, port, path));
+                    cached = current;
+                }
+            } else if (current == null || !current.isFrom(name, null, null, 0, null)) {
+                current = new CachedText(name, null, null, 0, null, name != null ? name : "");
+                cached = current;
+            }
+            return current.text;
+        }
+    }
+
+    /**
+     * Searchable text and the property values it was built from.
+     */
+    private record CachedText(String name, String protocol, String domain, int port, String path,
+            String text) {
+
+        boolean isFrom(String name, String protocol, String domain, int port, String path) {
+            return this.port == port
+                && Objects.equals(this.name, name)
+                && Objects.equals(this.domain, domain)
+                && Objects.equals(this.path, path)
+                && Objects.equals(this.protocol, protocol);
+        }
+    }
+}
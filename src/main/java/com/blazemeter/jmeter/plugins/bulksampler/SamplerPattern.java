@@ -0,0 +1,319 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazemeter.jmeter.plugins.bulksampler;
+
+import java.util.Arrays;
+import java.util.regex.PatternSyntaxException;
+
+import org.apache.jmeter.protocol.http.sampler.HTTPSamplerBase;
+import org.apache.jmeter.testelement.TestElement;
+
+/**
+ * A sampler pattern as entered by the user, optionally scoped to one sampler field.
+ *
+ * <p>Without a prefix the pattern is matched against the searchable text
+ * {@link SamplerIndex#extractUri} builds. With a {@code field:} prefix ({@code name:},
+ * {@code protocol:}, {@code domain:}, {@code port:}, {@code path:} or {@code method:}) it is
+ * matched against that field alone, read straight from the sampler, so no text is built.
+ * Only the name applies to samplers other than HTTP samplers; the other fields never
+ * match them. A port pattern is a comma-separated list of ports and ranges such as
+ * {@code 8080} or {@code 8000-8999}, compared as numbers whatever the pattern options.
+ *
+ * <p>Instances are immutable and safe to share between threads.
+ */
+public final class SamplerPattern {
+
+    /**
+     * The sampler fields a pattern can be scoped to.
+     */
+    public enum Field {
+        NAME("name"),
+        PROTOCOL("protocol"),
+        DOMAIN("domain"),
+        PORT("port"),
+        PATH("path"),
+        METHOD("method");
+
+        private final String key;
+
+        Field(String key) {
+            this.key = key;
+        }
+
+        /**
+         * Returns the prefix keyword, without the colon.
+         *
+         * @return The keyword
+         */
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         * Returns whether the field's value always occurs in the searchable text of the
+         * samplers it applies to, so the trigram index can prefilter patterns on it.
+         *
+         * @return true for name, domain and path
+         */
+        public boolean isInSearchableText() {
+            return this == NAME || this == DOMAIN || this == PATH;
+        }
+    }
+
+    private static final Field[] FIELDS = Field.values();
+
+    private final Field field;
+    private final String value;
+    private final TextMatcher matcher;
+    private final int[] portRanges;
+
+    private SamplerPattern(Field field, String value, TextMatcher matcher, int[] portRanges) {
+        this.field = field;
+        this.value = value;
+        this.matcher = matcher;
+        this.portRanges = portRanges;
+    }
+
+    /**
+     * Compiles a pattern as entered by the user.
+     *
+     * @param patternText The pattern, with or without a field prefix
+     * @param useRegex Whether to treat the pattern as a regular expression
+     * @param multiPattern Whether the pattern is a comma-separated list of literals
+     * @param caseSensitive Whether matching should be case-sensitive
+     * @param linearRegex Whether to prefer the linear-time regex engine
+     * @return The compiled pattern
+     * @throws PatternSyntaxException if the regex pattern or the port list is invalid, or
+     *         nothing follows the field prefix
+     */
+    public static SamplerPattern compile(String patternText, boolean useRegex, boolean multiPattern,
+            boolean caseSensitive, boolean linearRegex) {
+        Field field = fieldOf(patternText);
+        String value = valueOf(patternText);
+        if (field != null && value.isEmpty()) {
+            // An empty value would match every sampler
+            throw new PatternSyntaxException("Expected a value after " + field.key + ":", patternText,
+                patternText.length());
+        }
+        if (field == Field.PORT) {
+            return new SamplerPattern(field, value, null, parsePorts(value));
+        }
+        return new SamplerPattern(field, value,
+            TextMatcher.compile(value, useRegex, multiPattern, caseSensitive, linearRegex), null);
+    }
+
+    /**
+     * Returns the field a pattern is scoped to.
+     *
+     * @param patternText The pattern as entered by the user
+     * @return The field, or null if the pattern has no field prefix
+     */
+    public static Field fieldOf(String patternText) {
+        int colon = patternText.indexOf(':');
+        if (colon <= 0) {
+            return null;
+        }
+        for (Field field : FIELDS) {
+            if (field.key.length() == colon && patternText.regionMatches(true, 0, field.key, 0, colon)) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns a pattern without its field prefix.
+     *
+     * @param patternText The pattern as entered by the user
+     * @return The part matched against the field, or the whole pattern if it has no prefix
+     */
+    public static String valueOf(String patternText) {
+        Field field = fieldOf(patternText);
+        return field != null ? patternText.substring(field.key.length() + 1).trim() : patternText;
+    }
+
+    public Field getField() {
+        return field;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * Returns the matcher for text fields and the searchable text.
+     *
+     * @return The matcher, or null for a port pattern
+     */
+    public TextMatcher getMatcher() {
+        return matcher;
+    }
+
+    /**
+     * Checks whether a sampler matches.
+     *
+     * @param element The sampler
+     * @return true if the sampler matches
+     */
+    public boolean matches(TestElement element) {
+        return matches(element.getName(), element instanceof HTTPSamplerBase httpSampler ? httpSampler : null);
+    }
+
+    /**
+     * Checks whether a sampler matches, given its name and, for HTTP samplers, the sampler.
+     *
+     * @param name The sampler name
+     * @param httpSampler The sampler if it is an HTTP sampler, otherwise null
+     * @return true if the sampler matches
+     */
+    public boolean matches(String name, HTTPSamplerBase httpSampler) {
+        return matches(field == null ? searchableText(name, httpSampler) : null, name, httpSampler);
+    }
+
+    /**
+     * Checks whether a sampler matches, reusing its searchable text. Callers that try several
+     * patterns on one sampler build the text once with {@link #searchableText} and pass it to each.
+     *
+     * @param text The sampler's {@link #searchableText searchable text}; only read if the pattern
+     *        has no field prefix
+     * @param name The sampler name
+     * @param httpSampler The sampler if it is an HTTP sampler, otherwise null
+     * @return true if the sampler matches
+     */
+    public boolean matches(CharSequence text, String name, HTTPSamplerBase httpSampler) {
+        if (field == null) {
+            return matcher.find(text);
+        }
+        if (field == Field.NAME) {
+            return matcher.find(name != null ? name : "");
+        }
+        if (httpSampler == null) {
+            return false;
+        }
+        return switch (field) {
+            case PORT -> matchesPort(httpSampler.getPort());
+            case PROTOCOL -> matcher.find(httpSampler.getProtocol());
+            case DOMAIN -> matcher.find(httpSampler.getDomain());
+            case PATH -> matcher.find(httpSampler.getPath());
+            default -> matcher.find(httpSampler.getMethod());
+        };
+    }
+
+    /**
+     * Returns the text a pattern without a field prefix is matched against.
+     *
+     * @param name The sampler name
+     * @param httpSampler The sampler if it is an HTTP sampler, otherwise null
+     * @return The {@link SamplerIndex#extractUri(TestElement) searchable text} of an HTTP sampler,
+     *         otherwise the name
+     */
+    public static String searchableText(String name, HTTPSamplerBase httpSampler) {
+        return httpSampler != null ? SamplerIndex.extractUri(httpSampler) : name != null ? name : "";
+    }
+
+    /**
+     * Checks whether a sampler of a plan snapshot matches.
+     *
+     * @param snapshot The snapshot
+     * @param position The sampler position
+     * @return true if the sampler matches
+     */
+    public boolean matches(PlanSnapshot snapshot, int position) {
+        if (field == Field.PORT) {
+            return isHttpSampler(snapshot, position) && matchesPort(snapshot.getPort(position));
+        }
+        return matcher.find(text(snapshot, position));
+    }
+
+    /**
+     * Returns the text a non-port pattern is matched against for a sampler of a snapshot.
+     *
+     * @param snapshot The snapshot
+     * @param position The sampler position
+     * @return The searchable text or the field value, or null if the sampler has no such field
+     */
+    CharSequence text(PlanSnapshot snapshot, int position) {
+        if (field == null) {
+            return snapshot.getSearchableText(position);
+        }
+        return switch (field) {
+            case NAME -> {
+                String name = snapshot.getSamplerName(position);
+                yield name != null ? name : "";
+            }
+            case PROTOCOL -> snapshot.getProtocol(position);
+            case DOMAIN -> snapshot.getDomain(position);
+            case PATH -> snapshot.getPath(position);
+            case METHOD -> snapshot.getMethod(position);
+            default -> null;
+        };
+    }
+
+    private boolean matchesPort(int port) {
+        for (int i = 0; i < portRanges.length; i += 2) {
+            if (port >= portRanges[i] && port <= portRanges[i + 1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isHttpSampler(PlanSnapshot snapshot, int position) {
+        return snapshot.getType(snapshot.getSamplerHandle(position)) == PlanSnapshot.TYPE_HTTP_SAMPLER;
+    }
+
+    /**
+     * Parses a port list such as {@code 80, 443, 8000-8999} into inclusive bounds.
+     *
+     * @return The bounds, two per range
+     * @throws PatternSyntaxException if an entry is not a port or a range of ports
+     */
+    private static int[] parsePorts(String portList) {
+        String[] entries = portList.split(",");
+        int[] ranges = new int[entries.length * 2];
+        int count = 0;
+        for (String entry : entries) {
+            String trimmed = entry.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int dash = trimmed.indexOf('-', 1);
+            try {
+                int low = Integer.parseInt(dash < 0 ? trimmed : trimmed.substring(0, dash).trim());
+                int high = dash < 0 ? low : Integer.parseInt(trimmed.substring(dash + 1).trim());
+                if (low < 0 || high < low) {
+                    throw new NumberFormatException();
+                }
+                ranges[count++] = low;
+                ranges[count++] = high;
+            } catch (NumberFormatException e) {
+                throw new PatternSyntaxException("Expected a port or a range such as 8000-8999", portList,
+                    portList.indexOf(trimmed));
+            }
+        }
+        if (count == 0) {
+            throw new PatternSyntaxException("Expected at least one port", portList, -1);
+        }
+        return Arrays.copyOf(ranges, count);
+    }
+
+    @Override
+    public String toString() {
+        return field != null ? field.key + ":" + value : value;
+    }
+}
@@ -0,0 +1,628 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazemeter.jmeter.plugins.bulksampler;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BooleanSupplier;
+import java.util.regex.PatternSyntaxException;
+
+import org.apache.jmeter.gui.tree.JMeterTreeNode;
+
+/**
+ * A sampler search as configured in the dialog, and the engine that runs it.
+ *
+ * <p>Both the dialog preview and the apply run the same query over a {@link PlanSnapshot},
+ * so they cannot disagree about which samplers match. A {@link Result} records
+ * the index version it was computed against; while the tree is unchanged, an apply can
+ * reuse the preview's result instead of scanning again. A result also records whether it
+ * came from a full scan, trigram candidates or refined matches; all three find the same samplers.
+ *
+ * <p>Instances are immutable and safe to share between threads.
+ */
+public final class SamplerQuery {
+
+    /** With phase timings, one sampler in this many is timed individually */
+    static final int TIMING_SAMPLE_INTERVAL = 16;
+
+    /** Candidates matched by one fork/join task; smaller scans stay on the calling thread */
+    static final int PARALLEL_CHUNK_SIZE = 4096;
+
+    private final String pattern;
+    private final boolean useRegex;
+    private final boolean linearRegex;
+    private final boolean multiPattern;
+    private final boolean caseSensitive;
+    private final boolean invertMatch;
+    private final List<JMeterTreeNode> scopeNodes;
+    /** Compiled on first use and shared by every run, also across threads */
+    private volatile SamplerPattern compiled;
+
+    /**
+     * Creates a query.
+     *
+     * @param pattern The pattern as entered by the user, optionally scoped to a field
+     *        such as {@code domain:} (see {@link SamplerPattern})
+     * @param useRegex Whether to treat the pattern as a regular expression
+     * @param linearRegex Whether to prefer the linear-time regex engine
+     * @param multiPattern Whether the pattern is a comma-separated list of literals
+     * @param caseSensitive Whether matching should be case-sensitive
+     * @param invertMatch Whether to select the samplers that do not match
+     * @param scopeNodes The subtrees to search (null or empty for the entire test plan);
+     *        overlapping selections are {@link SamplerIndex#normalizeScope normalized}
+     */
+    public SamplerQuery(String pattern, boolean useRegex, boolean linearRegex, boolean multiPattern,
+            boolean caseSensitive, boolean invertMatch, List<JMeterTreeNode> scopeNodes) {
+        this.pattern = Objects.requireNonNull(pattern, "pattern");
+        this.useRegex = useRegex;
+        this.linearRegex = linearRegex;
+        this.multiPattern = multiPattern;
+        this.caseSensitive = caseSensitive;
+        this.invertMatch = invertMatch;
+        this.scopeNodes = SamplerIndex.normalizeScope(scopeNodes);
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    public boolean isUseRegex() {
+        return useRegex;
+    }
+
+    public boolean isLinearRegex() {
+        return linearRegex;
+    }
+
+    public boolean isMultiPattern() {
+        return multiPattern;
+    }
+
+    public boolean isCaseSensitive() {
+        return caseSensitive;
+    }
+
+    public boolean isInvertMatch() {
+        return invertMatch;
+    }
+
+    public List<JMeterTreeNode> getScopeNodes() {
+        return scopeNodes;
+    }
+
+    /**
+     * Returns the compiled pattern, compiling it on first use.
+     *
+     * @return The compiled pattern
+     * @throws PatternSyntaxException if the regex pattern or a port list is invalid
+     */
+    public SamplerPattern compilePattern() {
+        SamplerPattern current = compiled;
+        if (current == null) {
+            current = SamplerPattern.compile(pattern, useRegex, multiPattern, caseSensitive, linearRegex);
+            compiled = current;
+        }
+        return current;
+    }
+
+    /**
+     * Computes the candidate samplers for this query from a trigram index over the
+     * snapshot's searchable text.
+     *
+     * @param index The trigram index, or null
+     * @return Candidate sampler positions (ascending), or null if every sampler must be scanned
+     */
+    public int[] candidates(TrigramIndex index) {
+        if (index == null || invertMatch) {
+            return null;
+        }
+        // Only fields that are part of the searchable text can be prefiltered
+        SamplerPattern.Field field = SamplerPattern.fieldOf(pattern);
+        if (field != null && !field.isInSearchableText()) {
+            return null;
+        }
+        return index.candidates(SamplerPattern.valueOf(pattern), useRegex, multiPattern);
+    }
+
+    /**
+     * Checks whether this query can only match a subset of what a previous query matched:
+     * both are plain contains-matches on the same field with the same options and scope,
+     * and this pattern contains the previous one.
+     *
+     * @param previous The previous query
+     * @return true if filtering the previous result gives the same matches as a full scan
+     */
+    public boolean refines(SamplerQuery previous) {
+        if (useRegex || multiPattern || invertMatch) {
+            return false;
+        }
+        if (previous.useRegex || previous.multiPattern || previous.invertMatch
+                || previous.caseSensitive != caseSensitive || !previous.scopeNodes.equals(scopeNodes)) {
+            return false;
+        }
+        // Ports compare as numbers, so a longer port is no refinement
+        SamplerPattern.Field field = SamplerPattern.fieldOf(pattern);
+        if (field != SamplerPattern.fieldOf(previous.pattern) || field == SamplerPattern.Field.PORT) {
+            return false;
+        }
+        return LiteralMatcher.compile(SamplerPattern.valueOf(previous.pattern), caseSensitive)
+            .find(SamplerPattern.valueOf(pattern));
+    }
+
+    /**
+     * Runs the query over the matches of a previous query it {@link #refines refines},
+     * instead of over the whole snapshot.
+     *
+     * @param previous A complete result of the previous query
+     * @param abort Polled between samplers; returning true stops the scan with a partial result
+     * @param timings Receives the traversal and matching times, or null
+     * @return The matching samplers in the previous result's snapshot, or null if this query
+     *         does not refine the previous one
+     */
+    public Result refine(Result previous, BooleanSupplier abort, PhaseTimings timings) {
+        if (!previous.isComplete() || !refines(previous.getQuery())) {
+            return null;
+        }
+        return scan(previous.getSnapshot(), previous.positions(), Result.Source.REFINED, abort, timings,
+            defaultPool());
+    }
+
+    /**
+     * Runs the query over a plan snapshot. Only reads the snapshot, so it may run on any thread.
+     *
+     * @param snapshot The plan snapshot
+     * @param candidates Sampler positions to verify (ascending), or null to scan every sampler
+     * @param abort Polled between samplers; returning true stops the scan with a partial result
+     * @return The matching samplers
+     * @throws PatternSyntaxException if the regex pattern is invalid
+     */
+    public Result run(PlanSnapshot snapshot, int[] candidates, BooleanSupplier abort) {
+        return run(snapshot, candidates, abort, null);
+    }
+
+    /**
+     * Runs the query over a plan snapshot, recording where the time went. Large scans are
+     * split across the common {@link ForkJoinPool}.
+     *
+     * @param snapshot The plan snapshot
+     * @param candidates Sampler positions to verify (ascending), or null to scan every sampler
+     * @param abort Polled between samplers, possibly from several threads; returning true
+     *        stops the scan with a partial result
+     * @param timings Receives the traversal and matching times, or null
+     * @return The matching samplers
+     * @throws PatternSyntaxException if the regex pattern is invalid
+     */
+    public Result run(PlanSnapshot snapshot, int[] candidates, BooleanSupplier abort, PhaseTimings timings) {
+        return run(snapshot, candidates, abort, timings, defaultPool());
+    }
+
+    /**
+     * Runs the query over a plan snapshot on the given pool.
+     *
+     * <p>A scan of more than {@value #PARALLEL_CHUNK_SIZE} samplers is cut into chunks of
+     * that many positions, which the pool matches independently; the matches of each chunk
+     * are in tree order and the chunks are concatenated in order, so the result is the same
+     * as a sequential scan. Fixed-size chunks balance better than thread groups, which can
+     * differ in size by orders of magnitude. An aborted parallel scan may keep matches from
+     * any chunk, not just a prefix of the plan.
+     *
+     * <p>The scan itself is timed exactly. Reading the clock around every sampler would
+     * cost about as much as matching it, so matching is timed on one sampler in
+     * {@value #TIMING_SAMPLE_INTERVAL} and scaled up; the rest of the scan counts as traversal.
+     * For a parallel scan the matching share of the work is applied to the elapsed time,
+     * and the allocations of the pool's threads are added to the caller's.
+     *
+     * @param snapshot The plan snapshot
+     * @param candidates Sampler positions to verify (ascending), or null to scan every sampler
+     * @param abort Polled between samplers, possibly from several threads; returning true
+     *        stops the scan with a partial result
+     * @param timings Receives the traversal and matching times, or null
+     * @param pool The pool to match chunks on, or null to scan on the calling thread only
+     * @return The matching samplers
+     * @throws PatternSyntaxException if the regex pattern is invalid
+     */
+    Result run(PlanSnapshot snapshot, int[] candidates, BooleanSupplier abort, PhaseTimings timings,
+            ForkJoinPool pool) {
+        return scan(snapshot, candidates, candidates == null ? Result.Source.FULL_SCAN : Result.Source.PREFILTERED,
+            abort, timings, pool);
+    }
+
+    private static ForkJoinPool defaultPool() {
+        return ForkJoinPool.getCommonPoolParallelism() > 1 ? ForkJoinPool.commonPool() : null;
+    }
+
+    private Result scan(PlanSnapshot snapshot, int[] candidates, Result.Source source, BooleanSupplier abort,
+            PhaseTimings timings, ForkJoinPool pool) {
+        SamplerPattern samplerPattern = compilePattern();
+        BulkEvents.SamplerScanEvent event = new BulkEvents.SamplerScanEvent();
+        event.begin();
+        PhaseTimings.Mark scanStart = timings != null ? PhaseTimings.mark() : null;
+        Scan scan = new Scan(samplerPattern, snapshot, candidates, snapshot.scopeRanges(scopeNodes), abort,
+            timings != null);
+
+        int count = candidates != null ? candidates.length : snapshot.getSamplerCount();
+        Chunk[] chunks;
+        if (pool != null && count > PARALLEL_CHUNK_SIZE) {
+            chunks = new Chunk[(count + PARALLEL_CHUNK_SIZE - 1) / PARALLEL_CHUNK_SIZE];
+            pool.invoke(new ScanTask(scan, chunks, 0, chunks.length, count));
+        } else {
+            chunks = new Chunk[] {scan.scan(0, count)};
+        }
+
+        int matchCount = 0;
+        boolean complete = true;
+        for (Chunk chunk : chunks) {
+            matchCount += chunk.matchCount;
+            complete &= chunk.complete;
+        }
+        int[] positions;
+        String[] hitPatterns = null;
+        if (chunks.length == 1) {
+            positions = Arrays.copyOf(chunks[0].positions, matchCount);
+            if (chunks[0].hitPatterns != null) {
+                hitPatterns = Arrays.copyOf(chunks[0].hitPatterns, matchCount);
+            }
+        } else {
+            positions = new int[matchCount];
+            if (scan.multiMatcher != null) {
+                hitPatterns = new String[matchCount];
+            }
+            int offset = 0;
+            for (Chunk chunk : chunks) {
+                System.arraycopy(chunk.positions, 0, positions, offset, chunk.matchCount);
+                if (hitPatterns != null) {
+                    System.arraycopy(chunk.hitPatterns, 0, hitPatterns, offset, chunk.matchCount);
+                }
+                offset += chunk.matchCount;
+            }
+        }
+
+        if (timings != null) {
+            long scanNanos = System.nanoTime() - scanStart.nanos();
+            long scanBytes = scanStart.allocatedBytes() >= 0
+                ? PhaseTimings.allocatedBytes() - scanStart.allocatedBytes() : 0;
+            long chunkNanos = 0;
+            double chunkMatchNanos = 0;
+            for (Chunk chunk : chunks) {
+                chunkNanos += chunk.nanos;
+                if (chunk.timed > 0) {
+                    chunkMatchNanos += Math.min(chunk.matchNanos * ((double) chunk.scanned / chunk.timed),
+                        chunk.nanos);
+                }
+                scanBytes += chunk.pooledBytes;
+            }
+            // Never attribute more than the whole scan to matching
+            long matchNanos = chunkNanos > 0 ? (long) (scanNanos * (chunkMatchNanos / chunkNanos)) : 0;
+            timings.add(PhaseTimings.Phase.MATCHING, matchNanos, 0);
+            timings.add(PhaseTimings.Phase.TRAVERSAL, scanNanos - matchNanos, scanBytes);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.pattern = pattern;
+            event.patternKind = BulkEvents.patternKind(samplerPattern);
+            event.inverted = invertMatch;
+            event.samplers = snapshot.getSamplerCount();
+            event.candidates = count;
+            event.matches = matchCount;
+            event.complete = complete;
+            event.commit();
+        }
+        return new Result(this, snapshot, positions, hitPatterns, complete, source);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SamplerQuery other)) {
+            return false;
+        }
+        return useRegex == other.useRegex
+            && linearRegex == other.linearRegex
+            && multiPattern == other.multiPattern
+            && caseSensitive == other.caseSensitive
+            && invertMatch == other.invertMatch
+            && pattern.equals(other.pattern)
+            && scopeNodes.equals(other.scopeNodes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(pattern, useRegex, linearRegex, multiPattern, caseSensitive, invertMatch, scopeNodes);
+    }
+
+    @Override
+    public String toString() {
+        return "SamplerQuery[" + pattern
+            + (useRegex ? (linearRegex ? ", regex" : ", backtrackingRegex") : "")
+            + (multiPattern ? ", multiPattern" : "")
+            + (caseSensitive ? "" : ", ignoreCase")
+            + (invertMatch ? ", inverted" : "")
+            + (scopeNodes.isEmpty() ? "" : ", scope=" + scopeNodes.size())
+            + "]";
+    }
+
+    /**
+     * The read-only state of one run, shared by the threads scanning its chunks.
+     */
+    private final class Scan {
+        private final SamplerPattern pattern;
+        private final AhoCorasickMatcher multiMatcher;
+        private final PlanSnapshot snapshot;
+        private final int[] candidates;
+        private final int[] scopeRanges;
+        private final BooleanSupplier abort;
+        private final boolean timing;
+        private final Thread caller = Thread.currentThread();
+
+        Scan(SamplerPattern pattern, PlanSnapshot snapshot, int[] candidates, int[] scopeRanges,
+                BooleanSupplier abort, boolean timing) {
+            this.pattern = pattern;
+            this.multiMatcher = pattern.getMatcher() instanceof AhoCorasickMatcher m ? m : null;
+            this.snapshot = snapshot;
+            this.candidates = candidates;
+            this.scopeRanges = scopeRanges;
+            this.abort = abort;
+            this.timing = timing;
+        }
+
+        /**
+         * Matches the samplers at candidate indexes {@code from} (inclusive) to {@code to}
+         * (exclusive) on the current thread.
+         */
+        Chunk scan(int from, int to) {
+            PhaseTimings.Mark chunkStart = timing ? PhaseTimings.mark() : null;
+            Chunk chunk = new Chunk(to - from, multiMatcher != null);
+            for (int k = from; k < to; k++) {
+                if (abort != null && abort.getAsBoolean()) {
+                    chunk.complete = false;
+                    break;
+                }
+                int position = candidates != null ? candidates[k] : k;
+                if (!PlanSnapshot.isInScope(snapshot.getSamplerHandle(position), scopeRanges)) {
+                    continue;
+                }
+
+                // Skip the first sampler, whose one-off warm-up costs would be scaled up too
+                boolean timed = timing && ++chunk.scanned % TIMING_SAMPLE_INTERVAL == 0;
+                long matchStart = timed ? System.nanoTime() : 0;
+                // With multiple patterns, remember which one hit the sampler
+                String hitPattern = null;
+                boolean matches;
+                if (multiMatcher != null) {
+                    int hit = multiMatcher.firstMatch(pattern.text(snapshot, position));
+                    matches = hit >= 0;
+                    if (matches) {
+                        hitPattern = multiMatcher.getPattern(hit);
+                    }
+                } else {
+                    matches = pattern.matches(snapshot, position);
+                }
+                if (timed) {
+                    chunk.matchNanos += System.nanoTime() - matchStart;
+                    chunk.timed++;
+                }
+                if (invertMatch) {
+                    matches = !matches;
+                }
+                if (matches) {
+                    if (chunk.hitPatterns != null) {
+                        chunk.hitPatterns[chunk.matchCount] = hitPattern;
+                    }
+                    chunk.positions[chunk.matchCount++] = position;
+                }
+            }
+            if (timing) {
+                chunk.nanos = System.nanoTime() - chunkStart.nanos();
+                // The caller's own allocations are counted once, around the whole run
+                if (Thread.currentThread() != caller && chunkStart.allocatedBytes() >= 0) {
+                    chunk.pooledBytes = PhaseTimings.allocatedBytes() - chunkStart.allocatedBytes();
+                }
+            }
+            return chunk;
+        }
+    }
+
+    /**
+     * The matches of one range of candidates, in tree order, and what scanning it cost.
+     */
+    private static final class Chunk {
+        final int[] positions;
+        final String[] hitPatterns;
+        int matchCount;
+        boolean complete = true;
+        int scanned;
+        int timed;
+        long matchNanos;
+        long nanos;
+        long pooledBytes;
+
+        Chunk(int capacity, boolean withHitPatterns) {
+            positions = new int[capacity];
+            hitPatterns = withHitPatterns ? new String[capacity] : null;
+        }
+    }
+
+    /**
+     * Scans a range of chunks, halving it until each task scans a single chunk.
+     */
+    private static final class ScanTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Scan scan;
+        private final transient Chunk[] chunks;
+        private final int firstChunk;
+        private final int endChunk;
+        private final int count;
+
+        ScanTask(Scan scan, Chunk[] chunks, int firstChunk, int endChunk, int count) {
+            this.scan = scan;
+            this.chunks = chunks;
+            this.firstChunk = firstChunk;
+            this.endChunk = endChunk;
+            this.count = count;
+        }
+
+        @Override
+        protected void compute() {
+            if (endChunk - firstChunk == 1) {
+                int from = firstChunk * PARALLEL_CHUNK_SIZE;
+                chunks[firstChunk] = scan.scan(from, Math.min(from + PARALLEL_CHUNK_SIZE, count));
+                return;
+            }
+            int middle = (firstChunk + endChunk) >>> 1;
+            invokeAll(new ScanTask(scan, chunks, firstChunk, middle, count),
+                new ScanTask(scan, chunks, middle, endChunk, count));
+        }
+    }
+
+    /**
+     * The samplers a query matched in one snapshot, as sampler positions in that snapshot.
+     * Like the snapshot, a result is immutable and may be read from any thread.
+     */
+    public static final class Result {
+
+        /**
+         * Which samplers a scan verified. Prefiltered and refined scans skip only samplers
+         * that cannot match, so every source gives the same matches as a full scan.
+         */
+        public enum Source {
+            /** Every sampler in the snapshot */
+            FULL_SCAN,
+            /** Candidates from the trigram index, or another caller-supplied subset */
+            PREFILTERED,
+            /** The matches of a previous query this one refines */
+            REFINED
+        }
+
+        private final SamplerQuery query;
+        private final PlanSnapshot snapshot;
+        private final int[] positions;
+        private final String[] hitPatterns;
+        private final boolean complete;
+        private final Source source;
+
+        Result(SamplerQuery query, PlanSnapshot snapshot, int[] positions, String[] hitPatterns,
+                boolean complete, Source source) {
+            this.query = query;
+            this.snapshot = snapshot;
+            this.positions = positions;
+            this.hitPatterns = hitPatterns;
+            this.complete = complete;
+            this.source = source;
+        }
+
+        public SamplerQuery getQuery() {
+            return query;
+        }
+
+        public PlanSnapshot getSnapshot() {
+            return snapshot;
+        }
+
+        public long getTreeVersion() {
+            return snapshot.getTreeVersion();
+        }
+
+        /**
+         * Returns whether the scan ran to the end (it was not aborted).
+         *
+         * @return true if every sampler was checked
+         */
+        public boolean isComplete() {
+            return complete;
+        }
+
+        /**
+         * Returns which samplers the scan verified.
+         *
+         * @return The source of the result
+         */
+        public Source getSource() {
+            return source;
+        }
+
+        public int size() {
+            return positions.length;
+        }
+
+        /**
+         * Returns the matched positions in the snapshot, in tree order. Do not modify.
+         *
+         * @return The positions
+         */
+        int[] positions() {
+            return positions;
+        }
+
+        /**
+         * Returns the snapshot position of the matched sampler at a result index.
+         *
+         * @param index The result index
+         * @return The sampler position in {@link #getSnapshot()}
+         */
+        public int getPosition(int index) {
+            return positions[index];
+        }
+
+        /**
+         * Returns the pattern that hit the sampler at a result index, for multi-pattern queries.
+         *
+         * @param index The result index
+         * @return The hit pattern, or null if the query is not multi-pattern
+         */
+        public String getHitPattern(int index) {
+            return hitPatterns != null ? hitPatterns[index] : null;
+        }
+
+        /**
+         * Returns the matched sampler nodes in tree order, as a view over the result.
+         *
+         * @return The matching nodes
+         */
+        public List<JMeterTreeNode> getNodes() {
+            return new AbstractList<>() {
+                @Override
+                public JMeterTreeNode get(int index) {
+                    return snapshot.getNode(snapshot.getSamplerHandle(positions[index]));
+                }
+
+                @Override
+                public int size() {
+                    return positions.length;
+                }
+            };
+        }
+
+        /**
+         * Checks whether this result can stand in for a fresh run of the query.
+         *
+         * @param other The query about to be run
+         * @param currentVersion The current {@link SamplerIndex#getVersion() index version}
+         * @return true if the result is complete, for the same query, and the tree is unchanged
+         */
+        public boolean isReusableFor(SamplerQuery other, long currentVersion) {
+            return complete && snapshot.getTreeVersion() == currentVersion && query.equals(other);
+        }
+    }
+}
@@ -0,0 +1,454 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazemeter.jmeter.plugins.bulksampler;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.StartDocument;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+
+import org.apache.jmeter.protocol.http.control.HeaderManager;
+import org.apache.jmeter.protocol.http.sampler.HTTPSamplerBase;
+import org.apache.jmeter.protocol.http.sampler.HTTPSamplerProxy;
+import org.apache.jmeter.samplers.Sampler;
+import org.apache.jmeter.save.SaveService;
+import org.apache.jmeter.testelement.TestElement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Applies a {@link RuleSet} to a {@code .jmx} document while streaming it from input to output.
+ *
+ * <p>Nothing is materialised beyond the element being decided on: each sampler element
+ * is buffered on its own, its searchable text is built exactly as {@link SamplerIndex} does,
+ * and it is then written (with its {@code enabled} attribute flipped when disabling or
+ * enabling) or dropped together with the {@code hashTree} holding its children. Header rows
+ * are decided one {@code elementProp} at a time. Memory therefore depends on the nesting
+ * depth and the largest single element, not on the plan size.
+ *
+ * <p>Everything not touched by the operation, including comments and formatting between
+ * elements, is copied through unchanged.
+ */
+public final class StreamingJmxRewriter {
+
+    private static final Logger log = LoggerFactory.getLogger(StreamingJmxRewriter.class);
+
+    private static final String HASH_TREE = "hashTree";
+    private static final String STRING_PROP = "stringProp";
+    private static final String COLLECTION_PROP = "collectionProp";
+    private static final String ELEMENT_PROP = "elementProp";
+    /** The name property of a header row (private in {@code Header}) */
+    private static final String HEADER_NAME = "Header.name";
+    private static final QName NAME = new QName("name");
+    private static final QName TEST_NAME = new QName("testname");
+    private static final QName ENABLED = new QName("enabled");
+
+    /**
+     * What a plan element is, as far as the rewriter cares.
+     */
+    private enum Kind {
+        HTTP_SAMPLER, SAMPLER, OTHER
+    }
+
+    /**
+     * The outcome of a rewrite.
+     *
+     * @param matched The number of samplers or header rows that matched
+     * @param affected The number of samplers or header rows changed (0 when not applying)
+     */
+    public record Counts(int matched, int affected) {
+    }
+
+    private final RuleSet rules;
+    private final boolean apply;
+    private final Consumer<String> listener;
+
+    private final Map<String, Kind> kindsByTag = new HashMap<>();
+    private final XMLEventFactory eventFactory = XMLEventFactory.newInstance();
+
+    private XMLEventWriter writer;
+    private final List<XMLEvent> pendingWhitespace = new ArrayList<>();
+    private int matched;
+    private int affected;
+
+    /**
+     * Creates a rewriter.
+     *
+     * @param rules The rules deciding samplers and header rows
+     * @param apply Whether to change the document; false only counts and lists matches
+     * @param listener Receives one line per matched sampler and per Header Manager with matches; may be null
+     */
+    public StreamingJmxRewriter(RuleSet rules, boolean apply, Consumer<String> listener) {
+        this.rules = rules;
+        this.apply = apply;
+        this.listener = listener;
+    }
+
+    /**
+     * Rewrites a document. A rewriter instance handles one document.
+     *
+     * @param in The {@code .jmx} document
+     * @param out Receives the rewritten document, UTF-8 encoded
+     * @return The match counts
+     * @throws XMLStreamException if the document is not well-formed
+     */
+    public Counts rewrite(InputStream in, OutputStream out) throws XMLStreamException {
+        XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+        // Plans never need a DTD; refusing them also rules out external entity expansion
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        XMLEventReader reader = inputFactory.createXMLEventReader(in);
+        writer = XMLOutputFactory.newInstance().createXMLEventWriter(out, StandardCharsets.UTF_8.name());
+        try {
+            copy(reader);
+            writer.flush();
+        } finally {
+            writer.close();
+            reader.close();
+        }
+        log.debug("Streamed plan: {} matched, {} affected", matched, affected);
+        return new Counts(matched, affected);
+    }
+
+    private void copy(XMLEventReader reader) throws XMLStreamException {
+        // Open elements; their count is the only state that grows with the document
+        Deque<StartElement> open = new ArrayDeque<>();
+        boolean dropNextHashTree = false;
+
+        while (reader.hasNext()) {
+            XMLEvent event = reader.nextEvent();
+
+            if (event.isCharacters() && event.asCharacters().isWhiteSpace()) {
+                // Held back so the indentation of a dropped element can be dropped with it
+                if (!dropNextHashTree) {
+                    pendingWhitespace.add(event);
+                }
+                continue;
+            }
+
+            if (event.isStartElement()) {
+                StartElement start = event.asStartElement();
+                String tag = start.getName().getLocalPart();
+                StartElement parent = open.peek();
+
+                if (dropNextHashTree) {
+                    dropNextHashTree = false;
+                    if (HASH_TREE.equals(tag)) {
+                        skipElement(reader);
+                        continue;
+                    }
+                }
+
+                if (rules.hasSamplerRules() && parent != null && isTag(parent, HASH_TREE)) {
+                    Kind kind = kindOf(tag);
+                    if (kind != Kind.OTHER) {
+                        dropNextHashTree = handleSampler(kind, readElement(reader, start));
+                        continue;
+                    }
+                }
+
+                if (rules.hasHeaderRules() && isTag(start, COLLECTION_PROP)
+                        && HeaderManager.HEADERS.equals(attribute(start, NAME))) {
+                    write(event);
+                    filterHeaders(reader, parent);
+                    continue;
+                }
+
+                open.push(start);
+            } else if (event.isEndElement()) {
+                dropNextHashTree = false;
+                open.pop();
+            } else if (event.isStartDocument()) {
+                // The output is always UTF-8, whatever the input declared
+                StartDocument document = (StartDocument) event;
+                event = document.standaloneSet()
+                    ? eventFactory.createStartDocument(StandardCharsets.UTF_8.name(), document.getVersion(),
+                        document.isStandalone())
+                    : eventFactory.createStartDocument(StandardCharsets.UTF_8.name(), document.getVersion());
+                write(event);
+                // Whitespace in the prolog is not reported, keep the root element on its own line
+                write(eventFactory.createCharacters("\n"));
+                continue;
+            }
+            write(event);
+        }
+    }
+
+    /**
+     * Decides on one buffered sampler element and writes it unless it is deleted.
+     *
+     * @return true if the sampler was deleted, so the {@code hashTree} with its children must be dropped
+     */
+    private boolean handleSampler(Kind kind, List<XMLEvent> element) throws XMLStreamException {
+        StartElement start = element.get(0).asStartElement();
+        String name = attribute(start, TEST_NAME);
+        HTTPSamplerProxy httpSampler = null;
+        if (kind == Kind.HTTP_SAMPLER) {
+            httpSampler = toHttpSampler(name, element);
+            name = httpSampler.getName();
+        } else if (name == null) {
+            name = directStringProp(element, TestElement.NAME);
+        }
+
+        // Built once and shared by every rule and the listing
+        String text = rules.needsSearchableText() || listener != null
+            ? SamplerPattern.searchableText(name, httpSampler) : null;
+        RuleSet.Rule rule = rules.decideSampler(text, name, httpSampler);
+        if (rule == null) {
+            writeAll(element);
+            return false;
+        }
+
+        matched++;
+        if (listener != null) {
+            listener.accept(rule.getAction().getName() + ": " + name + " → " + text);
+        }
+        if (!apply) {
+            writeAll(element);
+            return false;
+        }
+        affected++;
+        switch (rule.getAction()) {
+            case DELETE:
+                pendingWhitespace.clear();
+                return true;
+            case DISABLE:
+            case ENABLE:
+                element.set(0, withEnabled(start, rule.getAction() == RuleSet.Action.ENABLE));
+                writeAll(element);
+                return false;
+            default:
+                writeAll(element);
+                return false;
+        }
+    }
+
+    /**
+     * Copies the rows of a Header Manager's header collection, dropping the matching ones.
+     * The collection's start tag has been written; returns after writing its end tag.
+     */
+    private void filterHeaders(XMLEventReader reader, StartElement headerManager) throws XMLStreamException {
+        int headerMatches = 0;
+        while (reader.hasNext()) {
+            XMLEvent event = reader.nextEvent();
+            if (event.isCharacters() && event.asCharacters().isWhiteSpace()) {
+                pendingWhitespace.add(event);
+                continue;
+            }
+            if (event.isEndElement()) {
+                write(event);
+                break;
+            }
+            if (!event.isStartElement()) {
+                write(event);
+                continue;
+            }
+            List<XMLEvent> row = readElement(reader, event.asStartElement());
+            String headerName = isTag(event.asStartElement(), ELEMENT_PROP)
+                ? directStringProp(row, HEADER_NAME) : null;
+            boolean matches = headerName != null && rules.deletesHeader(headerName);
+            if (matches) {
+                headerMatches++;
+            }
+            if (matches && apply) {
+                pendingWhitespace.clear();
+            } else {
+                writeAll(row);
+            }
+        }
+
+        matched += headerMatches;
+        if (apply) {
+            affected += headerMatches;
+        }
+        if (headerMatches > 0 && listener != null) {
+            String managerName = headerManager != null ? attribute(headerManager, TEST_NAME) : null;
+            listener.accept(RuleSet.Action.DELETE_HEADERS.getName() + ": " + managerName + ": "
+                + headerMatches + " header(s)");
+        }
+    }
+
+    /**
+     * Reads a whole element, from its start event (already consumed) to its matching end.
+     */
+    private static List<XMLEvent> readElement(XMLEventReader reader, StartElement start) throws XMLStreamException {
+        List<XMLEvent> events = new ArrayList<>();
+        events.add(start);
+        int depth = 1;
+        while (depth > 0) {
+            XMLEvent event = reader.nextEvent();
+            if (event.isStartElement()) {
+                depth++;
+            } else if (event.isEndElement()) {
+                depth--;
+            }
+            events.add(event);
+        }
+        return events;
+    }
+
+    /**
+     * Skips the rest of an element whose start event has been consumed, without buffering it.
+     */
+    private static void skipElement(XMLEventReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            XMLEvent event = reader.nextEvent();
+            if (event.isStartElement()) {
+                depth++;
+            } else if (event.isEndElement()) {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * Builds an HTTP sampler from the properties the searchable text and the field patterns
+     * depend on, so that matching applies JMeter's own defaults (protocol, port, method).
+     */
+    private static HTTPSamplerProxy toHttpSampler(String name, List<XMLEvent> element) {
+        HTTPSamplerProxy sampler = new HTTPSamplerProxy();
+        sampler.setName(name != null ? name : directStringProp(element, TestElement.NAME));
+        String protocol = directStringProp(element, HTTPSamplerBase.PROTOCOL);
+        if (protocol != null) {
+            sampler.setProtocol(protocol);
+        }
+        String domain = directStringProp(element, HTTPSamplerBase.DOMAIN);
+        if (domain != null) {
+            sampler.setDomain(domain);
+        }
+        String port = directStringProp(element, HTTPSamplerBase.PORT);
+        if (port != null) {
+            sampler.setProperty(HTTPSamplerBase.PORT, port);
+        }
+        String path = directStringProp(element, HTTPSamplerBase.PATH);
+        if (path != null) {
+            sampler.setPath(path);
+        }
+        String method = directStringProp(element, HTTPSamplerBase.METHOD);
+        if (method != null) {
+            sampler.setMethod(method);
+        }
+        return sampler;
+    }
+
+    /**
+     * Returns the text of a {@code stringProp} that is a direct child of the buffered element.
+     *
+     * @return The text, or null if there is no such property
+     */
+    private static String directStringProp(List<XMLEvent> element, String propertyName) {
+        int depth = 0;
+        for (int i = 0; i < element.size(); i++) {
+            XMLEvent event = element.get(i);
+            if (event.isStartElement()) {
+                depth++;
+                StartElement start = event.asStartElement();
+                if (depth == 2 && isTag(start, STRING_PROP) && propertyName.equals(attribute(start, NAME))) {
+                    StringBuilder text = new StringBuilder();
+                    for (int j = i + 1; j < element.size() && element.get(j).isCharacters(); j++) {
+                        text.append(element.get(j).asCharacters().getData());
+                    }
+                    return text.toString();
+                }
+            } else if (event.isEndElement()) {
+                depth--;
+            }
+        }
+        return null;
+    }
+
+    private StartElement withEnabled(StartElement start, boolean enabled) {
+        List<Attribute> attributes = new ArrayList<>();
+        boolean found = false;
+        for (Iterator<Attribute> it = start.getAttributes(); it.hasNext(); ) {
+            Attribute attribute = it.next();
+            if (attribute.getName().equals(ENABLED)) {
+                attribute = eventFactory.createAttribute(ENABLED, Boolean.toString(enabled));
+                found = true;
+            }
+            attributes.add(attribute);
+        }
+        if (!found) {
+            attributes.add(eventFactory.createAttribute(ENABLED, Boolean.toString(enabled)));
+        }
+        return eventFactory.createStartElement(start.getName(), attributes.iterator(), start.getNamespaces());
+    }
+
+    /**
+     * Classifies an element tag through JMeter's save-service aliases.
+     * Tags whose class is not on the class path (e.g. missing plugins) are copied unchanged.
+     */
+    private Kind kindOf(String tag) {
+        return kindsByTag.computeIfAbsent(tag, t -> {
+            String className = SaveService.aliasToClass(t);
+            try {
+                Class<?> type = Class.forName(className, false, StreamingJmxRewriter.class.getClassLoader());
+                if (HTTPSamplerBase.class.isAssignableFrom(type)) {
+                    return Kind.HTTP_SAMPLER;
+                }
+                return Sampler.class.isAssignableFrom(type) ? Kind.SAMPLER : Kind.OTHER;
+            } catch (ClassNotFoundException | LinkageError e) {
+                log.debug("Copying unknown element <{}> unchanged", t);
+                return Kind.OTHER;
+            }
+        });
+    }
+
+    private void write(XMLEvent event) throws XMLStreamException {
+        for (XMLEvent whitespace : pendingWhitespace) {
+            writer.add(whitespace);
+        }
+        pendingWhitespace.clear();
+        writer.add(event);
+    }
+
+    private void writeAll(List<XMLEvent> events) throws XMLStreamException {
+        for (XMLEvent event : events) {
+            write(event);
+        }
+    }
+
+    private static boolean isTag(StartElement element, String tag) {
+        return tag.equals(element.getName().getLocalPart());
+    }
+
+    private static String attribute(StartElement element, QName name) {
+        Attribute attribute = element.getAttributeByName(name);
+        return attribute != null ? attribute.getValue() : null;
+    }
+}
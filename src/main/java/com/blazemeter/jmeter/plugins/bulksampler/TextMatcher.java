@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazemeter.jmeter.plugins.bulksampler;
+
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * A compiled pattern that can be tested against sampler URIs or header names.
+ * Implementations are immutable and safe to share between threads.
+ */
+public interface TextMatcher {
+
+    /**
+     * Checks whether the pattern occurs anywhere in the text.
+     *
+     * @param text The text to scan (null never matches)
+     * @return true if the text matches
+     */
+    boolean find(CharSequence text);
+
+    /**
+     * Compiles the pattern text entered by the user into a matcher.
+     *
+     * @param patternText The pattern as entered by the user
+     * @param useRegex Whether to treat the pattern as a regular expression
+     * @param multiPattern Whether the pattern is a comma-separated list of literals
+     * @param caseSensitive Whether matching should be case-sensitive
+     * @param linearRegex Whether to prefer the linear-time regex engine, falling back to
+     *        java.util.regex for constructs it does not support
+     * @return The compiled matcher
+     * @throws PatternSyntaxException if the regex pattern is invalid
+     */
+    static TextMatcher compile(String patternText, boolean useRegex, boolean multiPattern,
+            boolean caseSensitive, boolean linearRegex) {
+        if (useRegex) {
+            if (linearRegex) {
+                try {
+                    return LinearRegexMatcher.compile(patternText, caseSensitive);
+                } catch (LinearRegexMatcher.UnsupportedRegexException e) {
+                    // Fall back to java.util.regex below
+                }
+            }
+            int flags = caseSensitive ? 0 : Pattern.CASE_INSENSITIVE;
+            Pattern pattern = Pattern.compile(patternText, flags);
+            return text -> text != null && pattern.matcher(text).find();
+        }
+        if (multiPattern) {
+            return AhoCorasickMatcher.compile(AhoCorasickMatcher.splitPatterns(patternText), caseSensitive);
+        }
+        return LiteralMatcher.compile(patternText, caseSensitive);
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazemeter.jmeter.plugins.bulksampler;
+
+import java.util.Arrays;
+
+import org.apache.jmeter.gui.tree.JMeterTreeNode;
+
+/**
+ * Iterative pre-order traversal of JMeter tree nodes.
+ *
+ * <p>Generated plans can nest controllers thousands of levels deep, which overflows the
+ * event dispatch thread's stack when walked recursively. The walker keeps the current
+ * path in arrays that grow with the depth and are reused by later walks, and visits
+ * children by index, so no {@code Enumeration} is created per node.
+ *
+ * <p>A walker is not thread-safe; give each thread its own. The tree must not be changed
+ * during a walk.
+ */
+final class TreeWalker {
+
+    /**
+     * Receives each node of a walk.
+     */
+    @FunctionalInterface
+    interface Visitor {
+        /**
+         * Visits a node before any of its descendants.
+         *
+         * @param node The node
+         * @return true to visit the node's children, false to skip its subtree
+         */
+        boolean visit(JMeterTreeNode node);
+    }
+
+    private static final int INITIAL_DEPTH = 32;
+
+    /** The nodes on the current path, from the walk root down */
+    private JMeterTreeNode[] path = new JMeterTreeNode[INITIAL_DEPTH];
+    /** For each node on the path, the index of the next child to visit */
+    private int[] nextChild = new int[INITIAL_DEPTH];
+
+    /**
+     * Walks a subtree in pre-order, the same order as
+     * {@link javax.swing.tree.DefaultMutableTreeNode#preorderEnumeration()}.
+     *
+     * @param root The subtree root, visited first
+     * @param visitor Receives each node
+     */
+    void walk(JMeterTreeNode root, Visitor visitor) {
+        if (!visitor.visit(root) || root.getChildCount() == 0) {
+            return;
+        }
+        int depth = 0;
+        path[0] = root;
+        nextChild[0] = 0;
+        try {
+            while (depth >= 0) {
+                JMeterTreeNode parent = path[depth];
+                int index = nextChild[depth];
+                if (index >= parent.getChildCount()) {
+                    path[depth--] = null;
+                    continue;
+                }
+                nextChild[depth] = index + 1;
+                JMeterTreeNode child = (JMeterTreeNode) parent.getChildAt(index);
+                if (visitor.visit(child) && child.getChildCount() > 0) {
+                    if (++depth == path.length) {
+                        path = Arrays.copyOf(path, depth * 2);
+                        nextChild = Arrays.copyOf(nextChild, depth * 2);
+                    }
+                    path[depth] = child;
+                    nextChild[depth] = 0;
+                }
+            }
+        } finally {
+            // Do not keep nodes of a discarded plan reachable
+            Arrays.fill(path, null);
+        }
+    }
+}
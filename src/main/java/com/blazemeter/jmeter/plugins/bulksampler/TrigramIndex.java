@@ -0,0 +1,385 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazemeter.jmeter.plugins.bulksampler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Trigram inverted index over the searchable text of a sampler snapshot.
+ *
+ * <p>Every case-folded three-character substring of an entry's text maps to a sorted
+ * posting list of entry positions. A literal of three or more characters can only occur
+ * in entries that contain all of its trigrams, so intersecting a few posting lists yields
+ * a small candidate set which is then verified with the real matcher.
+ *
+ * <p>Postings are sampler positions in the {@link PlanSnapshot} the index was built
+ * from. The index is immutable once built and safe to query from any thread.
+ */
+public final class TrigramIndex {
+
+    private static final int GRAM = 3;
+
+    private final int entryCount;
+    private final Map<Long, int[]> postings;
+
+    private TrigramIndex(int entryCount, Map<Long, int[]> postings) {
+        this.entryCount = entryCount;
+        this.postings = postings;
+    }
+
+    /**
+     * Builds the index for a sampler snapshot.
+     *
+     * @param snapshot The snapshot whose samplers are indexed
+     * @return The index
+     */
+    public static TrigramIndex build(PlanSnapshot snapshot) {
+        BulkEvents.IndexRebuildEvent event = new BulkEvents.IndexRebuildEvent();
+        event.begin();
+        Map<Long, PostingBuilder> builders = new HashMap<>();
+        int samplerCount = snapshot.getSamplerCount();
+        for (int i = 0; i < samplerCount; i++) {
+            String text = snapshot.getSearchableText(i);
+            for (int p = 0; p + GRAM <= text.length(); p++) {
+                long key = key(text.charAt(p), text.charAt(p + 1), text.charAt(p + 2));
+                builders.computeIfAbsent(key, k -> new PostingBuilder()).add(i);
+            }
+        }
+        Map<Long, int[]> postings = new HashMap<>(builders.size() * 2);
+        for (Map.Entry<Long, PostingBuilder> entry : builders.entrySet()) {
+            postings.put(entry.getKey(), entry.getValue().toArray());
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.index = "trigram";
+            event.entries = samplerCount;
+            event.commit();
+        }
+        return new TrigramIndex(samplerCount, postings);
+    }
+
+    /**
+     * Returns the number of entries this index was built from.
+     *
+     * @return The entry count
+     */
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * Computes the candidate entries for a pattern as entered in the dialog.
+     * The candidates are a superset of the matches, sorted in tree order.
+     *
+     * @param patternText The pattern text
+     * @param useRegex Whether the pattern is a regular expression
+     * @param multiPattern Whether the pattern is a comma-separated list of literals
+     * @return Candidate entry positions, or null if the pattern cannot be prefiltered
+     */
+    public int[] candidates(String patternText, boolean useRegex, boolean multiPattern) {
+        if (useRegex) {
+            List<String> literals = requiredLiterals(patternText);
+            return literals == null ? null : candidatesForAll(literals);
+        }
+        if (multiPattern) {
+            return candidatesForAny(AhoCorasickMatcher.splitPatterns(patternText));
+        }
+        return candidatesForLiteral(patternText);
+    }
+
+    /**
+     * Returns the entries containing every trigram of the literal.
+     *
+     * @param literal The literal text
+     * @return Candidate positions, or null if the literal is shorter than a trigram
+     */
+    public int[] candidatesForLiteral(String literal) {
+        if (literal.length() < GRAM) {
+            return null;
+        }
+        List<int[]> lists = new ArrayList<>();
+        for (int p = 0; p + GRAM <= literal.length(); p++) {
+            int[] list = postings.get(key(literal.charAt(p), literal.charAt(p + 1), literal.charAt(p + 2)));
+            if (list == null) {
+                return new int[0];
+            }
+            lists.add(list);
+        }
+        return intersect(lists);
+    }
+
+    /**
+     * Returns the entries that may contain all of the literals.
+     *
+     * @param literals Literals that every match must contain
+     * @return Candidate positions, or null if none of the literals can be prefiltered
+     */
+    public int[] candidatesForAll(List<String> literals) {
+        List<int[]> lists = new ArrayList<>();
+        for (String literal : literals) {
+            int[] list = candidatesForLiteral(literal);
+            if (list != null) {
+                lists.add(list);
+            }
+        }
+        return lists.isEmpty() ? null : intersect(lists);
+    }
+
+    /**
+     * Returns the entries that may contain any of the literals.
+     *
+     * @param literals Alternative literals
+     * @return Candidate positions, or null if any literal is too short to prefilter
+     */
+    public int[] candidatesForAny(List<String> literals) {
+        if (literals.isEmpty()) {
+            return null;
+        }
+        int[] union = new int[0];
+        for (String literal : literals) {
+            int[] list = candidatesForLiteral(literal);
+            if (list == null) {
+                return null;
+            }
+            union = union(union, list);
+        }
+        return union;
+    }
+
+    /**
+     * Extracts literal fragments that must occur in any text the regex finds.
+     * Only the top-level concatenation is analysed; groups, classes and quantified
+     * characters end a fragment.
+     *
+     * @param regex The regular expression
+     * @return The required literals, or null if the regex has no usable fragments
+     */
+    static List<String> requiredLiterals(String regex) {
+        if (regex.contains("\\Q")) {
+            // Quoted sections are rare in URI filters, keep the analysis simple
+            return null;
+        }
+        List<String> literals = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        int depth = 0;
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                if (i + 1 >= regex.length()) {
+                    return null;
+                }
+                char e = regex.charAt(++i);
+                if (depth == 0 && !Character.isLetterOrDigit(e)) {
+                    current.append(e);
+                    if (isQuantified(regex, i + 1)) {
+                        current.setLength(current.length() - 1);
+                        flush(current, literals);
+                    }
+                } else if (depth == 0) {
+                    if ("xucpPkN0123456789".indexOf(e) >= 0) {
+                        // Escapes with arguments (\x41, \p{L}, back-references, ...)
+                        return null;
+                    }
+                    flush(current, literals);
+                }
+                continue;
+            }
+            switch (c) {
+                case '[':
+                    i = classEnd(regex, i);
+                    if (i < 0) {
+                        return null;
+                    }
+                    flush(current, literals);
+                    break;
+                case '{':
+                    // Counted repetition: the bounds are not text to find
+                    i = regex.indexOf('}', i);
+                    if (i < 0) {
+                        return null;
+                    }
+                    flush(current, literals);
+                    break;
+                case '(':
+                    // Inline flags such as (?x) change how literals are read, and
+                    // stay in effect after the group that sets them
+                    if (regex.startsWith("(?", i) && i + 2 < regex.length()
+                            && Character.isLetter(regex.charAt(i + 2))
+                            && !regex.startsWith("(?<", i)) {
+                        return null;
+                    }
+                    depth++;
+                    flush(current, literals);
+                    break;
+                case ')':
+                    depth--;
+                    break;
+                case '|':
+                    if (depth == 0) {
+                        // Top-level alternation: no fragment is required by every branch
+                        return null;
+                    }
+                    break;
+                case '.':
+                case '^':
+                case '$':
+                case '*':
+                case '+':
+                case '?':
+                case '}':
+                    if (depth == 0) {
+                        flush(current, literals);
+                    }
+                    break;
+                default:
+                    if (depth == 0) {
+                        current.append(c);
+                        if (isQuantified(regex, i + 1)) {
+                            current.setLength(current.length() - 1);
+                            flush(current, literals);
+                        }
+                    }
+                    break;
+            }
+        }
+        flush(current, literals);
+        return literals.isEmpty() ? null : literals;
+    }
+
+    /**
+     * Returns the index of the bracket closing the character class at start,
+     * following nested classes such as [a-z&&[^x]].
+     *
+     * @param regex The regular expression
+     * @param start The index of the opening bracket
+     * @return The index of the closing bracket, or -1 if the class is not closed
+     */
+    private static int classEnd(String regex, int start) {
+        int depth = 0;
+        for (int i = start; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '[') {
+                depth++;
+                // A bracket right after the opening one (or its negation) is literal
+                if (regex.startsWith("^", i + 1)) {
+                    i++;
+                }
+                if (regex.startsWith("]", i + 1)) {
+                    i++;
+                }
+            } else if (c == ']' && --depth == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isQuantified(String regex, int next) {
+        if (next >= regex.length()) {
+            return false;
+        }
+        char q = regex.charAt(next);
+        return q == '*' || q == '?' || q == '{' || q == '+';
+    }
+
+    private static void flush(StringBuilder current, List<String> literals) {
+        if (current.length() >= GRAM) {
+            literals.add(current.toString());
+        }
+        current.setLength(0);
+    }
+
+    private static long key(char a, char b, char c) {
+        return ((long) LiteralMatcher.foldCase(a) << 32)
+            | ((long) LiteralMatcher.foldCase(b) << 16)
+            | LiteralMatcher.foldCase(c);
+    }
+
+    private static int[] intersect(List<int[]> lists) {
+        lists.sort((a, b) -> Integer.compare(a.length, b.length));
+        int[] result = lists.get(0);
+        for (int k = 1; k < lists.size() && result.length > 0; k++) {
+            int[] other = lists.get(k);
+            int[] merged = new int[result.length];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < result.length && j < other.length) {
+                if (result[i] == other[j]) {
+                    merged[count++] = result[i];
+                    i++;
+                    j++;
+                } else if (result[i] < other[j]) {
+                    i++;
+                } else {
+                    j++;
+                }
+            }
+            result = Arrays.copyOf(merged, count);
+        }
+        return result;
+    }
+
+    private static int[] union(int[] a, int[] b) {
+        int[] merged = new int[a.length + b.length];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length || j < b.length) {
+            int next;
+            if (j >= b.length || (i < a.length && a[i] < b[j])) {
+                next = a[i++];
+            } else if (i >= a.length || b[j] < a[i]) {
+                next = b[j++];
+            } else {
+                next = a[i++];
+                j++;
+            }
+            merged[count++] = next;
+        }
+        return Arrays.copyOf(merged, count);
+    }
+
+    /**
+     * Growable posting list; entries are added in increasing order, duplicates collapse.
+     */
+    private static final class PostingBuilder {
+        private int[] ids = new int[4];
+        private int size;
+
+        void add(int id) {
+            if (size > 0 && ids[size - 1] == id) {
+                return;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(ids, size);
+        }
+    }
+}
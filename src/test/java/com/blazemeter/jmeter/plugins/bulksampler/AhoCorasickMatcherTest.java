@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazemeter.jmeter.plugins.bulksampler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class AhoCorasickMatcherTest {
+
+    @Test
+    public void findsAnyPattern() {
+        AhoCorasickMatcher matcher = AhoCorasickMatcher.compile(List.of(".png", ".css", "/analytics"), true);
+        assertTrue(matcher.find("/img/logo.png"));
+        assertTrue(matcher.find("https://example.com/analytics/collect"));
+        assertFalse(matcher.find("/index.html"));
+        assertFalse(matcher.find(null));
+    }
+
+    @Test
+    public void reportsEarliestEndingPattern() {
+        AhoCorasickMatcher matcher = AhoCorasickMatcher.compile(List.of("bcd", "c"), true);
+        assertEquals("c", matcher.getPattern(matcher.firstMatch("abcd")));
+        assertEquals(-1, matcher.firstMatch("abd"));
+    }
+
+    @Test
+    public void findsPatternThatIsSuffixOfAnother() {
+        // Needs the failure link from "abx" back to "bx"
+        AhoCorasickMatcher matcher = AhoCorasickMatcher.compile(List.of("abc", "bx"), true);
+        assertTrue(matcher.find("abx"));
+    }
+
+    @Test
+    public void foldsCaseWhenInsensitive() {
+        AhoCorasickMatcher matcher = AhoCorasickMatcher.compile(List.of("Login", "straße"), false);
+        assertTrue(matcher.find("/LOGIN"));
+        assertTrue(matcher.find("/STRAßE"));
+        assertTrue(matcher.find("/Kogin".replace('K', 'l')));
+        assertFalse(AhoCorasickMatcher.compile(List.of("Login"), true).find("/LOGIN"));
+    }
+
+    @Test
+    public void foldsNonAsciiEdges() {
+        AhoCorasickMatcher matcher = AhoCorasickMatcher.compile(List.of("k", "ſx"), false);
+        assertTrue(matcher.find("K"));
+        assertTrue(matcher.find("SX"));
+    }
+
+    @Test
+    public void splitsTrimmedNonEmptyPatterns() {
+        assertEquals(List.of(".png", "/a b"), AhoCorasickMatcher.splitPatterns(" .png, ,/a b ,"));
+        assertTrue(AhoCorasickMatcher.splitPatterns(" , ").isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsOnlyBlankPatterns() {
+        AhoCorasickMatcher.compile(List.of("", ""), false);
+    }
+
+    @Test
+    public void agreesWithLiteralMatchersOnRandomInput() {
+        Random random = new Random(4);
+        for (int i = 0; i < 10_000; i++) {
+            List<String> patterns = new ArrayList<>();
+            for (int p = 1 + random.nextInt(4); p > 0; p--) {
+                patterns.add(LiteralMatcherTest.randomText(random, 1 + random.nextInt(3)));
+            }
+            String text = LiteralMatcherTest.randomText(random, random.nextInt(12));
+            boolean caseSensitive = random.nextBoolean();
+            boolean expected = false;
+            for (String pattern : patterns) {
+                expected |= LiteralMatcher.compile(pattern, caseSensitive).find(text);
+            }
+            AhoCorasickMatcher matcher = AhoCorasickMatcher.compile(patterns, caseSensitive);
+            assertEquals(patterns + " in " + text + (caseSensitive ? "" : " ignoring case"),
+                expected, matcher.find(text));
+            int hit = matcher.firstMatch(text);
+            if (hit >= 0) {
+                assertTrue(LiteralMatcher.compile(matcher.getPattern(hit), caseSensitive).find(text));
+            }
+        }
+    }
+}
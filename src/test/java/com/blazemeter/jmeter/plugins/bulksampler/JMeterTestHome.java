@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazemeter.jmeter.plugins.bulksampler;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.apache.jmeter.util.JMeterUtils;
+
+/**
+ * Sets up a minimal JMeter installation for tests that load, save or run plans: the
+ * {@code bin/*.properties} files shipped in the ApacheJMeter_config artifact.
+ */
+final class JMeterTestHome {
+
+    private JMeterTestHome() {
+    }
+
+    /**
+     * Copies JMeter's properties files below a directory and loads them.
+     *
+     * @param home The directory to use as JMeter home
+     * @return The JMeter home
+     * @throws IOException if the files cannot be copied
+     */
+    static File init(File home) throws IOException {
+        for (String name : new String[] {"jmeter.properties", "saveservice.properties", "upgrade.properties"}) {
+            try (InputStream in = JMeterTestHome.class.getResourceAsStream("/bin/" + name)) {
+                Path target = home.toPath().resolve("bin").resolve(name);
+                Files.createDirectories(target.getParent());
+                Files.copy(in, target);
+            }
+        }
+        JMeterUtils.setJMeterHome(home.getPath());
+        JMeterUtils.loadJMeterProperties(new File(home, "bin/jmeter.properties").getPath());
+        JMeterUtils.initLocale();
+        return home;
+    }
+}
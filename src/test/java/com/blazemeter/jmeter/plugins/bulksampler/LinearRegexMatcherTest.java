@@ -0,0 +1,203 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazemeter.jmeter.plugins.bulksampler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+/**
+ * Checks the linear-time engine against {@link Pattern#matcher(CharSequence) java.util.regex}
+ * {@code find()}, on fixed cases and on random expressions over the supported syntax.
+ */
+public class LinearRegexMatcherTest {
+
+    private static final String TEXT_ALPHABET = "aAbBcC019 -/._\n";
+
+    private static final List<String> TEXTS = List.of("", "a", "abc", "ABC", "aaab", "abab", "a-b/c.d",
+        "x\n", "ab\n", "\nab", "a\nb", "https://api.example.com:8443/api/v2/users/42?x=1", "__ 9 \t",
+        "aaaaaaaaaaaaaaaaaaaaaaaaaaaaaa!");
+
+    @Test
+    public void agreesOnSupportedConstructs() throws Exception {
+        String[] regexes = {
+            "abc", "a.c", "a\\.c", "^abc", "abc$", "^$", "^", "$", "b$", "^\\n",
+            "[abc]", "[^abc]", "[a-c]+", "[A-Z0-9_]+", "[-a]", "[a-]", "[\\d.]", "[\\w-]+", "[\\s]",
+            "\\d+", "\\D", "\\w+", "\\W", "\\s", "\\S+", "\\t", "\\x41", "\\u0042", "\\/",
+            "a|b", "ab|cd|", "(a|b)c", "(?:ab)+", "(?<name>a)b", "((a)|(b))+c",
+            "a*", "a+", "a?", "a*?", "a+?b", "a??", "a{2}", "a{2,}", "a{1,3}b", "a{0}b", "a{0,1}", "(ab){2,3}",
+            "(a+)+$", "(a|aa)+b", "(a*)*b", ".*", ".+x", "a.*b", "^.*$",
+            "^https://[^/]+/api/v[0-9]+/users/\\d+", "/api/v\\d{1,3}/", "\\.(png|css|js)$", ":\\d{2,4}/"
+        };
+        for (String regex : regexes) {
+            for (boolean caseSensitive : new boolean[] {true, false}) {
+                LinearRegexMatcher matcher = LinearRegexMatcher.compile(regex, caseSensitive);
+                Pattern pattern = Pattern.compile(regex, caseSensitive ? 0 : Pattern.CASE_INSENSITIVE);
+                for (String text : TEXTS) {
+                    assertAgrees(regex, caseSensitive, pattern, matcher, text);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void foldsAsciiCaseOnly() throws Exception {
+        assertTrue(LinearRegexMatcher.compile("login", false).find("/LOGIN"));
+        assertTrue(LinearRegexMatcher.compile("[a-c]x", false).find("BX"));
+        assertFalse(LinearRegexMatcher.compile("login", true).find("/LOGIN"));
+        // Without UNICODE_CASE, java.util.regex does not fold non-ASCII letters either
+        assertFalse(LinearRegexMatcher.compile("ä", false).find("Ä"));
+        assertFalse(Pattern.compile("ä", Pattern.CASE_INSENSITIVE).matcher("Ä").find());
+    }
+
+    @Test
+    public void rejectsUnsupportedConstructs() {
+        String[] regexes = {"(a)\\1", "(?=a)b", "(?!a)b", "(?<=a)b", "(?i)a", "(?>a)", "a*+", "a++", "\\bfoo",
+            "\\p{L}", "[a-z&&[^x]]", "[[a]b]", "\\Qa.b\\E", "\\A", "\\z", "a{1000000}", "(^a*){2}", "(?:b|a$)+"};
+        for (String regex : regexes) {
+            try {
+                LinearRegexMatcher.compile(regex, true);
+                fail("expected " + regex + " to be rejected");
+            } catch (LinearRegexMatcher.UnsupportedRegexException expected) {
+                // The caller falls back to java.util.regex
+            }
+        }
+    }
+
+    @Test
+    public void textMatcherFallsBackToJavaRegex() {
+        // (^/*){2}$ can match "/" (an empty first iteration), but java.util.regex says it does not
+        String[] regexes = {"(a)\\1", "(?=a)a", "\\bab", "(?i)AB", "[a-z&&[^b]]+c", "\\Qa.b\\E", "(^/*){2}$"};
+        for (String regex : regexes) {
+            TextMatcher matcher = TextMatcher.compile(regex, true, false, true, true);
+            assertFalse(regex, matcher instanceof LinearRegexMatcher);
+            Pattern pattern = Pattern.compile(regex);
+            for (String text : List.of("aa", "ab", "a.b", "xAB", "ac", "bc", "/")) {
+                assertEquals(regex + " in " + text, pattern.matcher(text).find(), matcher.find(text));
+            }
+        }
+    }
+
+    @Test
+    public void nullNeverMatches() throws Exception {
+        assertFalse(LinearRegexMatcher.compile(".*", true).find(null));
+    }
+
+    @Test
+    public void agreesOnRandomExpressions() {
+        Random random = new Random(5);
+        int compared = 0;
+        for (int i = 0; i < 20_000; i++) {
+            String regex = randomRegex(random, 3);
+            boolean caseSensitive = random.nextBoolean();
+            LinearRegexMatcher matcher;
+            try {
+                matcher = LinearRegexMatcher.compile(regex, caseSensitive);
+            } catch (LinearRegexMatcher.UnsupportedRegexException e) {
+                // The generator only places anchors inside repeated groups by chance
+                assertEquals(regex, "anchor inside a repeated group", e.getMessage());
+                continue;
+            }
+            Pattern pattern = Pattern.compile(regex, caseSensitive ? 0 : Pattern.CASE_INSENSITIVE);
+            for (int t = 0; t < 20; t++) {
+                assertAgrees(regex, caseSensitive, pattern, matcher, randomText(random, random.nextInt(10)));
+                compared++;
+            }
+        }
+        assertTrue(compared > 300_000);
+    }
+
+    private static void assertAgrees(String regex, boolean caseSensitive, Pattern pattern,
+            LinearRegexMatcher matcher, String text) {
+        assertEquals("/" + regex + "/" + (caseSensitive ? "" : "i") + " in \"" + text.replace("\n", "\\n") + "\"",
+            pattern.matcher(text).find(), matcher.find(text));
+    }
+
+    private static String randomText(Random random, int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append(TEXT_ALPHABET.charAt(random.nextInt(TEXT_ALPHABET.length())));
+        }
+        return text.toString();
+    }
+
+    private static String randomRegex(Random random, int depth) {
+        StringBuilder regex = new StringBuilder();
+        int alternatives = random.nextInt(4) == 0 ? 2 : 1;
+        for (int a = 0; a < alternatives; a++) {
+            if (a > 0) {
+                regex.append('|');
+            }
+            if (random.nextInt(8) == 0) {
+                regex.append('^');
+            }
+            for (int n = 1 + random.nextInt(3); n > 0; n--) {
+                regex.append(randomAtom(random, depth)).append(randomQuantifier(random));
+            }
+            if (random.nextInt(8) == 0) {
+                regex.append('$');
+            }
+        }
+        return regex.toString();
+    }
+
+    private static String randomAtom(Random random, int depth) {
+        switch (random.nextInt(depth > 0 ? 9 : 7)) {
+            case 0:
+                return ".";
+            case 1:
+                return String.valueOf("aAbc01".charAt(random.nextInt(6)));
+            case 2:
+                return List.of("\\d", "\\w", "\\s", "\\D", "\\W", "\\S", "\\.", "\\-", "\\n").get(random.nextInt(9));
+            case 3:
+                return List.of("[ab]", "[^a]", "[a-c]", "[A-C0-9]", "[^\\d]", "[\\w.]", "[-b]", "[^\\n]")
+                    .get(random.nextInt(8));
+            case 4:
+            case 5:
+            case 6:
+                return String.valueOf("abcAB-/ ".charAt(random.nextInt(8)));
+            case 7:
+                return "(" + randomRegex(random, depth - 1) + ")";
+            default:
+                return "(?:" + randomRegex(random, depth - 1) + ")";
+        }
+    }
+
+    private static String randomQuantifier(Random random) {
+        String quantifier = switch (random.nextInt(12)) {
+            case 0 -> "*";
+            case 1 -> "+";
+            case 2 -> "?";
+            case 3 -> "{" + random.nextInt(3) + "}";
+            case 4 -> "{" + random.nextInt(3) + ",}";
+            case 5 -> {
+                int low = random.nextInt(3);
+                yield "{" + low + "," + (low + random.nextInt(3)) + "}";
+            }
+            default -> "";
+        };
+        return !quantifier.isEmpty() && random.nextInt(4) == 0 ? quantifier + "?" : quantifier;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazemeter.jmeter.plugins.bulksampler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class LiteralMatcherTest {
+
+    /** Small alphabet with case pairs and non-ASCII characters whose case folding differs */
+    private static final String ALPHABET = "aAbB/.-ßSsſKkKİıIi";
+
+    @Test
+    public void findsLiteralCaseSensitively() {
+        LiteralMatcher matcher = LiteralMatcher.compile("/api/", true);
+        assertTrue(matcher.find("https://example.com/api/users"));
+        assertFalse(matcher.find("https://example.com/API/users"));
+        assertFalse(matcher.find("/api"));
+    }
+
+    @Test
+    public void foldsCaseWhenInsensitive() {
+        LiteralMatcher matcher = LiteralMatcher.compile("Login", false);
+        assertTrue(matcher.find("POST /LOGIN"));
+        assertTrue(matcher.find("login page"));
+        assertFalse(matcher.find("logout"));
+    }
+
+    @Test
+    public void foldsNonAsciiLikeRegionMatches() {
+        // U+212A KELVIN SIGN folds to k, U+017F LONG S folds to s
+        assertTrue(LiteralMatcher.compile("k", false).find("K"));
+        assertTrue(LiteralMatcher.compile("s", false).find("ſ"));
+        assertTrue(LiteralMatcher.compile("ÄÖÜ", false).find("xäöüx"));
+    }
+
+    @Test
+    public void emptyLiteralMatchesAnyTextButNotNull() {
+        LiteralMatcher matcher = LiteralMatcher.compile("", false);
+        assertTrue(matcher.find(""));
+        assertTrue(matcher.find("anything"));
+        assertFalse(matcher.find(null));
+    }
+
+    @Test
+    public void indexInStartsAtOffset() {
+        LiteralMatcher matcher = LiteralMatcher.compile("ab", false);
+        assertEquals(0, matcher.indexIn("abxAB", 0));
+        assertEquals(3, matcher.indexIn("abxAB", 1));
+        assertEquals(-1, matcher.indexIn("abxAB", 4));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNullLiteral() {
+        LiteralMatcher.compile(null, true);
+    }
+
+    @Test
+    public void agreesWithRegionMatchesOnRandomInput() {
+        Random random = new Random(3);
+        for (int i = 0; i < 20_000; i++) {
+            String literal = randomText(random, 1 + random.nextInt(4));
+            String text = randomText(random, random.nextInt(12));
+            boolean caseSensitive = random.nextBoolean();
+            assertEquals(literal + " in " + text + (caseSensitive ? "" : " ignoring case"),
+                contains(text, literal, caseSensitive),
+                LiteralMatcher.compile(literal, caseSensitive).find(text));
+        }
+    }
+
+    private static boolean contains(String text, String literal, boolean caseSensitive) {
+        for (int i = 0; i + literal.length() <= text.length(); i++) {
+            if (text.regionMatches(!caseSensitive, i, literal, 0, literal.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static String randomText(Random random, int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazemeter.jmeter.plugins.bulksampler;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.jmeter.gui.tree.JMeterTreeNode;
+import org.apache.jmeter.protocol.http.sampler.HTTPSamplerBase;
+import org.apache.jmeter.protocol.http.sampler.HTTPSamplerProxy;
+import org.junit.Test;
+
+/**
+ * Checks that a rule set decides each sampler exactly as trying its rules one by one in
+ * precedence order would, including when literal rules share one search.
+ */
+public class RuleSetTest {
+
+    private static final String[] LITERALS = {
+        "/api/", "/static/", ".png", "/users/", "example.com", "API/V2", "reviews", "cdn.", "/items", "collect"
+    };
+    private static final String[] OTHER_PATTERNS = {
+        "/v[12]/", "^\\d+ /products/", "domain:cdn.example.com", "method:POST", "path:/static/css/", "port:443"
+    };
+
+    @Test
+    public void firstMatchingLiteralRuleWins() {
+        RuleSet rules = new RuleSet(List.of(
+            rule("1", RuleSet.Action.DELETE, "/static/", false, false, 0),
+            rule("2", RuleSet.Action.DELETE, ".png, .css", false, true, 0),
+            rule("3", RuleSet.Action.DISABLE, "/static/", false, false, 5)));
+        RuleSet.Rule[] byId = rules.getRules().toArray(new RuleSet.Rule[0]);
+        assertSame(byId[2], rules.decideSampler("a", sampler("/static/a.png")));
+        assertSame(byId[1], rules.decideSampler("a", sampler("/img/a.PNG")));
+        assertNull(rules.decideSampler("a", sampler("/img/a.gif")));
+        assertSame(byId[1], rules.decideSampler("logo.css", null));
+    }
+
+    @Test
+    public void decidesLikeRulesTriedOneByOne() {
+        TestPlanGenerator.Plan plan = TestPlanGenerator.generate(new TestPlanGenerator.Shape(1, 0, 300, 0, 0), 13);
+        Random random = new Random(17);
+        int decided = 0;
+        for (int set = 0; set < 300; set++) {
+            List<RuleSet.Rule> ruleList = new ArrayList<>();
+            for (int r = 1 + random.nextInt(8); r > 0; r--) {
+                ruleList.add(randomRule(random, String.valueOf(ruleList.size() + 1)));
+            }
+            RuleSet rules = new RuleSet(ruleList);
+            for (JMeterTreeNode node : plan.samplerNodes()) {
+                HTTPSamplerBase sampler = (HTTPSamplerBase) node.getTestElement();
+                RuleSet.Rule expected = decideOneByOne(ruleList, sampler.getName(), sampler);
+                assertSame(ruleList + " on " + SamplerIndex.extractUri(sampler), expected,
+                    rules.decideSampler(sampler.getName(), sampler));
+                if (expected != null) {
+                    decided++;
+                }
+            }
+        }
+        assertTrue(decided > 10_000);
+    }
+
+    @Test
+    public void sharesTheSearchableTextOnlyWhenARuleNeedsIt() {
+        assertFalse(new RuleSet(List.of(rule("1", RuleSet.Action.DELETE, "domain:cdn", false, false, 0)))
+            .needsSearchableText());
+        assertTrue(new RuleSet(List.of(rule("1", RuleSet.Action.DELETE, "domain:cdn", false, false, 0),
+            rule("2", RuleSet.Action.DISABLE, "cdn", false, false, 0))).needsSearchableText());
+    }
+
+    /**
+     * The precedence the rule set documents: highest priority, then the strongest action,
+     * then file order.
+     */
+    private static RuleSet.Rule decideOneByOne(List<RuleSet.Rule> rules, String name, HTTPSamplerBase sampler) {
+        RuleSet.Rule winner = null;
+        for (RuleSet.Rule rule : rules) {
+            if (!rule.matchesSampler(name, sampler)) {
+                continue;
+            }
+            if (winner == null || rule.getPriority() > winner.getPriority()
+                    || rule.getPriority() == winner.getPriority()
+                    && rule.getAction().compareTo(winner.getAction()) < 0) {
+                winner = rule;
+            }
+        }
+        return winner;
+    }
+
+    private static RuleSet.Rule randomRule(Random random, String id) {
+        RuleSet.Action action = List.of(RuleSet.Action.DELETE, RuleSet.Action.DISABLE, RuleSet.Action.ENABLE)
+            .get(random.nextInt(3));
+        int priority = random.nextInt(4) == 0 ? 1 : 0;
+        boolean caseSensitive = random.nextInt(4) == 0;
+        boolean invert = random.nextInt(8) == 0;
+        if (random.nextInt(4) == 0) {
+            String pattern = OTHER_PATTERNS[random.nextInt(OTHER_PATTERNS.length)];
+            return new RuleSet.Rule(id, action, pattern, !pattern.contains(":") || pattern.startsWith("^"), true,
+                false, caseSensitive, invert, priority);
+        }
+        boolean multi = random.nextBoolean();
+        String pattern = LITERALS[random.nextInt(LITERALS.length)];
+        if (multi) {
+            pattern += ", " + LITERALS[random.nextInt(LITERALS.length)];
+        }
+        return new RuleSet.Rule(id, action, pattern, false, true, multi, caseSensitive, invert, priority);
+    }
+
+    private static RuleSet.Rule rule(String id, RuleSet.Action action, String pattern, boolean regex, boolean multi,
+            int priority) {
+        return new RuleSet.Rule(id, action, pattern, regex, true, multi, false, false, priority);
+    }
+
+    private static HTTPSamplerProxy sampler(String path) {
+        HTTPSamplerProxy sampler = new HTTPSamplerProxy();
+        sampler.setName("a");
+        sampler.setDomain("www.example.com");
+        sampler.setPath(path);
+        return sampler;
+    }
+}
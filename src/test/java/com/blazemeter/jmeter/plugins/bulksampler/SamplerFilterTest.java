@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazemeter.jmeter.plugins.bulksampler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.jmeter.control.GenericController;
+import org.apache.jmeter.engine.StandardJMeterEngine;
+import org.apache.jmeter.protocol.http.control.HeaderManager;
+import org.apache.jmeter.protocol.http.sampler.HTTPSamplerProxy;
+import org.apache.jmeter.testelement.TestElement;
+import org.apache.jmeter.testelement.TestPlan;
+import org.apache.jmeter.util.JMeterUtils;
+import org.apache.jorphan.collections.HashTree;
+import org.apache.jorphan.collections.SearchByClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Checks how the run-time filter prunes a test tree, and that it still reaches the tree of
+ * a running {@link StandardJMeterEngine} (through private fields, see {@link SamplerFilter}).
+ */
+public class SamplerFilterTest {
+
+    @ClassRule
+    public static final TemporaryFolder FOLDER = new TemporaryFolder();
+
+    @BeforeClass
+    public static void initJMeter() throws IOException {
+        JMeterTestHome.init(FOLDER.newFolder("jmeter"));
+    }
+
+    @Test
+    public void prunesMatchingSamplersWithTheirSubtrees() {
+        SamplerFilter filter = new SamplerFilter();
+        HashTree tree = new HashTree();
+        HashTree planTree = tree.add(new TestPlan("Plan"));
+        planTree.add(filter);
+        HashTree pageTree = planTree.add(controller("Page"));
+        HTTPSamplerProxy image = sampler("image", "/static/logo.png");
+        HeaderManager imageHeaders = new HeaderManager();
+        pageTree.add(image).add(imageHeaders);
+        HTTPSamplerProxy api = sampler("api", "/api/users");
+        HeaderManager apiHeaders = new HeaderManager();
+        pageTree.add(api).add(apiHeaders);
+        HashTree nestedTree = pageTree.add(controller("Nested"));
+        HTTPSamplerProxy style = sampler("style", "/static/app.css");
+        nestedTree.add(style);
+        HTTPSamplerProxy reviews = sampler("reviews", "/products/1/reviews");
+        nestedTree.add(reviews);
+        HTTPSamplerProxy script = sampler("script", "/static/app.js");
+        planTree.add(script);
+
+        int pruned = SamplerFilter.prune(tree, compile("/static/"), filter);
+
+        assertEquals(3, pruned);
+        assertEquals(Set.of(api, reviews), samplers(tree));
+        assertFalse(contains(tree, filter));
+        assertFalse(contains(tree, imageHeaders));
+        assertTrue(contains(tree, apiHeaders));
+        assertEquals(1, pageTree.list().stream().filter(GenericController.class::isInstance).count());
+    }
+
+    @Test
+    public void keepsTheTreeWhenNothingMatches() {
+        HashTree tree = new HashTree();
+        HashTree planTree = tree.add(new TestPlan("Plan"));
+        HTTPSamplerProxy api = sampler("api", "/api/users");
+        planTree.add(controller("Page")).add(api);
+
+        assertEquals(0, SamplerFilter.prune(tree, compile("domain:cdn.example.com"), null));
+        assertEquals(Set.of(api), samplers(tree));
+    }
+
+    @Test
+    public void prunesTheTreeOfTheRunningEngine() {
+        SamplerFilter filter = new SamplerFilter();
+        filter.setPatternProperty("bulk.test.disable");
+        HashTree tree = new HashTree();
+        HashTree planTree = tree.add(new TestPlan("Plan"));
+        planTree.add(filter);
+        HashTree pageTree = planTree.add(controller("Page"));
+        HTTPSamplerProxy api = sampler("api", "/api/users");
+        pageTree.add(api);
+        pageTree.add(sampler("image", "/static/logo.png"));
+
+        // Without thread groups the engine notifies the test listeners and ends at once
+        JMeterUtils.setProperty("bulk.test.disable", "/static/");
+        try {
+            StandardJMeterEngine engine = new StandardJMeterEngine();
+            engine.configure(tree);
+            engine.run();
+            // Fails if a JMeter upgrade renamed the engine fields the filter reads
+            assertSame(tree, SamplerFilter.findRunningTestTree());
+        } finally {
+            JMeterUtils.getJMeterProperties().remove("bulk.test.disable");
+        }
+        assertEquals(Set.of(api), samplers(tree));
+        assertFalse(contains(tree, filter));
+    }
+
+    private static SamplerPattern compile(String pattern) {
+        return SamplerPattern.compile(pattern, false, false, false, true);
+    }
+
+    private static GenericController controller(String name) {
+        GenericController controller = new GenericController();
+        controller.setName(name);
+        return controller;
+    }
+
+    private static HTTPSamplerProxy sampler(String name, String path) {
+        HTTPSamplerProxy sampler = new HTTPSamplerProxy();
+        sampler.setName(name);
+        sampler.setDomain("www.example.com");
+        sampler.setPath(path);
+        return sampler;
+    }
+
+    private static Set<HTTPSamplerProxy> samplers(HashTree tree) {
+        SearchByClass<HTTPSamplerProxy> search = new SearchByClass<>(HTTPSamplerProxy.class);
+        tree.traverse(search);
+        return new HashSet<>(search.getSearchResults());
+    }
+
+    // Test elements compare equal by their properties, so look for this very instance
+    private static boolean contains(HashTree tree, TestElement element) {
+        SearchByClass<TestElement> search = new SearchByClass<>(TestElement.class);
+        tree.traverse(search);
+        return search.getSearchResults().stream().anyMatch(found -> found == element);
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazemeter.jmeter.plugins.bulksampler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.regex.PatternSyntaxException;
+
+import org.apache.jmeter.protocol.http.sampler.HTTPSamplerProxy;
+import org.junit.Test;
+
+/**
+ * Checks field prefixes and port lists of sampler patterns.
+ */
+public class SamplerPatternTest {
+
+    @Test
+    public void readsFieldPrefixes() {
+        assertEquals(SamplerPattern.Field.DOMAIN, SamplerPattern.fieldOf("Domain: example.com"));
+        assertEquals("example.com", SamplerPattern.valueOf("Domain: example.com"));
+        assertNull(SamplerPattern.fieldOf("https://example.com/"));
+        assertEquals("https://example.com/", SamplerPattern.valueOf("https://example.com/"));
+        assertNull(SamplerPattern.fieldOf(":8080"));
+    }
+
+    @Test
+    public void rejectsEmptyFieldValues() {
+        for (SamplerPattern.Field field : SamplerPattern.Field.values()) {
+            for (String text : new String[] {field.getKey() + ":", field.getKey() + ":   "}) {
+                for (boolean regex : new boolean[] {false, true}) {
+                    assertEquals("Expected a value after " + field.getKey() + ":",
+                        assertRejected(text, regex, false).getDescription());
+                }
+                assertEquals(text, assertRejected(text, false, true).getPattern());
+            }
+        }
+    }
+
+    @Test
+    public void matchesOnlyTheScopedField() {
+        HTTPSamplerProxy sampler = sampler("Login", "https", "auth.example.com", 8443, "/login", "POST");
+        assertTrue(compile("domain:auth.example").matches("Login", sampler));
+        assertFalse(compile("path:auth.example").matches("Login", sampler));
+        assertTrue(compile("path:/login").matches("Login", sampler));
+        assertTrue(compile("method:post").matches("Login", sampler));
+        assertFalse(compile("method:get").matches("Login", sampler));
+        assertTrue(compile("name:log").matches("Login", sampler));
+        assertTrue(compile("auth.example.com:8443/login").matches("Login", sampler));
+    }
+
+    @Test
+    public void parsesPortLists() {
+        SamplerPattern ports = compile("port: 80, 8000-8999");
+        assertTrue(ports.matches("a", sampler("a", "http", "example.com", 80, "/", "GET")));
+        assertTrue(ports.matches("a", sampler("a", "http", "example.com", 8443, "/", "GET")));
+        assertFalse(ports.matches("a", sampler("a", "http", "example.com", 9000, "/", "GET")));
+        for (String invalid : new String[] {"port:http", "port:90-80", "port:80-", "port:,"}) {
+            assertRejected(invalid, false, false);
+        }
+    }
+
+    private static SamplerPattern compile(String text) {
+        return SamplerPattern.compile(text, false, false, false, true);
+    }
+
+    private static PatternSyntaxException assertRejected(String text, boolean regex, boolean multi) {
+        try {
+            SamplerPattern.compile(text, regex, multi, false, true);
+        } catch (PatternSyntaxException expected) {
+            return expected;
+        }
+        throw new AssertionError("expected " + text + " to be rejected");
+    }
+
+    private static HTTPSamplerProxy sampler(String name, String protocol, String domain, int port, String path,
+            String method) {
+        HTTPSamplerProxy sampler = new HTTPSamplerProxy();
+        sampler.setName(name);
+        sampler.setProtocol(protocol);
+        sampler.setDomain(domain);
+        sampler.setPort(port);
+        sampler.setPath(path);
+        sampler.setMethod(method);
+        return sampler;
+    }
+}
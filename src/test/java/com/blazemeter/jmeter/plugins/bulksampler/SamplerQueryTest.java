@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazemeter.jmeter.plugins.bulksampler;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.apache.jmeter.gui.tree.JMeterTreeNode;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Checks that a preview computed over trigram candidates or refined matches, which an apply
+ * may reuse, finds exactly what a full scan of the plan finds.
+ */
+public class SamplerQueryTest {
+
+    private static PlanSnapshot snapshot;
+    private static TrigramIndex index;
+    private static List<JMeterTreeNode> firstThreadGroup;
+
+    @BeforeClass
+    public static void buildPlan() {
+        // Larger than a parallel chunk, so full scans are split across the pool
+        TestPlanGenerator.Plan plan = TestPlanGenerator.generate(new TestPlanGenerator.Shape(3, 2, 10_000, 0, 0), 3);
+        snapshot = SamplerIndex.unshared(plan.model()).planSnapshot(null);
+        index = TrigramIndex.build(snapshot);
+        JMeterTreeNode testPlan = (JMeterTreeNode) ((JMeterTreeNode) plan.model().getRoot()).getChildAt(0);
+        firstThreadGroup = List.of((JMeterTreeNode) testPlan.getChildAt(0));
+    }
+
+    @Test
+    public void prefilteredResultEqualsFullScan() {
+        SamplerQuery[] queries = {
+            query("/api/v2/", false, false, true, null),
+            query("API/V", false, false, false, null),
+            query("/api/v[0-9]{1,3}/orders/\\d+", true, false, true, null),
+            query("banner-\\d{2}\\.png$", true, false, true, firstThreadGroup),
+            query("/items, .png", false, true, true, null),
+            query("domain:cdn.example", false, false, true, null),
+            query("path:^/static/css/", true, false, false, null),
+            query("/reviews", false, false, true, firstThreadGroup)
+        };
+        for (SamplerQuery query : queries) {
+            int[] candidates = query.candidates(index);
+            assertNotNull(query.toString(), candidates);
+            SamplerQuery.Result prefiltered = query.run(snapshot, candidates, null);
+            assertEquals(SamplerQuery.Result.Source.PREFILTERED, prefiltered.getSource());
+            assertSameMatches(query.run(snapshot, null, null), prefiltered);
+        }
+    }
+
+    @Test
+    public void refinedResultEqualsFullScan() {
+        String[][] steps = {
+            {"/api", "/api/v1", "/api/v1/users/"},
+            {"path:/static", "path:/static/img/banner-1"},
+            {"domain:example", "domain:api.example.com"}
+        };
+        for (boolean caseSensitive : new boolean[] {true, false}) {
+            for (String[] patterns : steps) {
+                SamplerQuery.Result previous = query(patterns[0], false, false, caseSensitive, null)
+                    .run(snapshot, null, null);
+                assertEquals(SamplerQuery.Result.Source.FULL_SCAN, previous.getSource());
+                for (int i = 1; i < patterns.length; i++) {
+                    SamplerQuery query = query(patterns[i], false, false, caseSensitive, null);
+                    SamplerQuery.Result refined = query.refine(previous, null, null);
+                    assertNotNull(query.toString(), refined);
+                    assertEquals(SamplerQuery.Result.Source.REFINED, refined.getSource());
+                    assertSameMatches(query.run(snapshot, null, null), refined);
+                    assertTrue(query.toString(), refined.size() > 0 && refined.size() < previous.size());
+                    previous = refined;
+                }
+            }
+        }
+    }
+
+    @Test
+    public void refusesToRefineUnrelatedQueries() {
+        SamplerQuery.Result previous = query("/api/v1", false, false, true, null).run(snapshot, null, null);
+        assertNull(query("/api/v2", false, false, true, null).refine(previous, null, null));
+        assertNull(query("/API/v1/users", false, false, false, null).refine(previous, null, null));
+        assertNull(query("/api/v1/users", false, false, true, firstThreadGroup).refine(previous, null, null));
+        assertNull(query("/api/v1/users", true, false, true, null).refine(previous, null, null));
+        assertNull(query("path:/api/v1/users", false, false, true, null).refine(previous, null, null));
+
+        SamplerQuery.Result aborted = query("/api", false, false, true, null).run(snapshot, null, () -> true);
+        assertNull(query("/api/v1", false, false, true, null).refine(aborted, null, null));
+    }
+
+    private static SamplerQuery query(String pattern, boolean regex, boolean multi, boolean caseSensitive,
+            List<JMeterTreeNode> scope) {
+        return new SamplerQuery(pattern, regex, true, multi, caseSensitive, false, scope);
+    }
+
+    private static void assertSameMatches(SamplerQuery.Result expected, SamplerQuery.Result actual) {
+        String query = actual.getQuery().toString();
+        assertTrue(query, expected.isComplete() && actual.isComplete());
+        assertArrayEquals(query, expected.positions(), actual.positions());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(query, expected.getHitPattern(i), actual.getHitPattern(i));
+        }
+        assertTrue(query + " matched nothing", expected.size() > 0);
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazemeter.jmeter.plugins.bulksampler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.jmeter.save.SaveService;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Runs the same rules through the streaming rewriter and through the tree model that
+ * {@link SaveService} loads and saves, and checks that both write the same plan.
+ */
+public class StreamingJmxRewriterTest {
+
+    @ClassRule
+    public static final TemporaryFolder FOLDER = new TemporaryFolder();
+
+    private static final Pattern COUNTS = Pattern.compile("matched=(\\d+) affected=(\\d+)");
+
+    private static File jmeterHome;
+    private static Path plan;
+
+    @BeforeClass
+    public static void savePlan() throws IOException {
+        jmeterHome = JMeterTestHome.init(FOLDER.newFolder("jmeter"));
+
+        TestPlanGenerator.Plan generated = TestPlanGenerator.generate(new TestPlanGenerator.Shape(3, 2, 600, 80, 6), 21);
+        plan = FOLDER.getRoot().toPath().resolve("plan.jmx");
+        try (OutputStream out = Files.newOutputStream(plan)) {
+            SaveService.saveTree(generated.toHashTree(), out);
+        }
+    }
+
+    @Test
+    public void rewritesSamplersLikeTheTreePath() throws IOException {
+        assertSameEdit("""
+            rule.1.action = delete
+            rule.1.pattern = .png, .css
+            rule.1.multi = true
+            rule.2.action = disable
+            rule.2.pattern = /analytics/
+            rule.2.priority = 10
+            rule.3.action = disable
+            rule.3.pattern = method:POST
+            """);
+    }
+
+    @Test
+    public void rewritesFieldsAndInvertedRulesLikeTheTreePath() throws IOException {
+        assertSameEdit("""
+            rule.1.action = delete
+            rule.1.pattern = domain:cdn.example.com
+            rule.2.action = disable
+            rule.2.pattern = path:^/api/v[12]/
+            rule.2.regex = true
+            rule.2.invert = true
+            rule.3.action = enable
+            rule.3.pattern = /users/
+            rule.3.priority = 5
+            """);
+    }
+
+    @Test
+    public void deletesHeadersLikeTheTreePath() throws IOException {
+        assertSameEdit("""
+            rule.1.action = delete-headers
+            rule.1.pattern = ^(Cookie|Sec-.*)$
+            rule.1.regex = true
+            rule.2.action = delete-headers
+            rule.2.pattern = user-agent, referer
+            rule.2.multi = true
+            rule.3.action = delete
+            rule.3.pattern = /orders/
+            """);
+    }
+
+    /**
+     * Applies a rule file both ways and compares the summary counts and the saved plans.
+     * Both outputs are loaded and saved again, so only their content is compared, not the
+     * layout of the XML.
+     */
+    private static void assertSameEdit(String rules) throws IOException {
+        Path rulesFile = Files.writeString(FOLDER.newFile().toPath(), rules);
+        Path treeOutput = FOLDER.newFile().toPath();
+        Path streamingOutput = FOLDER.newFile().toPath();
+        int[] treeCounts = edit(rulesFile, treeOutput, false);
+        int[] streamingCounts = edit(rulesFile, streamingOutput, true);
+
+        assertTrue("nothing matched", treeCounts[0] > 0 && treeCounts[1] > 0);
+        assertEquals("matched", treeCounts[0], streamingCounts[0]);
+        assertEquals("affected", treeCounts[1], streamingCounts[1]);
+        String tree = resave(treeOutput);
+        assertNotEquals("the plan was not edited", resave(plan), tree);
+        assertEquals(tree, resave(streamingOutput));
+    }
+
+    private static int[] edit(Path rules, Path output, boolean streaming) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        String[] args = streaming
+            ? new String[] {"--rules", rules.toString(), "--output", output.toString(), "--streaming",
+                "--jmeter-home", jmeterHome.getPath(), plan.toString()}
+            : new String[] {"--rules", rules.toString(), "--output", output.toString(),
+                "--jmeter-home", jmeterHome.getPath(), plan.toString()};
+        int exit = BulkEditCli.run(args, new PrintStream(out, true, StandardCharsets.UTF_8),
+            new PrintStream(err, true, StandardCharsets.UTF_8));
+        assertEquals(err.toString(StandardCharsets.UTF_8), BulkEditCli.EXIT_OK, exit);
+        Matcher counts = COUNTS.matcher(out.toString(StandardCharsets.UTF_8));
+        assertTrue(out.toString(StandardCharsets.UTF_8), counts.find());
+        return new int[] {Integer.parseInt(counts.group(1)), Integer.parseInt(counts.group(2))};
+    }
+
+    private static String resave(Path file) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SaveService.saveTree(SaveService.loadTree(file.toFile()), out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazemeter.jmeter.plugins.bulksampler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.jmeter.control.GenericController;
+import org.apache.jmeter.control.LoopController;
+import org.apache.jmeter.gui.tree.JMeterTreeModel;
+import org.apache.jmeter.gui.tree.JMeterTreeNode;
+import org.apache.jmeter.protocol.http.control.Header;
+import org.apache.jmeter.protocol.http.control.HeaderManager;
+import org.apache.jmeter.protocol.http.sampler.HTTPSamplerProxy;
+import org.apache.jmeter.testelement.TestElement;
+import org.apache.jmeter.testelement.TestPlan;
+import org.apache.jmeter.threads.ThreadGroup;
+import org.apache.jorphan.collections.HashTree;
+
+/**
+ * Builds synthetic test plans of a configurable shape for the tests and benchmarks.
+ *
+ * <p>Plans look like recorded or HAR-imported scripts: thread groups containing nested
+ * controllers, pages of HTTP samplers below the innermost controller, and optionally a
+ * Header Manager under each of the first samplers. Generation is deterministic for a
+ * given shape and seed.
+ *
+ * <p>Nodes are linked directly rather than through {@link JMeterTreeModel#insertNodeInto},
+ * so building a million-sampler plan does not fire a million tree events.
+ */
+public final class TestPlanGenerator {
+
+    /** Samplers per innermost controller, roughly one recorded page */
+    public static final int SAMPLERS_PER_PAGE = 25;
+
+    private static final String[] DOMAINS = {
+        "www.example.com", "api.example.com", "cdn.example.com", "auth.example.com", "collect.tracker.io"
+    };
+
+    private static final String[] HEADER_NAMES = {
+        "Cookie", "Accept", "Accept-Language", "Accept-Encoding", "User-Agent", "Referer",
+        "Authorization", "X-Request-Id", "X-Correlation-Id", "Cache-Control", "Origin", "Sec-Fetch-Mode"
+    };
+
+    private TestPlanGenerator() {
+    }
+
+    /**
+     * The shape of a generated plan.
+     *
+     * @param threadGroups The number of thread groups (samplers are spread evenly)
+     * @param depth The controller nesting depth inside each thread group
+     * @param samplers The total number of HTTP samplers
+     * @param headerManagers The number of samplers that get a child Header Manager
+     * @param headerRows The number of header rows in each Header Manager
+     */
+    public record Shape(int threadGroups, int depth, int samplers, int headerManagers, int headerRows) {
+
+        public Shape {
+            if (threadGroups < 1 || depth < 0 || samplers < 0 || headerManagers < 0 || headerRows < 0) {
+                throw new IllegalArgumentException("Invalid plan shape: " + this);
+            }
+        }
+    }
+
+    /**
+     * A generated plan.
+     *
+     * @param model The tree model holding the plan
+     * @param samplerNodes The sampler nodes, in tree order
+     * @param headerManagerNodes The Header Manager nodes, in tree order
+     */
+    public record Plan(JMeterTreeModel model, List<JMeterTreeNode> samplerNodes,
+            List<JMeterTreeNode> headerManagerNodes) {
+
+        /**
+         * Returns the test plan as the HashTree JMeter saves and runs.
+         *
+         * @return The test plan tree
+         */
+        public HashTree toHashTree() {
+            return BulkEditCli.toHashTree(model);
+        }
+    }
+
+    /**
+     * Generates a plan.
+     *
+     * @param shape The plan shape
+     * @param seed The random seed for URLs and header values
+     * @return The generated plan
+     */
+    public static Plan generate(Shape shape, long seed) {
+        Random random = new Random(seed);
+        TestPlan testPlan = new TestPlan("Generated Plan");
+        setClasses(testPlan, "org.apache.jmeter.control.gui.TestPlanGui");
+        JMeterTreeModel model = new JMeterTreeModel(testPlan);
+        JMeterTreeNode root = (JMeterTreeNode) model.getRoot();
+        JMeterTreeNode planNode = (JMeterTreeNode) root.getChildAt(0);
+
+        List<JMeterTreeNode> samplerNodes = new ArrayList<>(shape.samplers());
+        List<JMeterTreeNode> headerManagerNodes = new ArrayList<>(shape.headerManagers());
+
+        int samplerId = 0;
+        for (int g = 0; g < shape.threadGroups(); g++) {
+            JMeterTreeNode groupNode = add(model, planNode, threadGroup("Thread Group " + (g + 1)));
+
+            JMeterTreeNode container = groupNode;
+            for (int level = 1; level <= shape.depth(); level++) {
+                container = add(model, container, controller("Level " + level));
+            }
+
+            // Spread samplers evenly, the first groups taking the remainder
+            int groupSamplers = shape.samplers() / shape.threadGroups()
+                + (g < shape.samplers() % shape.threadGroups() ? 1 : 0);
+            JMeterTreeNode page = null;
+            for (int i = 0; i < groupSamplers; i++) {
+                if (i % SAMPLERS_PER_PAGE == 0) {
+                    page = add(model, container, controller("Page " + (i / SAMPLERS_PER_PAGE + 1)));
+                }
+                JMeterTreeNode samplerNode = add(model, page, sampler(samplerId, random));
+                samplerNodes.add(samplerNode);
+                if (samplerId < shape.headerManagers()) {
+                    headerManagerNodes.add(add(model, samplerNode,
+                        headerManager(samplerId, shape.headerRows(), random)));
+                }
+                samplerId++;
+            }
+        }
+        model.nodeStructureChanged(root);
+        return new Plan(model, samplerNodes, headerManagerNodes);
+    }
+
+    /**
+     * Builds a Header Manager with generated rows; names cycle through common request headers.
+     *
+     * @param id A number used in the manager name and header values
+     * @param rows The number of header rows
+     * @param random The random source for values
+     * @return The Header Manager
+     */
+    public static HeaderManager headerManager(int id, int rows, Random random) {
+        HeaderManager headerManager = new HeaderManager();
+        headerManager.setName("HTTP Header Manager " + id);
+        setClasses(headerManager, "org.apache.jmeter.protocol.http.gui.HeaderPanel");
+        for (int r = 0; r < rows; r++) {
+            String name = HEADER_NAMES[r % HEADER_NAMES.length];
+            headerManager.add(new Header(name, name.toLowerCase() + "-" + Integer.toHexString(random.nextInt())));
+        }
+        return headerManager;
+    }
+
+    private static JMeterTreeNode add(JMeterTreeModel model, JMeterTreeNode parent, TestElement element) {
+        JMeterTreeNode node = new JMeterTreeNode(element, model);
+        parent.add(node);
+        return node;
+    }
+
+    private static ThreadGroup threadGroup(String name) {
+        LoopController loop = new LoopController();
+        loop.setLoops(1);
+        ThreadGroup threadGroup = new ThreadGroup();
+        threadGroup.setName(name);
+        threadGroup.setNumThreads(1);
+        threadGroup.setSamplerController(loop);
+        setClasses(loop, "org.apache.jmeter.control.gui.LoopControlPanel");
+        setClasses(threadGroup, "org.apache.jmeter.threads.gui.ThreadGroupGui");
+        return threadGroup;
+    }
+
+    private static GenericController controller(String name) {
+        GenericController controller = new GenericController();
+        controller.setName(name);
+        setClasses(controller, "org.apache.jmeter.control.gui.LogicControllerGui");
+        return controller;
+    }
+
+    /**
+     * Builds a sampler whose URL resembles recorded traffic: API calls, static assets
+     * and analytics beacons on a handful of domains.
+     */
+    private static HTTPSamplerProxy sampler(int id, Random random) {
+        String path = switch (random.nextInt(6)) {
+            case 0 -> "/api/v" + (1 + random.nextInt(3)) + "/users/" + random.nextInt(100_000);
+            case 1 -> "/api/v" + (1 + random.nextInt(3)) + "/orders/" + random.nextInt(100_000) + "/items";
+            case 2 -> "/static/img/banner-" + random.nextInt(1000) + ".png";
+            case 3 -> "/static/css/app." + Integer.toHexString(random.nextInt()) + ".css";
+            case 4 -> "/analytics/collect?v=1&tid=UA-" + random.nextInt(10_000);
+            default -> "/products/" + random.nextInt(50_000) + "/reviews";
+        };
+        HTTPSamplerProxy sampler = new HTTPSamplerProxy();
+        sampler.setName(id + " " + path);
+        sampler.setProtocol(random.nextInt(4) == 0 ? "http" : "https");
+        sampler.setDomain(DOMAINS[random.nextInt(DOMAINS.length)]);
+        sampler.setPath(path);
+        sampler.setMethod(path.startsWith("/api/") && random.nextBoolean() ? "POST" : "GET");
+        setClasses(sampler, "org.apache.jmeter.protocol.http.control.gui.HttpTestSampleGui");
+        return sampler;
+    }
+
+    /**
+     * Sets the class properties the GUI would set; SaveService needs them to write the plan.
+     * GUI classes are named, not referenced, to keep the generator headless.
+     */
+    private static void setClasses(TestElement element, String guiClass) {
+        element.setProperty(TestElement.TEST_CLASS, element.getClass().getName());
+        element.setProperty(TestElement.GUI_CLASS, guiClass);
+    }
+}
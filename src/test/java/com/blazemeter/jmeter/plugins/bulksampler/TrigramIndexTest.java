@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazemeter.jmeter.plugins.bulksampler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Checks that the literals and candidates the trigram index derives from a pattern never
+ * exclude a text that {@link Pattern#matcher(CharSequence) java.util.regex} {@code find()} matches.
+ */
+public class TrigramIndexTest {
+
+    private static PlanSnapshot snapshot;
+    private static TrigramIndex index;
+
+    @BeforeClass
+    public static void buildIndex() {
+        TestPlanGenerator.Plan plan = TestPlanGenerator.generate(new TestPlanGenerator.Shape(2, 1, 600, 0, 0), 7);
+        snapshot = SamplerIndex.unshared(plan.model()).planSnapshot(null);
+        index = TrigramIndex.build(snapshot);
+    }
+
+    @Test
+    public void skipsCountedRepetitionBounds() {
+        assertEquals(List.of("/api/v", "/users"), TrigramIndex.requiredLiterals("/api/v[0-9]{1,3}/users"));
+        assertEquals(List.of("foo", "bar"), TrigramIndex.requiredLiterals("foo\\d{2,4}bar"));
+        assertEquals(List.of("def"), TrigramIndex.requiredLiterals("abc{2}def"));
+        assertEquals(List.of("/v1/"), TrigramIndex.requiredLiterals("/v1/(ab){10,}"));
+        assertNull(TrigramIndex.requiredLiterals("x{1000}"));
+        assertNull(TrigramIndex.requiredLiterals("abc{2"));
+    }
+
+    @Test
+    public void skipsWholeCharacterClasses() {
+        assertEquals(List.of("bar"), TrigramIndex.requiredLiterals("[a-z&&[^x]]bar"));
+        assertEquals(List.of("foo", "bar"), TrigramIndex.requiredLiterals("foo[[a]b]bar"));
+        assertEquals(List.of("bar"), TrigramIndex.requiredLiterals("[]x]bar"));
+        assertEquals(List.of("bar"), TrigramIndex.requiredLiterals("[^]x]bar"));
+        assertEquals(List.of("bar"), TrigramIndex.requiredLiterals("[\\]x]bar"));
+        assertNull(TrigramIndex.requiredLiterals("[a-z&&[^x]"));
+    }
+
+    @Test
+    public void givesUpOnSyntaxItCannotRead() {
+        assertNull(TrigramIndex.requiredLiterals("users|orders"));
+        assertNull(TrigramIndex.requiredLiterals("(?x)a b c"));
+        // Flags set inside a group stay in effect after it
+        assertNull(TrigramIndex.requiredLiterals("(a(?x))b c d"));
+        assertNull(TrigramIndex.requiredLiterals("\\Qa.b\\E/users"));
+        assertNull(TrigramIndex.requiredLiterals("(api)\\1/users"));
+        assertNull(TrigramIndex.requiredLiterals("\\p{L}+/users"));
+    }
+
+    @Test
+    public void candidatesContainEveryMatch() {
+        String[] regexes = {
+            "/api/v[0-9]{1,3}/users", "/api/v\\d{1,3}/orders/\\d+/items", "banner-\\d{2,4}\\.png",
+            "[a-z&&[^x]]+/reviews", "/static/[[a-z]]+/", "[]x/]static", "https?://[^/]+/analytics",
+            "^\\d+ /products/", "\\.css$", "(users|orders)/\\d{3}", "api/v2", "API/V2", "UA-\\d{1,2}$"
+        };
+        int prefiltered = 0;
+        for (String regex : regexes) {
+            int[] candidates = index.candidates(regex, true, false);
+            if (candidates == null) {
+                continue;
+            }
+            prefiltered++;
+            assertContainsMatches(regex, candidates, Pattern.compile(regex));
+            assertContainsMatches(regex, candidates, Pattern.compile(regex, Pattern.CASE_INSENSITIVE));
+        }
+        assertTrue(prefiltered >= 10);
+
+        int[] literal = index.candidates("/Static/CSS/", false, false);
+        assertContainsMatches("/Static/CSS/", literal, Pattern.compile("/static/css/", Pattern.CASE_INSENSITIVE));
+        int[] multi = index.candidates("/items, .png", false, true);
+        assertContainsMatches("/items, .png", multi, Pattern.compile("/items|\\.png"));
+    }
+
+    @Test
+    public void requiredLiteralsOccurInRandomMatches() {
+        Random random = new Random(11);
+        int checked = 0;
+        for (int i = 0; i < 20_000; i++) {
+            String regex = randomRegex(random, 2);
+            List<String> literals = TrigramIndex.requiredLiterals(regex);
+            if (literals == null) {
+                continue;
+            }
+            Pattern pattern = Pattern.compile(regex);
+            for (int t = 0; t < 40; t++) {
+                // Mostly texts built around the literals, so that some of them match
+                StringBuilder text = new StringBuilder(randomText(random, random.nextInt(4)));
+                for (String literal : literals) {
+                    if (random.nextInt(8) > 0) {
+                        text.append(literal);
+                    }
+                    text.append(randomText(random, random.nextInt(4)));
+                }
+                if (pattern.matcher(text).find()) {
+                    for (String literal : literals) {
+                        assertTrue("/" + regex + "/ found in \"" + text + "\" without " + literal,
+                            text.indexOf(literal) >= 0);
+                    }
+                    checked++;
+                }
+            }
+        }
+        assertTrue(checked > 1000);
+    }
+
+    private static void assertContainsMatches(String pattern, int[] candidates, Pattern expected) {
+        assertNotNull(pattern, candidates);
+        for (int i = 0; i < snapshot.getSamplerCount(); i++) {
+            String text = snapshot.getSearchableText(i);
+            if (expected.matcher(text).find()) {
+                assertTrue(pattern + " dropped " + text, Arrays.binarySearch(candidates, i) >= 0);
+            }
+        }
+    }
+
+    private static String randomText(Random random, int length) {
+        String alphabet = "abc/.{},]1";
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return text.toString();
+    }
+
+    private static String randomRegex(Random random, int depth) {
+        StringBuilder regex = new StringBuilder();
+        for (int n = 2 + random.nextInt(5); n > 0; n--) {
+            regex.append(randomAtom(random, depth));
+            regex.append(switch (random.nextInt(10)) {
+                case 0 -> "*";
+                case 1 -> "?";
+                case 2 -> "{" + random.nextInt(3) + "}";
+                case 3 -> "{1,2}";
+                case 4 -> "{0,}?";
+                default -> "";
+            });
+        }
+        return regex.toString();
+    }
+
+    private static String randomAtom(Random random, int depth) {
+        return switch (random.nextInt(depth > 0 ? 8 : 7)) {
+            case 0 -> ".";
+            case 1 -> List.of("\\.", "\\{", "\\}", "\\]", "\\d").get(random.nextInt(5));
+            case 2 -> List.of("[ab]", "[^a]", "[]a]", "[^]b]", "[a[c]]", "[a-c&&[^b]]", "[{}]", "[\\],]")
+                .get(random.nextInt(8));
+            case 7 -> "(" + randomRegex(random, depth - 1) + (random.nextBoolean() ? "|c" : "") + ")";
+            default -> String.valueOf("abc/.}1".charAt(random.nextInt(7)));
+        };
+    }
+}